@@ -23,18 +23,95 @@ repositories {
     mavenCentral()
 }
 
+sourceSets {
+    // classes replacing their Java 8 counterparts on Java 11 and later, packaged into
+    // META-INF/versions/11 of the multi-release jar
+    create("java11") {
+        java.setSrcDirs(listOf("src/main/java11"))
+        compileClasspath += sourceSets.main.get().output + sourceSets.main.get().compileClasspath
+    }
+
+    // likewise for Java 21 and later, packaged into META-INF/versions/21
+    create("java21") {
+        java.setSrcDirs(listOf("src/main/java21"))
+        compileClasspath += sourceSets.main.get().output + sourceSets.main.get().compileClasspath
+    }
+
+    create("jmh") {
+        compileClasspath += sourceSets.main.get().output
+        runtimeClasspath += sourceSets.main.get().output
+    }
+}
+
+configurations["jmhImplementation"].extendsFrom(configurations.api.get(), configurations.implementation.get())
+
 dependencies {
     api(libs.jhlabs.core)
     implementation(libs.jspecify.core)
     testImplementation(platform(libs.junit.bom))
     testImplementation(libs.junit.jupiter)
     testRuntimeOnly(libs.junit.platformLauncher)
+    "jmhImplementation"(libs.jmh.core)
+    "jmhAnnotationProcessor"(libs.jmh.generatorAnnprocess)
 }
 
 tasks.test {
     useJUnitPlatform()
 }
 
+tasks.named<JavaCompile>("compileJava11Java") {
+    javaCompiler = javaToolchains.compilerFor {
+        languageVersion = JavaLanguageVersion.of(11)
+    }
+    options.release = 11
+}
+
+tasks.named<JavaCompile>("compileJava21Java") {
+    javaCompiler = javaToolchains.compilerFor {
+        languageVersion = JavaLanguageVersion.of(21)
+    }
+    options.release = 21
+}
+
+tasks.jar {
+    into("META-INF/versions/11") {
+        from(sourceSets["java11"].output)
+    }
+    into("META-INF/versions/21") {
+        from(sourceSets["java21"].output)
+    }
+    manifest {
+        attributes("Multi-Release" to "true")
+    }
+}
+
+/*
+ * Runs the JMH benchmarks, for example:
+ *
+ *   ./gradlew jmh -Pjmh.includes=ProducerBenchmark -Pjmh.threads=4
+ *
+ * Benchmarks report throughput and average time together with the allocation rate of the gc
+ * profiler. Results are written as JSON to build/reports/jmh/results.json.
+ */
+tasks.register<JavaExec>("jmh") {
+    group = "benchmark"
+    description = "Runs the JMH benchmarks."
+    classpath = sourceSets["jmh"].runtimeClasspath
+    mainClass = "org.openjdk.jmh.Main"
+
+    val resultFile = layout.buildDirectory.file("reports/jmh/results.json")
+    outputs.upToDateWhen { false }
+    doFirst {
+        resultFile.get().asFile.parentFile.mkdirs()
+    }
+
+    args(providers.gradleProperty("jmh.includes").getOrElse(".*"))
+    args("-prof", providers.gradleProperty("jmh.profilers").getOrElse("gc"))
+    args("-rf", "json", "-rff", resultFile.get().asFile.absolutePath)
+    providers.gradleProperty("jmh.threads").orNull?.let { args("-t", it) }
+    providers.gradleProperty("jmh.params").orNull?.split(";")?.forEach { args("-p", it) }
+}
+
 publishing {
     publications {
         create<MavenPublication>("captcha") {
@@ -1 +1,6 @@
-rootProject.name = "captcha"
\ No newline at end of file
+plugins {
+    // provisions the JDK 11 and JDK 21 toolchains of the multi-release jar where none is installed
+    id("org.gradle.toolchains.foojay-resolver-convention") version "0.10.0"
+}
+
+rootProject.name = "captcha"
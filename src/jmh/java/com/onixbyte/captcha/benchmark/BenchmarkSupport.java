@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2024-2025 OnixByte
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.onixbyte.captcha.benchmark;
+
+import java.util.Random;
+
+/**
+ * Helpers shared by the benchmarks.
+ */
+final class BenchmarkSupport {
+
+    private static final char[] CHARS = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789".toCharArray();
+
+    private BenchmarkSupport() {
+    }
+
+    /**
+     * Parses an image size written as {@code <width>x<height>}.
+     *
+     * @param size the image size
+     * @return the width and the height
+     */
+    static int[] parseSize(String size) {
+        int separator = size.indexOf('x');
+        if (separator < 0) {
+            throw new IllegalArgumentException("Image size should be written as <width>x<height>.");
+        }
+
+        return new int[]{
+                Integer.parseInt(size.substring(0, separator)),
+                Integer.parseInt(size.substring(separator + 1))
+        };
+    }
+
+    /**
+     * Returns a text of the given length. The text only depends on its length, so that runs with
+     * the same parameters render the same glyphs.
+     *
+     * @param length the length of the text
+     * @return the text
+     */
+    static String text(int length) {
+        Random random = new Random(length);
+        char[] text = new char[length];
+        for (int i = 0; i < length; i++) {
+            text[i] = CHARS[random.nextInt(CHARS.length)];
+        }
+        return new String(text);
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) 2024-2025 OnixByte
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.onixbyte.captcha.benchmark;
+
+import com.onixbyte.captcha.gimpy.GimpyEngine;
+import com.onixbyte.captcha.gimpy.impl.FishEyeGimpy;
+import com.onixbyte.captcha.gimpy.impl.ShadowGimpy;
+import com.onixbyte.captcha.gimpy.impl.WaterRipple;
+import com.onixbyte.captcha.text.impl.DefaultWordRenderer;
+import com.onixbyte.captcha.util.RandomUtils;
+import com.onixbyte.captcha.util.RasterUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.awt.image.BufferedImage;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how one gimpy engine shared by every benchmark thread scales without locks.
+ * <p>
+ * Comparing the throughput of {@link #distort(ThreadState)} on one thread with that of
+ * {@link #distortConcurrently(ThreadState)} on every processor shows how the engine scales; other
+ * thread counts can be measured by passing {@code -t} to JMH, or {@code -Pjmh.threads} to the
+ * {@code jmh} task. Every image is distorted with one of a few seeds, so that the engines draw the
+ * same parameters on every run. That a shared engine distorts every image as it would on a single
+ * thread is checked by {@code GimpyEngineConcurrencyTest}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GimpyEngineBenchmark {
+
+    /**
+     * The number of seeds the images are distorted with, a power of two.
+     */
+    private static final int SEEDS = 16;
+
+    @Param({"200x50", "400x100"})
+    private String imageSize;
+
+    @Param({"WATER_RIPPLE", "SHADOW", "FISH_EYE"})
+    private String engine;
+
+    private GimpyEngine gimpyEngine;
+    private BufferedImage word;
+
+    @Setup
+    public void setUp() {
+        int[] size = BenchmarkSupport.parseSize(imageSize);
+        word = DefaultWordRenderer.builder().build()
+                .renderWord(BenchmarkSupport.text(6), size[0], size[1]);
+        gimpyEngine = gimpyEngine();
+    }
+
+    private GimpyEngine gimpyEngine() {
+        switch (engine) {
+            case "SHADOW":
+                return ShadowGimpy.builder().build();
+            case "FISH_EYE":
+                return FishEyeGimpy.builder().build();
+            default:
+                // several phases, so that threads also race to build the warp maps
+                return WaterRipple.builder().phaseShifts(SEEDS / 2).build();
+        }
+    }
+
+    /**
+     * The images of each benchmark thread.
+     */
+    @State(Scope.Thread)
+    public static class ThreadState {
+        private BufferedImage input;
+        private int next;
+    }
+
+    @Benchmark
+    @Threads(1)
+    public BufferedImage distort(ThreadState state) {
+        return distortNext(state);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public BufferedImage distortConcurrently(ThreadState state) {
+        return distortNext(state);
+    }
+
+    /**
+     * Distorts a fresh copy of the word with the next seed of the thread. The fish-eye engine
+     * distorts its input in place, so the word itself is never handed over.
+     */
+    private BufferedImage distortNext(ThreadState state) {
+        if (Objects.isNull(state.input)) {
+            state.input = new BufferedImage(word.getWidth(), word.getHeight(), BufferedImage.TYPE_INT_ARGB);
+        }
+
+        long seed = state.next++ & (SEEDS - 1);
+        RasterUtils.copy(word, state.input);
+        return RandomUtils.withSeed(seed, () -> gimpyEngine.getDistortedImage(state.input));
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2024-2025 OnixByte
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.onixbyte.captcha.benchmark;
+
+import com.onixbyte.captcha.Producer;
+import com.onixbyte.captcha.gimpy.GimpyEngine;
+import com.onixbyte.captcha.gimpy.impl.FishEyeGimpy;
+import com.onixbyte.captcha.gimpy.impl.ShadowGimpy;
+import com.onixbyte.captcha.gimpy.impl.WaterRipple;
+import com.onixbyte.captcha.impl.DefaultCaptchaProducer;
+import com.onixbyte.captcha.text.impl.DefaultWordRenderer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the whole pipeline of {@link DefaultCaptchaProducer}, from the text to the finished
+ * image and to the encoded PNG image, for each gimpy engine and rendering mode.
+ * <p>
+ * One producer is shared by every benchmark thread, as it would be in a server. Each benchmark runs
+ * on a single thread and on as many threads as there are processors. Other thread counts can be
+ * measured by passing {@code -t} to JMH, or {@code -Pjmh.threads} to the {@code jmh} task.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProducerBenchmark {
+
+    @Param({"200x50", "400x100"})
+    private String imageSize;
+
+    @Param({"4", "6", "8"})
+    private int textLength;
+
+    @Param({"Arial,Courier"})
+    private String fonts;
+
+    @Param({"WATER_RIPPLE", "SHADOW", "FISH_EYE"})
+    private String engine;
+
+    /**
+     * The rendering mode: {@code CLASSIC} allocates an image per stage, {@code FUSED} runs on a
+     * fresh pair of rasters and {@code REUSED} reuses the rasters of each thread.
+     */
+    @Param({"CLASSIC", "FUSED", "REUSED"})
+    private String pipeline;
+
+    private Producer producer;
+    private String text;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        int[] size = BenchmarkSupport.parseSize(imageSize);
+        text = BenchmarkSupport.text(textLength);
+        producer = DefaultCaptchaProducer.builder()
+                .width(size[0])
+                .height(size[1])
+                .wordRenderer(DefaultWordRenderer.builder()
+                        .fonts(fonts.split(","))
+                        .build())
+                .gimpyEngine(gimpyEngine())
+                .fusedPipeline(!"CLASSIC".equals(pipeline))
+                .reuseRenderContexts("REUSED".equals(pipeline))
+                .build();
+    }
+
+    private GimpyEngine gimpyEngine() {
+        switch (engine) {
+            case "SHADOW":
+                return ShadowGimpy.builder().build();
+            case "FISH_EYE":
+                return FishEyeGimpy.builder().build();
+            default:
+                return WaterRipple.builder().build();
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public BufferedImage createImage() {
+        return producer.createImage(text);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public BufferedImage createImageConcurrently() {
+        return producer.createImage(text);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public byte[] createImageBytes() throws IOException {
+        return producer.createImageBytes(text, "png");
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public byte[] createImageBytesConcurrently() throws IOException {
+        return producer.createImageBytes(text, "png");
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright (c) 2024-2025 OnixByte
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.onixbyte.captcha.benchmark;
+
+import com.onixbyte.captcha.background.BackgroundProducer;
+import com.onixbyte.captcha.background.impl.DefaultBackgroundProducer;
+import com.onixbyte.captcha.gimpy.GimpyEngine;
+import com.onixbyte.captcha.gimpy.impl.FishEyeGimpy;
+import com.onixbyte.captcha.gimpy.impl.ShadowGimpy;
+import com.onixbyte.captcha.gimpy.impl.WaterRipple;
+import com.onixbyte.captcha.noise.NoiseProducer;
+import com.onixbyte.captcha.noise.impl.DefaultNoiseProducer;
+import com.onixbyte.captcha.noise.impl.SpeckleNoiseProducer;
+import com.onixbyte.captcha.text.WordRenderer;
+import com.onixbyte.captcha.text.impl.DefaultWordRenderer;
+import com.onixbyte.captcha.util.RasterUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks each stage of the rendering pipeline on its own, so that a regression can be traced
+ * to the stage causing it.
+ * <p>
+ * Every stage is fed the output its predecessor would produce for the same text, image size and
+ * fonts. Stages which modify their input in place are given a fresh copy of it on each invocation,
+ * and the copy is left out of the measurement.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class StageBenchmark {
+
+    @Param({"200x50", "400x100"})
+    private String imageSize;
+
+    @Param({"4", "6", "8"})
+    private int textLength;
+
+    @Param({"Arial,Courier", "Serif", "SansSerif,Serif,Monospaced"})
+    private String fonts;
+
+    private String text;
+    private WordRenderer wordRenderer;
+    private WordRenderer java2DWordRenderer;
+    private GimpyEngine waterRipple;
+    private GimpyEngine sequentialWaterRipple;
+    private GimpyEngine shadowGimpy;
+    private GimpyEngine shadowFilterGimpy;
+    private GimpyEngine fishEyeGimpy;
+    private NoiseProducer noiseProducer;
+    private NoiseProducer speckleNoiseProducer;
+    private BackgroundProducer backgroundProducer;
+
+    private BufferedImage word;
+    private BufferedImage distorted;
+    private BufferedImage input;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        int[] size = BenchmarkSupport.parseSize(imageSize);
+        text = BenchmarkSupport.text(textLength);
+        wordRenderer = DefaultWordRenderer.builder()
+                .fonts(fonts.split(","))
+                .build();
+        java2DWordRenderer = DefaultWordRenderer.builder()
+                .fonts(fonts.split(","))
+                .glyphAtlas(false)
+                .build();
+        waterRipple = WaterRipple.builder().build();
+        sequentialWaterRipple = WaterRipple.builder()
+                .parallelThreshold(Integer.MAX_VALUE)
+                .build();
+        shadowGimpy = ShadowGimpy.builder().build();
+        shadowFilterGimpy = ShadowGimpy.builder()
+                .boxBlurShadow(false)
+                .build();
+        fishEyeGimpy = FishEyeGimpy.builder().build();
+        noiseProducer = DefaultNoiseProducer.builder().build();
+        speckleNoiseProducer = SpeckleNoiseProducer.builder().build();
+        backgroundProducer = DefaultBackgroundProducer.builder().build();
+
+        word = wordRenderer.renderWord(text, size[0], size[1]);
+        distorted = waterRipple.getDistortedImage(word);
+        input = new BufferedImage(size[0], size[1], BufferedImage.TYPE_INT_ARGB);
+    }
+
+    /**
+     * Restores the input of the stages modifying their input in place.
+     */
+    @Setup(Level.Invocation)
+    public void resetInput() {
+        RasterUtils.copy(word, input);
+    }
+
+    @Benchmark
+    public BufferedImage renderWord() {
+        return wordRenderer.renderWord(text, word.getWidth(), word.getHeight());
+    }
+
+    @Benchmark
+    public BufferedImage renderWordWithoutAtlas() {
+        return java2DWordRenderer.renderWord(text, word.getWidth(), word.getHeight());
+    }
+
+    @Benchmark
+    public BufferedImage waterRipple() {
+        return waterRipple.getDistortedImage(word);
+    }
+
+    /**
+     * Warps every image on the calling thread, to compare with {@link #waterRipple()} on images
+     * above the parallel threshold, such as {@code imageSize=1200x300}.
+     */
+    @Benchmark
+    public BufferedImage waterRippleSequential() {
+        return sequentialWaterRipple.getDistortedImage(word);
+    }
+
+    @Benchmark
+    public BufferedImage shadowGimpy() {
+        return shadowGimpy.getDistortedImage(word);
+    }
+
+    @Benchmark
+    public BufferedImage shadowGimpyWithShadowFilter() {
+        return shadowFilterGimpy.getDistortedImage(word);
+    }
+
+    @Benchmark
+    public BufferedImage fishEyeGimpy() {
+        return fishEyeGimpy.getDistortedImage(input);
+    }
+
+    @Benchmark
+    public BufferedImage noise() {
+        noiseProducer.makeNoise(input, .1f, .1f, .25f, .25f);
+        return input;
+    }
+
+    @Benchmark
+    public BufferedImage speckleNoise() {
+        speckleNoiseProducer.makeNoise(input, .1f, .1f, .25f, .25f);
+        return input;
+    }
+
+    @Benchmark
+    public BufferedImage background() {
+        return backgroundProducer.addBackground(distorted);
+    }
+}
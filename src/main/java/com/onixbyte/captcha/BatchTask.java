@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2024-2025 OnixByte
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.onixbyte.captcha;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntFunction;
+
+/**
+ * A fork-join task generating a batch of results by recursively splitting the index range, so that
+ * idle workers can steal halves of the remaining work. Each result is stored at its own index, which
+ * keeps the output in order regardless of which worker produced it.
+ *
+ * @param <T> the type of the generated results
+ */
+class BatchTask<T> extends RecursiveAction {
+
+    private static final long serialVersionUID = 1L;
+
+    private final IntFunction<T> generator;
+    private final Object[] results;
+    private final int from;
+    private final int to;
+
+    private BatchTask(IntFunction<T> generator, Object[] results, int from, int to) {
+        this.generator = generator;
+        this.results = results;
+        this.from = from;
+        this.to = to;
+    }
+
+    /**
+     * Generates {@code count} results on the given pool.
+     *
+     * @param pool      the pool to run the generation on
+     * @param count     the number of results
+     * @param generator the function creating the result for an index
+     * @param <T>       the type of the generated results
+     * @return an unmodifiable list of the results, ordered by index
+     */
+    @SuppressWarnings("unchecked")
+    static <T> List<T> invoke(ForkJoinPool pool, int count, IntFunction<T> generator) {
+        Object[] results = new Object[count];
+        if (count > 0) {
+            pool.invoke(new BatchTask<>(generator, results, 0, count));
+        }
+        return Collections.unmodifiableList((List<T>) Arrays.asList(results));
+    }
+
+    @Override
+    protected void compute() {
+        if (to - from == 1) {
+            results[from] = generator.apply(from);
+            return;
+        }
+
+        int middle = (from + to) >>> 1;
+        invokeAll(
+                new BatchTask<>(generator, results, from, middle),
+                new BatchTask<>(generator, results, middle, to)
+        );
+    }
+}
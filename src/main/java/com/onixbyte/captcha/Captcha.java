@@ -0,0 +1,165 @@
+/*
+ * Copyright (c) 2024-2025 OnixByte
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.onixbyte.captcha;
+
+import java.awt.image.BufferedImage;
+import java.util.Objects;
+
+/**
+ * A generated captcha, holding the text to be answered and the image it is drawn on, and, if the
+ * producer issues them, the token the answer can be verified against.
+ */
+public class Captcha {
+
+    /**
+     * The text drawn on the image.
+     */
+    private final String text;
+
+    /**
+     * The image with the distorted text.
+     */
+    private final BufferedImage image;
+
+    /**
+     * The token the answer can be verified against, or {@code null}.
+     */
+    private final String token;
+
+    /**
+     * Creates a new {@link Captcha}.
+     *
+     * @param text  the text drawn on the image
+     * @param image the image with the distorted text
+     * @param token the token the answer can be verified against, or {@code null}
+     */
+    private Captcha(String text, BufferedImage image, String token) {
+        this.text = text;
+        this.image = image;
+        this.token = token;
+    }
+
+    /**
+     * Returns the text drawn on the image.
+     *
+     * @return the text drawn on the image
+     */
+    public String getText() {
+        return text;
+    }
+
+    /**
+     * Returns the image with the distorted text.
+     *
+     * @return the image with the distorted text
+     */
+    public BufferedImage getImage() {
+        return image;
+    }
+
+    /**
+     * Returns the token the answer can be verified against, which is handed to the client together
+     * with the image.
+     *
+     * @return the token, or {@code null} if the producer does not issue tokens
+     * @see com.onixbyte.captcha.token.TokenService
+     */
+    public String getToken() {
+        return token;
+    }
+
+    /**
+     * Creates a new {@link CaptchaBuilder}.
+     *
+     * @return a new {@link CaptchaBuilder}
+     */
+    public static CaptchaBuilder builder() {
+        return new CaptchaBuilder();
+    }
+
+    /**
+     * A builder for creating {@link Captcha} instances.
+     */
+    public static class CaptchaBuilder {
+        private String text;
+        private BufferedImage image;
+        private String token;
+
+        private CaptchaBuilder() {
+        }
+
+        /**
+         * Sets the text drawn on the image.
+         *
+         * @param text the text
+         * @return this builder
+         */
+        public CaptchaBuilder text(String text) {
+            if (Objects.isNull(text)) {
+                throw new IllegalArgumentException("Text should not be null.");
+            }
+
+            this.text = text;
+            return this;
+        }
+
+        /**
+         * Sets the image with the distorted text.
+         *
+         * @param image the image
+         * @return this builder
+         */
+        public CaptchaBuilder image(BufferedImage image) {
+            if (Objects.isNull(image)) {
+                throw new IllegalArgumentException("Image should not be null.");
+            }
+
+            this.image = image;
+            return this;
+        }
+
+        /**
+         * Sets the token the answer can be verified against.
+         *
+         * @param token the token, or {@code null}
+         * @return this builder
+         */
+        public CaptchaBuilder token(String token) {
+            this.token = token;
+            return this;
+        }
+
+        /**
+         * Builds a new {@link Captcha} with the configured properties.
+         *
+         * @return a new {@link Captcha}
+         */
+        public Captcha build() {
+            if (Objects.isNull(text) || Objects.isNull(image)) {
+                throw new IllegalStateException("Both text and image should be set.");
+            }
+
+            return new Captcha(text, image, token);
+        }
+    }
+}
@@ -22,7 +22,21 @@
 
 package com.onixbyte.captcha;
 
+import com.onixbyte.captcha.encoder.impl.ImageIOEncoder;
+import com.onixbyte.captcha.util.ExecutorUtils;
+import com.onixbyte.captcha.util.RandomUtils;
+import com.onixbyte.captcha.util.RasterUtils;
+
 import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.WritableByteChannel;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * Responsible for creating captcha image with a text drawn on it.
@@ -37,10 +51,203 @@ public interface Producer {
      */
     BufferedImage createImage(String text);
 
+    /**
+     * Create an image which will have written a distorted text, drawn into the given destination
+     * image, replacing its content. Callers rendering many images can reuse one destination image
+     * instead of having a new image allocated each time.
+     * <p>
+     * The default implementation copies the result of {@link #createImage(String)}.
+     *
+     * @param text        the distorted text
+     * @param destination the image to draw into, of the same size as the images this producer
+     *                    creates
+     * @return the destination image
+     */
+    default BufferedImage createImage(String text, BufferedImage destination) {
+        if (Objects.isNull(destination)) {
+            throw new IllegalArgumentException("Destination should not be null.");
+        }
+
+        RasterUtils.copy(createImage(text), destination);
+        return destination;
+    }
+
+    /**
+     * Create an image which will have written a distorted text, drawing every random choice from a
+     * generator seeded with the given seed. The same text, seed and configuration always produce
+     * the same image, which makes renderings reproducible for debugging and regression tests.
+     *
+     * @param text the distorted text
+     * @param seed the seed
+     * @return image with the text
+     * @see RandomUtils#withSeed(long, java.util.function.Supplier)
+     */
+    default BufferedImage createImage(String text, long seed) {
+        return RandomUtils.withSeed(seed, () -> createImage(text));
+    }
+
     /**
      * Create the text to be drawn.
      *
      * @return the text to be drawn
      */
     String createText();
+
+    /**
+     * Create an image which will have written a distorted text, encoded into the given format.
+     *
+     * @param text   the distorted text
+     * @param format the informal name of the image format, such as {@code "png"}
+     * @return the encoded image with the text
+     * @throws IOException if the image cannot be encoded
+     */
+    default byte[] createImageBytes(String text, String format) throws IOException {
+        return ImageIOEncoder.builder().formatName(format).build().encode(createImage(text));
+    }
+
+    /**
+     * Create an image which will have written a distorted text and write it, encoded, to an output
+     * stream. The stream is neither flushed nor closed.
+     *
+     * @param text the distorted text
+     * @param out  the stream to write the encoded image to
+     * @throws IOException if the image cannot be encoded or written
+     */
+    default void writeImage(String text, OutputStream out) throws IOException {
+        ImageIOEncoder.builder().build().encode(createImage(text), out);
+    }
+
+    /**
+     * Create an image which will have written a distorted text and write it, encoded, to a channel.
+     * The channel is not closed.
+     *
+     * @param text    the distorted text
+     * @param channel the channel to write the encoded image to
+     * @throws IOException if the image cannot be encoded or written
+     */
+    default void writeImage(String text, WritableByteChannel channel) throws IOException {
+        ImageIOEncoder.builder().build().encode(createImage(text), channel);
+    }
+
+    /**
+     * Create a captcha, that is a new text together with the image it is drawn on.
+     *
+     * @return a new captcha
+     */
+    default Captcha createCaptcha() {
+        String text = createText();
+        return Captcha.builder()
+                .text(text)
+                .image(createImage(text))
+                .build();
+    }
+
+    /**
+     * Create a captcha, drawing every random choice, including the text, from a generator seeded
+     * with the given seed. The same seed and configuration always produce the same captcha.
+     * <p>
+     * As the seed determines the answer, it must be kept as secret as the answer itself and should
+     * never be derived from anything a client can see or choose.
+     *
+     * @param seed the seed
+     * @return a new captcha
+     * @see RandomUtils#withSeed(long, java.util.function.Supplier)
+     */
+    default Captcha createCaptcha(long seed) {
+        return RandomUtils.withSeed(seed, this::createCaptcha);
+    }
+
+    /**
+     * Create a captcha asynchronously, so that the calling thread is not blocked while the image is
+     * rendered.
+     * <p>
+     * The default implementation renders on {@link ExecutorUtils#defaultExecutor()}.
+     *
+     * @return a future completed with a new captcha
+     */
+    default CompletableFuture<Captcha> createCaptchaAsync() {
+        return createCaptchaAsync(ExecutorUtils.defaultExecutor());
+    }
+
+    /**
+     * Create a captcha asynchronously on the given executor. If the executor rejects the task, the
+     * returned future is completed exceptionally with the {@link RejectedExecutionException} instead
+     * of the exception being thrown to the caller.
+     *
+     * @param executor the executor rendering the captcha
+     * @return a future completed with a new captcha
+     */
+    default CompletableFuture<Captcha> createCaptchaAsync(Executor executor) {
+        if (Objects.isNull(executor)) {
+            throw new IllegalArgumentException("Executor should not be null.");
+        }
+
+        try {
+            return CompletableFuture.supplyAsync(this::createCaptcha, executor);
+        } catch (RejectedExecutionException e) {
+            CompletableFuture<Captcha> future = new CompletableFuture<>();
+            future.completeExceptionally(e);
+            return future;
+        }
+    }
+
+    /**
+     * Create several captchas at once, fanning the work out over the common fork-join pool.
+     *
+     * @param count the number of captchas to create
+     * @return the captchas, in creation order
+     * @see #createCaptchas(int, ForkJoinPool)
+     */
+    default List<Captcha> createCaptchas(int count) {
+        return createCaptchas(count, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Create several captchas at once, fanning the work out over the given fork-join pool.
+     *
+     * @param count the number of captchas to create
+     * @param pool  the pool to run the generation on
+     * @return the captchas, in creation order
+     */
+    default List<Captcha> createCaptchas(int count, ForkJoinPool pool) {
+        if (count < 0) {
+            throw new IllegalArgumentException("Count should not be negative.");
+        }
+        if (Objects.isNull(pool)) {
+            throw new IllegalArgumentException("Pool should not be null.");
+        }
+
+        return BatchTask.invoke(pool, count, (index) -> createCaptcha());
+    }
+
+    /**
+     * Create an image for each of the given texts, fanning the work out over the common fork-join
+     * pool.
+     *
+     * @param texts the texts to draw
+     * @return the images, in the same order as the texts
+     * @see #createImages(List, ForkJoinPool)
+     */
+    default List<BufferedImage> createImages(List<String> texts) {
+        return createImages(texts, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Create an image for each of the given texts, fanning the work out over the given fork-join
+     * pool.
+     *
+     * @param texts the texts to draw
+     * @param pool  the pool to run the generation on
+     * @return the images, in the same order as the texts
+     */
+    default List<BufferedImage> createImages(List<String> texts, ForkJoinPool pool) {
+        if (Objects.isNull(texts)) {
+            throw new IllegalArgumentException("Texts should not be null.");
+        }
+        if (Objects.isNull(pool)) {
+            throw new IllegalArgumentException("Pool should not be null.");
+        }
+
+        return BatchTask.invoke(pool, texts.size(), (index) -> createImage(texts.get(index)));
+    }
 }
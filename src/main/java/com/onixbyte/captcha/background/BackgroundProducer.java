@@ -35,4 +35,19 @@ public interface BackgroundProducer {
      * @return the image with the background added
      */
     BufferedImage addBackground(BufferedImage image);
+
+    /**
+     * Adds a background to the given image, writing the result into the given target image, which
+     * must have the same size as the image and must not share its pixels.
+     * <p>
+     * The default implementation ignores the target and delegates to
+     * {@link #addBackground(BufferedImage)}.
+     *
+     * @param image  the image to add the background to
+     * @param target the image to write the result into
+     * @return the image with the background added, which may be the target or a new image
+     */
+    default BufferedImage addBackground(BufferedImage image, BufferedImage target) {
+        return addBackground(image);
+    }
 }
@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2024-2025 OnixByte
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.onixbyte.captcha.cache;
+
+import java.io.IOException;
+
+/**
+ * {@link EncodedImageCache} keeps encoded captcha images by captcha identifier, so that a client
+ * fetching the same captcha again, after a reload or a retried request, is served the same image
+ * without it being rendered and encoded again.
+ * <p>
+ * Entries are kept for at most the configured time to live, which should match the expiry of the
+ * captchas themselves, and may be dropped earlier to stay within the configured size. Returned
+ * arrays are shared and must not be modified.
+ * <p>
+ * Implementations must be safe for use by multiple threads.
+ */
+public interface EncodedImageCache {
+
+    /**
+     * Returns the cached image of a captcha.
+     *
+     * @param id the identifier of the captcha
+     * @return the encoded image, or {@code null} if it is not cached
+     */
+    byte[] get(long id);
+
+    /**
+     * Returns the cached image of a captcha, rendering and encoding it for the given text and
+     * caching it if it is not cached yet. If another thread caches an image for the same captcha
+     * in the meantime, that image is returned instead, so every fetch of a captcha gets the same
+     * image.
+     *
+     * @param id   the identifier of the captcha
+     * @param text the text of the captcha
+     * @return the encoded image
+     * @throws IOException if the image cannot be encoded
+     */
+    byte[] get(long id, String text) throws IOException;
+
+    /**
+     * Caches the image of a captcha, replacing any image cached for it before.
+     *
+     * @param id    the identifier of the captcha
+     * @param bytes the encoded image
+     */
+    void put(long id, byte[] bytes);
+
+    /**
+     * Removes the image of a captcha, typically once the captcha has been answered.
+     *
+     * @param id the identifier of the captcha
+     */
+    void invalidate(long id);
+
+    /**
+     * Returns the number of cached images. Images which expired but were not removed yet may be
+     * counted.
+     *
+     * @return the number of cached images
+     */
+    int size();
+
+    /**
+     * Returns the total size of the cached images, in bytes.
+     *
+     * @return the total size of the cached images
+     */
+    long weightedSize();
+}
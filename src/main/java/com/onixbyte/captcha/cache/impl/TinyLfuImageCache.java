@@ -0,0 +1,715 @@
+/*
+ * Copyright (c) 2024-2025 OnixByte
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.onixbyte.captcha.cache.impl;
+
+import com.onixbyte.captcha.Producer;
+import com.onixbyte.captcha.cache.EncodedImageCache;
+import com.onixbyte.captcha.impl.DefaultCaptchaProducer;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * An {@link EncodedImageCache} bounded by the total size of the cached images, in a fixed number of
+ * independently locked shards, using a W-TinyLFU eviction policy.
+ * <p>
+ * Each shard admits new images into a small LRU window. Images leaving the window join the
+ * probation segment of a segmented LRU and are only admitted into the main space at the expense of
+ * the image next in line for eviction if they were fetched more often, as estimated by a count-min
+ * sketch of 4-bit counters which are halved periodically so that old popularity fades. Images
+ * fetched again while on probation are promoted to the protected segment. A burst of captchas
+ * which are never fetched twice therefore cannot flush out the ones clients keep reloading.
+ * <p>
+ * Images expire a fixed time after being cached. As every image lives equally long, expired
+ * images are always at the head of the write-order queue of their shard and are removed by
+ * whichever operation next takes the lock of the shard, without any background thread.
+ * <p>
+ * Images missing from the cache are rendered and encoded by the configured {@link Producer}
+ * outside of the lock of their shard.
+ */
+public class TinyLfuImageCache implements EncodedImageCache {
+
+    /**
+     * The expected average size of an encoded image, used to size the frequency sketches.
+     */
+    private static final int EXPECTED_IMAGE_BYTES = 2048;
+
+    /**
+     * The share of the main space of a shard taken by the protected segment.
+     */
+    private static final float PROTECTED_RATIO = 0.8f;
+
+    private static final int WINDOW = 0;
+    private static final int PROBATION = 1;
+    private static final int PROTECTED = 2;
+
+    private final Shard[] shards;
+    private final int shardMask;
+    private final long ttlNanos;
+    private final Producer producer;
+    private final String format;
+
+    /**
+     * Creates a new {@link TinyLfuImageCache}.
+     *
+     * @param shardCount  the number of shards, a power of two
+     * @param shardWeight the maximum total size of the images of a shard, in bytes
+     * @param windowRatio the share of a shard taken by the admission window
+     * @param ttlNanos    the time an image is kept for, in nanoseconds
+     * @param producer    the producer rendering missing images
+     * @param format      the format missing images are encoded to
+     */
+    private TinyLfuImageCache(int shardCount, long shardWeight, float windowRatio, long ttlNanos, Producer producer, String format) {
+        this.shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard(shardWeight, windowRatio);
+        }
+        this.shardMask = shardCount - 1;
+        this.ttlNanos = ttlNanos;
+        this.producer = producer;
+        this.format = format;
+    }
+
+    @Override
+    public byte[] get(long id) {
+        Shard shard = shards[shardOf(id)];
+        synchronized (shard) {
+            Node node = shard.lookup(id, System.nanoTime());
+            return Objects.isNull(node) ? null : node.bytes;
+        }
+    }
+
+    @Override
+    public byte[] get(long id, String text) throws IOException {
+        if (Objects.isNull(text)) {
+            throw new IllegalArgumentException("Text should not be null.");
+        }
+
+        byte[] cached = get(id);
+        if (Objects.nonNull(cached)) {
+            return cached;
+        }
+
+        byte[] bytes = producer.createImageBytes(text, format);
+        Shard shard = shards[shardOf(id)];
+        synchronized (shard) {
+            long now = System.nanoTime();
+            shard.expire(now);
+            Node node = shard.find(id);
+            if (Objects.nonNull(node)) {
+                return node.bytes;
+            }
+            shard.insert(id, bytes, now + ttlNanos);
+        }
+        return bytes;
+    }
+
+    @Override
+    public void put(long id, byte[] bytes) {
+        if (Objects.isNull(bytes)) {
+            throw new IllegalArgumentException("Bytes should not be null.");
+        }
+
+        Shard shard = shards[shardOf(id)];
+        synchronized (shard) {
+            long now = System.nanoTime();
+            shard.expire(now);
+            shard.sketch.increment(mix(id));
+            shard.insert(id, bytes, now + ttlNanos);
+        }
+    }
+
+    @Override
+    public void invalidate(long id) {
+        Shard shard = shards[shardOf(id)];
+        synchronized (shard) {
+            Node node = shard.find(id);
+            if (Objects.nonNull(node)) {
+                shard.remove(node);
+            }
+        }
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (Shard shard : shards) {
+            synchronized (shard) {
+                size += shard.size;
+            }
+        }
+        return size;
+    }
+
+    @Override
+    public long weightedSize() {
+        long weight = 0;
+        for (Shard shard : shards) {
+            synchronized (shard) {
+                weight += shard.weight;
+            }
+        }
+        return weight;
+    }
+
+    /**
+     * Returns the number of fetches served from the cache.
+     *
+     * @return the hit count
+     */
+    public long getHitCount() {
+        long hits = 0;
+        for (Shard shard : shards) {
+            synchronized (shard) {
+                hits += shard.hits;
+            }
+        }
+        return hits;
+    }
+
+    /**
+     * Returns the number of fetches which found no cached image.
+     *
+     * @return the miss count
+     */
+    public long getMissCount() {
+        long misses = 0;
+        for (Shard shard : shards) {
+            synchronized (shard) {
+                misses += shard.misses;
+            }
+        }
+        return misses;
+    }
+
+    /**
+     * Returns the number of images evicted to stay within the maximum weight.
+     *
+     * @return the eviction count
+     */
+    public long getEvictionCount() {
+        long evictions = 0;
+        for (Shard shard : shards) {
+            synchronized (shard) {
+                evictions += shard.evictions;
+            }
+        }
+        return evictions;
+    }
+
+    /**
+     * Returns the number of images removed because they expired.
+     *
+     * @return the expiry count
+     */
+    public long getExpiryCount() {
+        long expiries = 0;
+        for (Shard shard : shards) {
+            synchronized (shard) {
+                expiries += shard.expiries;
+            }
+        }
+        return expiries;
+    }
+
+    private int shardOf(long id) {
+        return (int) mix(id) & shardMask;
+    }
+
+    private static long mix(long value) {
+        value = (value ^ (value >>> 33)) * 0xff51afd7ed558ccdL;
+        value = (value ^ (value >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return value ^ (value >>> 33);
+    }
+
+    /**
+     * Creates a new {@link TinyLfuImageCacheBuilder}.
+     *
+     * @return a new {@link TinyLfuImageCacheBuilder}
+     */
+    public static TinyLfuImageCacheBuilder builder() {
+        return new TinyLfuImageCacheBuilder();
+    }
+
+    /**
+     * A cached image, linked into the access-order queue of its segment and into the write-order
+     * queue of its shard. Sentinel nodes head every queue, which is circular.
+     */
+    private static final class Node {
+        private final long id;
+        private final byte[] bytes;
+        private final long deadline;
+        private int segment;
+
+        private Node prev = this;
+        private Node next = this;
+        private Node writePrev = this;
+        private Node writeNext = this;
+
+        private Node(long id, byte[] bytes, long deadline) {
+            this.id = id;
+            this.bytes = bytes;
+            this.deadline = deadline;
+        }
+
+        private static Node sentinel() {
+            return new Node(0L, null, 0L);
+        }
+
+        private int weight() {
+            return bytes.length;
+        }
+    }
+
+    /**
+     * A shard of the cache, guarded by its own monitor.
+     */
+    private static final class Shard {
+        private final long maxWeight;
+        private final long maxWindowWeight;
+        private final long maxProtectedWeight;
+        private final FrequencySketch sketch;
+
+        private final Node window = Node.sentinel();
+        private final Node probation = Node.sentinel();
+        private final Node protectedSegment = Node.sentinel();
+        private final Node writeOrder = Node.sentinel();
+
+        private Node[] table = new Node[16];
+        private int tableMask = table.length - 1;
+
+        private int size;
+        private long weight;
+        private long windowWeight;
+        private long protectedWeight;
+
+        private long hits;
+        private long misses;
+        private long evictions;
+        private long expiries;
+
+        private Shard(long maxWeight, float windowRatio) {
+            this.maxWeight = maxWeight;
+            this.maxWindowWeight = Math.max(1L, (long) (maxWeight * windowRatio));
+            this.maxProtectedWeight = (long) ((maxWeight - maxWindowWeight) * PROTECTED_RATIO);
+            this.sketch = new FrequencySketch((int) Math.min(1 << 24, maxWeight / EXPECTED_IMAGE_BYTES));
+        }
+
+        /**
+         * Looks an image up for a fetch, recording the fetch in the statistics and the frequency
+         * sketch.
+         */
+        private Node lookup(long id, long now) {
+            expire(now);
+            sketch.increment(mix(id));
+
+            Node node = find(id);
+            if (Objects.isNull(node)) {
+                misses++;
+                return null;
+            }
+
+            hits++;
+            onAccess(node);
+            return node;
+        }
+
+        /**
+         * Moves an image to the tail of its segment, promoting it to the protected segment if it
+         * was on probation.
+         */
+        private void onAccess(Node node) {
+            unlink(node);
+            if (node.segment == WINDOW) {
+                linkLast(window, node);
+            } else if (node.segment == PROTECTED) {
+                linkLast(protectedSegment, node);
+            } else {
+                node.segment = PROTECTED;
+                linkLast(protectedSegment, node);
+                protectedWeight += node.weight();
+
+                while (protectedWeight > maxProtectedWeight) {
+                    Node demoted = protectedSegment.next;
+                    unlink(demoted);
+                    demoted.segment = PROBATION;
+                    linkLast(probation, demoted);
+                    protectedWeight -= demoted.weight();
+                }
+            }
+        }
+
+        /**
+         * Adds an image to the window, replacing the image with the same identifier, and evicts
+         * images until the shard fits its weight again. Images larger than the whole shard are
+         * not cached.
+         */
+        private void insert(long id, byte[] bytes, long deadline) {
+            Node existing = find(id);
+            if (Objects.nonNull(existing)) {
+                remove(existing);
+            }
+            if (bytes.length > maxWeight) {
+                return;
+            }
+
+            Node node = new Node(id, bytes, deadline);
+            node.segment = WINDOW;
+            linkLast(window, node);
+            linkLastWrite(writeOrder, node);
+
+            if ((size + 1) * 2 > table.length) {
+                grow();
+            }
+            int position = home(id);
+            while (Objects.nonNull(table[position])) {
+                position = (position + 1) & tableMask;
+            }
+            table[position] = node;
+
+            size++;
+            weight += node.weight();
+            windowWeight += node.weight();
+            evict();
+        }
+
+        /**
+         * Moves images overflowing the window to probation, then evicts images until the shard
+         * fits its weight. Each image which left the window competes with the image at the head
+         * of probation, and the one fetched less often is evicted.
+         */
+        private void evict() {
+            Node candidate = null;
+            while (windowWeight > maxWindowWeight) {
+                Node node = window.next;
+                unlink(node);
+                node.segment = PROBATION;
+                linkLast(probation, node);
+                windowWeight -= node.weight();
+                if (Objects.isNull(candidate)) {
+                    candidate = node;
+                }
+            }
+
+            while (weight > maxWeight) {
+                Node victim = probation.next;
+                if (victim == probation) {
+                    victim = protectedSegment.next != protectedSegment ? protectedSegment.next : window.next;
+                } else if (Objects.nonNull(candidate) && candidate != victim
+                        && sketch.frequency(mix(candidate.id)) <= sketch.frequency(mix(victim.id))) {
+                    victim = candidate;
+                }
+
+                if (victim == candidate) {
+                    candidate = candidate.next == probation ? null : candidate.next;
+                }
+                remove(victim);
+                evictions++;
+            }
+        }
+
+        /**
+         * Removes every image which expired by the given time.
+         */
+        private void expire(long now) {
+            while (writeOrder.writeNext != writeOrder && writeOrder.writeNext.deadline - now <= 0) {
+                remove(writeOrder.writeNext);
+                expiries++;
+            }
+        }
+
+        private Node find(long id) {
+            int position = home(id);
+            while (true) {
+                Node node = table[position];
+                if (Objects.isNull(node) || node.id == id) {
+                    return node;
+                }
+                position = (position + 1) & tableMask;
+            }
+        }
+
+        /**
+         * Removes an image from its queues and the table. The following images of the probe
+         * sequence are shifted back, so that lookups never need tombstones.
+         */
+        private void remove(Node node) {
+            unlink(node);
+            node.writePrev.writeNext = node.writeNext;
+            node.writeNext.writePrev = node.writePrev;
+
+            size--;
+            weight -= node.weight();
+            if (node.segment == WINDOW) {
+                windowWeight -= node.weight();
+            } else if (node.segment == PROTECTED) {
+                protectedWeight -= node.weight();
+            }
+
+            int hole = home(node.id);
+            while (table[hole] != node) {
+                hole = (hole + 1) & tableMask;
+            }
+            int current = (hole + 1) & tableMask;
+            while (Objects.nonNull(table[current])) {
+                int home = home(table[current].id);
+                // move the node into the hole unless its home lies cyclically in (hole, current]
+                if (((current - home) & tableMask) >= ((current - hole) & tableMask)) {
+                    table[hole] = table[current];
+                    hole = current;
+                }
+                current = (current + 1) & tableMask;
+            }
+            table[hole] = null;
+        }
+
+        private void grow() {
+            Node[] oldTable = table;
+            table = new Node[oldTable.length * 2];
+            tableMask = table.length - 1;
+            for (Node node : oldTable) {
+                if (Objects.nonNull(node)) {
+                    int position = home(node.id);
+                    while (Objects.nonNull(table[position])) {
+                        position = (position + 1) & tableMask;
+                    }
+                    table[position] = node;
+                }
+            }
+        }
+
+        private int home(long id) {
+            return (int) (mix(id) >>> 32) & tableMask;
+        }
+
+        private static void linkLast(Node head, Node node) {
+            Node last = head.prev;
+            last.next = node;
+            node.prev = last;
+            node.next = head;
+            head.prev = node;
+        }
+
+        private static void linkLastWrite(Node head, Node node) {
+            Node last = head.writePrev;
+            last.writeNext = node;
+            node.writePrev = last;
+            node.writeNext = head;
+            head.writePrev = node;
+        }
+
+        private static void unlink(Node node) {
+            node.prev.next = node.next;
+            node.next.prev = node.prev;
+        }
+    }
+
+    /**
+     * A count-min sketch of 4-bit counters estimating how often each image was fetched. Every
+     * {@code long} of the table holds 16 counters, and each key maps to one counter in each of
+     * four rows of hashing. Once the number of increments reaches ten times the size of the table,
+     * every counter is halved, so that the sketch favours recent popularity.
+     */
+    private static final class FrequencySketch {
+        private static final long[] SEEDS = {
+                0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L
+        };
+        private static final long RESET_MASK = 0x7777777777777777L;
+
+        private final long[] table;
+        private final int tableMask;
+        private final int sampleSize;
+        private int additions;
+
+        private FrequencySketch(int expectedEntries) {
+            int size = Integer.highestOneBit(Math.max(expectedEntries, 16) * 2 - 1);
+            this.table = new long[size];
+            this.tableMask = size - 1;
+            this.sampleSize = size * 10;
+        }
+
+        private void increment(long hash) {
+            boolean added = false;
+            for (long seed : SEEDS) {
+                long h = mix(hash + seed);
+                int index = (int) (h >>> 32) & tableMask;
+                int offset = ((int) h & 15) << 2;
+                long mask = 0xfL << offset;
+                if ((table[index] & mask) != mask) {
+                    table[index] += 1L << offset;
+                    added = true;
+                }
+            }
+
+            if (added && ++additions == sampleSize) {
+                for (int i = 0; i < table.length; i++) {
+                    table[i] = (table[i] >>> 1) & RESET_MASK;
+                }
+                additions >>>= 1;
+            }
+        }
+
+        private int frequency(long hash) {
+            int frequency = 15;
+            for (long seed : SEEDS) {
+                long h = mix(hash + seed);
+                int index = (int) (h >>> 32) & tableMask;
+                int offset = ((int) h & 15) << 2;
+                frequency = Math.min(frequency, (int) (table[index] >>> offset) & 15);
+            }
+            return frequency;
+        }
+    }
+
+    /**
+     * A builder for creating {@link TinyLfuImageCache} instances.
+     */
+    public static class TinyLfuImageCacheBuilder {
+        private long maximumWeight;
+        private int shards;
+        private float windowRatio;
+        private Duration ttl;
+        private Producer producer;
+        private String format;
+
+        private TinyLfuImageCacheBuilder() {
+            this.maximumWeight = 64L * 1024 * 1024;
+            this.shards = Runtime.getRuntime().availableProcessors() * 4;
+            this.windowRatio = 0.01f;
+            this.ttl = Duration.ofMinutes(5);
+            this.producer = DefaultCaptchaProducer.builder().build();
+            this.format = "png";
+        }
+
+        /**
+         * Sets the maximum total size of the cached images, in bytes. Defaults to 64 MiB.
+         *
+         * @param maximumWeight the maximum total size of the cached images
+         * @return this builder
+         */
+        public TinyLfuImageCacheBuilder maximumWeight(long maximumWeight) {
+            if (maximumWeight <= 0) {
+                throw new IllegalArgumentException("Maximum weight should be greater than 0.");
+            }
+
+            this.maximumWeight = maximumWeight;
+            return this;
+        }
+
+        /**
+         * Sets the number of independently locked shards. The value is rounded up to the next
+         * power of two. Defaults to four times the number of available processors.
+         *
+         * @param shards the number of shards
+         * @return this builder
+         */
+        public TinyLfuImageCacheBuilder shards(int shards) {
+            if (shards <= 0) {
+                throw new IllegalArgumentException("Shards should be greater than 0.");
+            }
+
+            this.shards = shards;
+            return this;
+        }
+
+        /**
+         * Sets the share of the cache taken by the admission window, which holds recently cached
+         * images regardless of their popularity. Defaults to 0.01.
+         *
+         * @param windowRatio the share of the admission window, between 0 and 1 (both exclusive)
+         * @return this builder
+         */
+        public TinyLfuImageCacheBuilder windowRatio(float windowRatio) {
+            if (windowRatio <= 0f || windowRatio >= 1f) {
+                throw new IllegalArgumentException("Window ratio should be in range (0, 1).");
+            }
+
+            this.windowRatio = windowRatio;
+            return this;
+        }
+
+        /**
+         * Sets how long an image is kept after being cached. It should match the time to live of
+         * the captchas, such as the one of the {@link com.onixbyte.captcha.store.CaptchaStore}
+         * holding their answers. Defaults to five minutes.
+         *
+         * @param ttl the time to live of an image
+         * @return this builder
+         */
+        public TinyLfuImageCacheBuilder ttl(Duration ttl) {
+            if (Objects.isNull(ttl) || ttl.isNegative() || ttl.isZero()) {
+                throw new IllegalArgumentException("TTL should be positive.");
+            }
+
+            this.ttl = ttl;
+            return this;
+        }
+
+        /**
+         * Sets the producer rendering images missing from the cache.
+         *
+         * @param producer the producer
+         * @return this builder
+         */
+        public TinyLfuImageCacheBuilder producer(Producer producer) {
+            if (Objects.isNull(producer)) {
+                throw new IllegalArgumentException("Producer should not be null.");
+            }
+
+            this.producer = producer;
+            return this;
+        }
+
+        /**
+         * Sets the informal name of the format images missing from the cache are encoded to.
+         * Defaults to {@code "png"}.
+         *
+         * @param format the format name
+         * @return this builder
+         */
+        public TinyLfuImageCacheBuilder format(String format) {
+            if (Objects.isNull(format)) {
+                throw new IllegalArgumentException("Format should not be null.");
+            }
+
+            this.format = format;
+            return this;
+        }
+
+        /**
+         * Builds a new {@link TinyLfuImageCache} with the configured properties.
+         *
+         * @return a new {@link TinyLfuImageCache}
+         */
+        public TinyLfuImageCache build() {
+            int shardCount = 1;
+            while (shardCount < shards && shardCount < maximumWeight) {
+                shardCount <<= 1;
+            }
+
+            long shardWeight = (maximumWeight + shardCount - 1) / shardCount;
+            return new TinyLfuImageCache(shardCount, shardWeight, windowRatio, ttl.toNanos(), producer, format);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2024-2025 OnixByte
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.onixbyte.captcha.encoder;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * An abstract implementation of {@link ImageEncoder}, which encodes into a per-thread
+ * {@link ReusableImageOutputStream} and copies the result to its destination. Subclasses only
+ * implement {@link #write(BufferedImage, ReusableImageOutputStream)}.
+ */
+public abstract class AbstractImageEncoder implements ImageEncoder {
+
+    private final ThreadLocal<ReusableImageOutputStream> buffers =
+            ThreadLocal.withInitial(ReusableImageOutputStream::new);
+
+    /**
+     * Creates a new {@link AbstractImageEncoder}.
+     */
+    protected AbstractImageEncoder() {
+    }
+
+    /**
+     * Encodes an image into a new byte array.
+     *
+     * @param image the image to encode
+     * @return the encoded image
+     * @throws IOException if the image cannot be encoded
+     */
+    @Override
+    public byte[] encode(BufferedImage image) throws IOException {
+        ReusableImageOutputStream buffer = encodeToBuffer(image);
+        try {
+            return buffer.toByteArray();
+        } finally {
+            buffer.clear();
+        }
+    }
+
+    /**
+     * Encodes an image and writes it to an output stream.
+     *
+     * @param image the image to encode
+     * @param out   the stream to write the encoded image to
+     * @throws IOException if the image cannot be encoded or written
+     */
+    @Override
+    public void encode(BufferedImage image, OutputStream out) throws IOException {
+        ReusableImageOutputStream buffer = encodeToBuffer(image);
+        try {
+            buffer.writeTo(out);
+        } finally {
+            buffer.clear();
+        }
+    }
+
+    /**
+     * Encodes an image and writes it to a channel.
+     *
+     * @param image   the image to encode
+     * @param channel the channel to write the encoded image to
+     * @throws IOException if the image cannot be encoded or written
+     */
+    @Override
+    public void encode(BufferedImage image, WritableByteChannel channel) throws IOException {
+        ReusableImageOutputStream buffer = encodeToBuffer(image);
+        try {
+            buffer.writeTo(channel);
+        } finally {
+            buffer.clear();
+        }
+    }
+
+    private ReusableImageOutputStream encodeToBuffer(BufferedImage image) throws IOException {
+        ReusableImageOutputStream buffer = buffers.get();
+        buffer.clear();
+        try {
+            write(image, buffer);
+        } catch (IOException | RuntimeException e) {
+            buffer.clear();
+            throw e;
+        }
+        return buffer;
+    }
+
+    /**
+     * Encodes an image into the given buffer, which is empty and positioned at zero.
+     *
+     * @param image  the image to encode
+     * @param buffer the buffer to write the encoded image to
+     * @throws IOException if the image cannot be encoded
+     */
+    protected abstract void write(BufferedImage image, ReusableImageOutputStream buffer) throws IOException;
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2024-2025 OnixByte
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.onixbyte.captcha.encoder;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * {@link ImageEncoder} is responsible for encoding captcha images into an image file format.
+ */
+public interface ImageEncoder {
+
+    /**
+     * Returns the informal name of the format images are encoded to, such as {@code "png"}.
+     *
+     * @return the format name
+     */
+    String getFormatName();
+
+    /**
+     * Encodes an image into a new byte array.
+     *
+     * @param image the image to encode
+     * @return the encoded image
+     * @throws IOException if the image cannot be encoded
+     */
+    byte[] encode(BufferedImage image) throws IOException;
+
+    /**
+     * Encodes an image and writes it to an output stream. The stream is neither flushed nor closed.
+     *
+     * @param image the image to encode
+     * @param out   the stream to write the encoded image to
+     * @throws IOException if the image cannot be encoded or written
+     */
+    void encode(BufferedImage image, OutputStream out) throws IOException;
+
+    /**
+     * Encodes an image and writes it to a channel. The channel is not closed.
+     *
+     * @param image   the image to encode
+     * @param channel the channel to write the encoded image to
+     * @throws IOException if the image cannot be encoded or written
+     */
+    void encode(BufferedImage image, WritableByteChannel channel) throws IOException;
+}
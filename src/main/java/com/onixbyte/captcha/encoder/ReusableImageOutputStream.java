@@ -0,0 +1,177 @@
+/*
+ * Copyright (c) 2024-2025 OnixByte
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.onixbyte.captcha.encoder;
+
+import javax.imageio.stream.ImageOutputStreamImpl;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+
+/**
+ * A seekable, memory-only {@link javax.imageio.stream.ImageOutputStream} writing into a growable
+ * byte array which is kept across uses.
+ * <p>
+ * Unlike {@link javax.imageio.stream.MemoryCacheImageOutputStream}, the same instance is meant to be
+ * {@link #clear() cleared} and reused for every image encoded on a thread, so that steady-state
+ * encoding does not allocate output buffers. Instances are not thread-safe.
+ */
+public class ReusableImageOutputStream extends ImageOutputStreamImpl {
+
+    /**
+     * The initial capacity of the buffer, enough for a typical captcha image.
+     */
+    private static final int INITIAL_CAPACITY = 16 * 1024;
+
+    /**
+     * The capacity above which the buffer is released on {@link #clear()} rather than kept.
+     */
+    private static final int RETAINED_CAPACITY = 1024 * 1024;
+
+    private byte[] buffer = new byte[INITIAL_CAPACITY];
+
+    private int length;
+
+    /**
+     * Creates a new, empty {@link ReusableImageOutputStream}.
+     */
+    public ReusableImageOutputStream() {
+    }
+
+    /**
+     * Discards the content of this stream so that it can be reused from position zero.
+     */
+    public void clear() {
+        if (buffer.length > RETAINED_CAPACITY) {
+            buffer = new byte[INITIAL_CAPACITY];
+        }
+        length = 0;
+        streamPos = 0;
+        flushedPos = 0;
+        bitOffset = 0;
+    }
+
+    /**
+     * Returns the array holding the content of this stream. Only the first {@link #size()} bytes
+     * are meaningful, and the array may be replaced by further writes.
+     *
+     * @return the backing array
+     */
+    public byte[] getBuffer() {
+        return buffer;
+    }
+
+    /**
+     * Returns the number of bytes written to this stream.
+     *
+     * @return the size of the content
+     */
+    public int size() {
+        return length;
+    }
+
+    /**
+     * Returns a copy of the content of this stream.
+     *
+     * @return the content of this stream
+     */
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buffer, length);
+    }
+
+    /**
+     * Writes the content of this stream to an output stream.
+     *
+     * @param out the stream to write to
+     * @throws IOException if writing fails
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        out.write(buffer, 0, length);
+    }
+
+    /**
+     * Writes the content of this stream to a channel, blocking until every byte has been written.
+     *
+     * @param channel the channel to write to
+     * @throws IOException if writing fails
+     */
+    public void writeTo(WritableByteChannel channel) throws IOException {
+        ByteBuffer content = ByteBuffer.wrap(buffer, 0, length);
+        while (content.hasRemaining()) {
+            channel.write(content);
+        }
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        flushBits();
+        ensureCapacity(streamPos + 1);
+        buffer[(int) streamPos++] = (byte) b;
+        length = Math.max(length, (int) streamPos);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        flushBits();
+        ensureCapacity(streamPos + len);
+        System.arraycopy(b, off, buffer, (int) streamPos, len);
+        streamPos += len;
+        length = Math.max(length, (int) streamPos);
+    }
+
+    @Override
+    public int read() throws IOException {
+        bitOffset = 0;
+        if (streamPos >= length) {
+            return -1;
+        }
+        return buffer[(int) streamPos++] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        bitOffset = 0;
+        if (streamPos >= length) {
+            return -1;
+        }
+        int count = Math.min(len, length - (int) streamPos);
+        System.arraycopy(buffer, (int) streamPos, b, off, count);
+        streamPos += count;
+        return count;
+    }
+
+    @Override
+    public long length() {
+        return length;
+    }
+
+    private void ensureCapacity(long capacity) throws IOException {
+        if (capacity > Integer.MAX_VALUE - 8) {
+            throw new IOException("Encoded image is too large.");
+        }
+        if (capacity > buffer.length) {
+            buffer = Arrays.copyOf(buffer, (int) Math.max(capacity, Math.min(buffer.length * 2L, Integer.MAX_VALUE - 8)));
+        }
+    }
+}
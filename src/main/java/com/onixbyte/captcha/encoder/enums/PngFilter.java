@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2024-2025 OnixByte
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.onixbyte.captcha.encoder.enums;
+
+/**
+ * Defines the scanline filter strategies available when encoding PNG images.
+ * <p>
+ * The first five values apply the PNG filter type of the same name to every scanline, while
+ * {@link #ADAPTIVE} picks a filter per scanline using the minimum sum of absolute differences
+ * heuristic recommended by the PNG specification.
+ */
+public enum PngFilter {
+
+    /**
+     * No filtering, usually the best choice for palette images.
+     */
+    NONE,
+    /**
+     * Each byte is stored as the difference to the byte on its left.
+     */
+    SUB,
+    /**
+     * Each byte is stored as the difference to the byte above.
+     */
+    UP,
+    /**
+     * Each byte is stored as the difference to the average of the bytes on its left and above.
+     */
+    AVERAGE,
+    /**
+     * Each byte is stored as the difference to the Paeth predictor of its neighbours.
+     */
+    PAETH,
+    /**
+     * The filter is chosen per scanline.
+     */
+    ADAPTIVE,
+}
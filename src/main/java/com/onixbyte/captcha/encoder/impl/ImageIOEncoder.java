@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2024-2025 OnixByte
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.onixbyte.captcha.encoder.impl;
+
+import com.onixbyte.captcha.encoder.AbstractImageEncoder;
+import com.onixbyte.captcha.encoder.ReusableImageOutputStream;
+
+import javax.imageio.IIOException;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriter;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * An {@link com.onixbyte.captcha.encoder.ImageEncoder} backed by the Image I/O writers of the
+ * running JDK.
+ * <p>
+ * Unlike {@link ImageIO#write}, the writer for a format is looked up in the service registry only
+ * once per thread and then reused, and output never goes through the Image I/O temporary file cache.
+ */
+public class ImageIOEncoder extends AbstractImageEncoder {
+
+    /**
+     * The writers of the current thread, by lower-cased format name.
+     */
+    private static final ThreadLocal<Map<String, ImageWriter>> WRITERS = ThreadLocal.withInitial(HashMap::new);
+
+    private final String formatName;
+
+    /**
+     * Creates a new {@link ImageIOEncoder} for the given format.
+     *
+     * @param formatName the informal name of the format
+     */
+    private ImageIOEncoder(String formatName) {
+        this.formatName = formatName;
+    }
+
+    /**
+     * Returns the informal name of the format images are encoded to.
+     *
+     * @return the format name
+     */
+    @Override
+    public String getFormatName() {
+        return formatName;
+    }
+
+    /**
+     * Encodes an image with the cached writer of the current thread.
+     *
+     * @param image  the image to encode
+     * @param buffer the buffer to write the encoded image to
+     * @throws IOException if no writer is available for the format or the image cannot be encoded
+     */
+    @Override
+    protected void write(BufferedImage image, ReusableImageOutputStream buffer) throws IOException {
+        Map<String, ImageWriter> writers = WRITERS.get();
+        ImageWriter writer = writers.get(formatName);
+        if (Objects.isNull(writer)) {
+            Iterator<ImageWriter> candidates = ImageIO.getImageWritersByFormatName(formatName);
+            if (!candidates.hasNext()) {
+                throw new IIOException("No image writer available for format " + formatName + ".");
+            }
+            writer = candidates.next();
+            writers.put(formatName, writer);
+        }
+
+        try {
+            writer.setOutput(buffer);
+            writer.write(null, new IIOImage(image, null, null), null);
+        } catch (IOException | RuntimeException e) {
+            // do not reuse a writer left in an unknown state
+            writers.remove(formatName);
+            writer.dispose();
+            throw e;
+        } finally {
+            writer.setOutput(null);
+        }
+    }
+
+    /**
+     * Creates a new {@link ImageIOEncoderBuilder}.
+     *
+     * @return a new {@link ImageIOEncoderBuilder}
+     */
+    public static ImageIOEncoderBuilder builder() {
+        return new ImageIOEncoderBuilder();
+    }
+
+    /**
+     * A builder for creating {@link ImageIOEncoder} instances.
+     */
+    public static class ImageIOEncoderBuilder {
+        private String formatName;
+
+        private ImageIOEncoderBuilder() {
+            this.formatName = "png";
+        }
+
+        /**
+         * Sets the informal name of the format to encode to, such as {@code "png"} or
+         * {@code "jpg"}.
+         *
+         * @param formatName the format name
+         * @return this builder
+         */
+        public ImageIOEncoderBuilder formatName(String formatName) {
+            if (Objects.isNull(formatName) || formatName.trim().isEmpty()) {
+                throw new IllegalArgumentException("Format name should not be empty.");
+            }
+
+            this.formatName = formatName.trim().toLowerCase(Locale.ROOT);
+            return this;
+        }
+
+        /**
+         * Builds a new {@link ImageIOEncoder} with the configured properties.
+         *
+         * @return a new {@link ImageIOEncoder}
+         */
+        public ImageIOEncoder build() {
+            return new ImageIOEncoder(formatName);
+        }
+    }
+}
@@ -0,0 +1,735 @@
+/*
+ * Copyright (c) 2024-2025 OnixByte
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.onixbyte.captcha.encoder.impl;
+
+import com.onixbyte.captcha.encoder.AbstractImageEncoder;
+import com.onixbyte.captcha.encoder.ReusableImageOutputStream;
+import com.onixbyte.captcha.encoder.enums.PngFilter;
+import com.onixbyte.captcha.util.RasterUtils;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * An {@link com.onixbyte.captcha.encoder.ImageEncoder} writing palette-based PNG images, tuned for
+ * the small, low-colour images captchas are.
+ * <p>
+ * Each image is reduced to a palette of at most {@code maxColours} colours. If the image has no
+ * more distinct colours than that, the palette is exact. Otherwise the configured seed colours are
+ * kept exact and the remaining entries are chosen by a weighted median cut, or, if the seed colours
+ * fill the whole palette, every colour is mapped to its nearest seed colour. The pixels are then
+ * written with the smallest bit depth able to index the palette, filtered with the configured {@link PngFilter} and compressed with a per-thread {@link Deflater}.
+ * <p>
+ * Pixels are read straight from the backing array of packed integer images. The alpha channel is
+ * ignored, as captcha images are opaque once their background has been added.
+ */
+public class IndexedPngEncoder extends AbstractImageEncoder {
+
+    private static final byte[] SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n'};
+
+    private static final int CHUNK_IHDR = 0x49484452;
+    private static final int CHUNK_PLTE = 0x504c5445;
+    private static final int CHUNK_IDAT = 0x49444154;
+    private static final int CHUNK_IEND = 0x49454e44;
+
+    private static final int COLOUR_TYPE_INDEXED = 3;
+
+    /**
+     * The filters tried on each scanline by {@link PngFilter#ADAPTIVE}.
+     */
+    private static final PngFilter[] CANDIDATES = {
+            PngFilter.NONE, PngFilter.SUB, PngFilter.UP, PngFilter.AVERAGE, PngFilter.PAETH
+    };
+
+    private final int maxColours;
+    private final PngFilter filter;
+    private final int[] seedColours;
+
+    private final ThreadLocal<Scratch> scratches;
+
+    /**
+     * Creates a new {@link IndexedPngEncoder}.
+     *
+     * @param maxColours       the maximum number of palette entries
+     * @param compressionLevel the deflate compression level
+     * @param filter           the scanline filter strategy
+     * @param seedColours      the RGB values always present in the palette
+     */
+    private IndexedPngEncoder(int maxColours, int compressionLevel, PngFilter filter, int[] seedColours) {
+        this.maxColours = maxColours;
+        this.filter = filter;
+        this.seedColours = seedColours;
+        this.scratches = ThreadLocal.withInitial(() -> new Scratch(compressionLevel));
+    }
+
+    /**
+     * Returns {@code "png"}.
+     *
+     * @return the format name
+     */
+    @Override
+    public String getFormatName() {
+        return "png";
+    }
+
+    /**
+     * Encodes an image as an indexed-colour PNG image.
+     *
+     * @param image  the image to encode
+     * @param buffer the buffer to write the encoded image to
+     * @throws IOException if writing to the buffer fails
+     */
+    @Override
+    protected void write(BufferedImage image, ReusableImageOutputStream buffer) throws IOException {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int size = width * height;
+        Scratch scratch = scratches.get();
+
+        int[] pixels = RasterUtils.pixels(image);
+        if (Objects.isNull(pixels)) {
+            pixels = scratch.pixels(size);
+            image.getRGB(0, 0, width, height, pixels, 0, width);
+        }
+
+        buildPalette(pixels, size, scratch);
+
+        int colours = scratch.paletteSize;
+        int bitDepth = colours <= 2 ? 1 : colours <= 4 ? 2 : colours <= 16 ? 4 : 8;
+        int rowBytes = (width * bitDepth + 7) / 8;
+
+        byte[] raw = scratch.raw((rowBytes + 1) * height);
+        scratch.ensureRowCapacity(rowBytes);
+        byte[] previous = scratch.previous;
+        byte[] current = scratch.current;
+        Arrays.fill(previous, 0, rowBytes, (byte) 0);
+
+        int offset = 0;
+        for (int y = 0; y < height; y++) {
+            packRow(pixels, y * width, width, bitDepth, scratch, current);
+            offset = filterRow(current, previous, rowBytes, raw, offset, scratch);
+
+            byte[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+
+        int compressedLength = deflate(raw, offset, scratch);
+
+        buffer.write(SIGNATURE);
+
+        byte[] header = scratch.header;
+        writeInt(header, 0, width);
+        writeInt(header, 4, height);
+        header[8] = (byte) bitDepth;
+        header[9] = COLOUR_TYPE_INDEXED;
+        header[10] = 0;
+        header[11] = 0;
+        header[12] = 0;
+        writeChunk(buffer, scratch.crc, CHUNK_IHDR, header, 13);
+
+        byte[] palette = scratch.paletteBytes;
+        for (int i = 0; i < colours; i++) {
+            int rgb = scratch.palette[i];
+            palette[i * 3] = (byte) (rgb >>> 16);
+            palette[i * 3 + 1] = (byte) (rgb >>> 8);
+            palette[i * 3 + 2] = (byte) rgb;
+        }
+        writeChunk(buffer, scratch.crc, CHUNK_PLTE, palette, colours * 3);
+        writeChunk(buffer, scratch.crc, CHUNK_IDAT, scratch.compressed, compressedLength);
+        writeChunk(buffer, scratch.crc, CHUNK_IEND, palette, 0);
+    }
+
+    /**
+     * Builds the palette of an image and records the palette index of each of its distinct colours.
+     * <p>
+     * If the image has few enough distinct colours, each of them gets its own palette entry.
+     * Otherwise the distinct colours are split by median cut, weighted by pixel count, into as many
+     * boxes as there are palette entries left after the seed colours. Each box contributes its
+     * weighted average, and each colour is then mapped to its box average, or to a seed colour if
+     * that is closer. If the seed colours leave no entry for the median cut, each colour is mapped
+     * to its nearest seed colour.
+     */
+    private void buildPalette(int[] pixels, int size, Scratch scratch) {
+        int distinct = collectColours(pixels, size, scratch);
+        int[] colours = scratch.colours;
+        int[] counts = scratch.counts;
+
+        int paletteSize = 0;
+        for (int seed : seedColours) {
+            scratch.palette[paletteSize++] = seed;
+        }
+
+        int missing = 0;
+        for (int i = 0; i < distinct; i++) {
+            if (indexOfSeed(colours[i]) < 0) {
+                missing++;
+            }
+        }
+
+        if (paletteSize + missing <= maxColours) {
+            for (int i = 0; i < distinct; i++) {
+                int seed = indexOfSeed(colours[i]);
+                if (seed < 0) {
+                    scratch.palette[paletteSize] = colours[i];
+                    scratch.indices[i] = paletteSize++;
+                } else {
+                    scratch.indices[i] = seed;
+                }
+            }
+            scratch.paletteSize = paletteSize;
+            return;
+        }
+
+        if (paletteSize == maxColours) {
+            for (int i = 0; i < distinct; i++) {
+                scratch.indices[i] = nearestSeed(colours[i]);
+            }
+            scratch.paletteSize = paletteSize;
+            return;
+        }
+
+        int boxCount = medianCut(distinct, maxColours - paletteSize, scratch);
+        int[] order = scratch.order;
+        for (int box = 0; box < boxCount; box++) {
+            int start = scratch.boxStarts[box];
+            int end = scratch.boxEnds[box];
+
+            long r = 0;
+            long g = 0;
+            long b = 0;
+            long weight = 0;
+            for (int i = start; i < end; i++) {
+                int colour = colours[order[i]];
+                int count = counts[order[i]];
+                r += (long) (colour >>> 16 & 0xff) * count;
+                g += (long) (colour >>> 8 & 0xff) * count;
+                b += (long) (colour & 0xff) * count;
+                weight += count;
+            }
+            int average = 0xff000000
+                    | (int) ((r + weight / 2) / weight) << 16
+                    | (int) ((g + weight / 2) / weight) << 8
+                    | (int) ((b + weight / 2) / weight);
+
+            int index = paletteSize++;
+            scratch.palette[index] = average;
+            for (int i = start; i < end; i++) {
+                int colour = colours[order[i]];
+                int nearest = index;
+                int nearestDistance = distance(colour, average);
+                for (int seed = 0; seed < seedColours.length; seed++) {
+                    int seedDistance = distance(colour, seedColours[seed]);
+                    if (seedDistance < nearestDistance) {
+                        nearestDistance = seedDistance;
+                        nearest = seed;
+                    }
+                }
+                scratch.indices[order[i]] = nearest;
+            }
+        }
+        scratch.paletteSize = paletteSize;
+    }
+
+    /**
+     * Collects the distinct colours of an image and their pixel counts into the colour table of the
+     * scratch storage.
+     *
+     * @return the number of distinct colours
+     */
+    private static int collectColours(int[] pixels, int size, Scratch scratch) {
+        scratch.prepareTable(size);
+        int[] keys = scratch.tableKeys;
+        int[] slots = scratch.tableSlots;
+        int mask = keys.length - 1;
+        int distinct = 0;
+
+        int last = 0;
+        int lastSlot = 0;
+        for (int i = 0; i < size; i++) {
+            int rgb = pixels[i] | 0xff000000;
+            if (rgb != last) {
+                last = rgb;
+                int slot = mix(rgb) & mask;
+                while (keys[slot] != 0 && keys[slot] != rgb) {
+                    slot = (slot + 1) & mask;
+                }
+                if (keys[slot] == 0) {
+                    keys[slot] = rgb;
+                    slots[slot] = distinct;
+                    scratch.colours[distinct] = rgb;
+                    scratch.counts[distinct] = 0;
+                    distinct++;
+                }
+                lastSlot = slots[slot];
+            }
+            scratch.counts[lastSlot]++;
+        }
+        return distinct;
+    }
+
+    /**
+     * Splits the distinct colours into at most {@code target} boxes, each time halving the box with
+     * the widest channel range at the weighted median of that channel.
+     *
+     * @return the number of boxes
+     */
+    private static int medianCut(int distinct, int target, Scratch scratch) {
+        int[] order = scratch.order;
+        for (int i = 0; i < distinct; i++) {
+            order[i] = i;
+        }
+        scratch.boxStarts[0] = 0;
+        scratch.boxEnds[0] = distinct;
+        int boxCount = 1;
+
+        while (boxCount < target) {
+            int widestBox = -1;
+            int widestShift = 0;
+            int widestRange = 0;
+            for (int box = 0; box < boxCount; box++) {
+                int start = scratch.boxStarts[box];
+                int end = scratch.boxEnds[box];
+                if (end - start < 2) {
+                    continue;
+                }
+                for (int shift = 0; shift <= 16; shift += 8) {
+                    int min = 0xff;
+                    int max = 0;
+                    for (int i = start; i < end; i++) {
+                        int value = scratch.colours[order[i]] >>> shift & 0xff;
+                        min = Math.min(min, value);
+                        max = Math.max(max, value);
+                    }
+                    if (max - min > widestRange) {
+                        widestRange = max - min;
+                        widestShift = shift;
+                        widestBox = box;
+                    }
+                }
+            }
+            if (widestBox < 0) {
+                break;
+            }
+
+            int start = scratch.boxStarts[widestBox];
+            int end = scratch.boxEnds[widestBox];
+            long[] keys = scratch.sortKeys;
+            long total = 0;
+            for (int i = start; i < end; i++) {
+                keys[i] = (long) (scratch.colours[order[i]] >>> widestShift & 0xff) << 32 | order[i];
+                total += scratch.counts[order[i]];
+            }
+            Arrays.sort(keys, start, end);
+
+            long accumulated = 0;
+            int split = start + 1;
+            for (int i = start; i < end; i++) {
+                order[i] = (int) keys[i];
+                accumulated += scratch.counts[order[i]];
+                if (accumulated * 2 < total) {
+                    split = i + 2;
+                }
+            }
+            split = Math.min(split, end - 1);
+
+            scratch.boxEnds[widestBox] = split;
+            scratch.boxStarts[boxCount] = split;
+            scratch.boxEnds[boxCount] = end;
+            boxCount++;
+        }
+        return boxCount;
+    }
+
+    private int indexOfSeed(int rgb) {
+        for (int i = 0; i < seedColours.length; i++) {
+            if (seedColours[i] == rgb) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private int nearestSeed(int rgb) {
+        int nearest = 0;
+        int nearestDistance = Integer.MAX_VALUE;
+        for (int i = 0; i < seedColours.length; i++) {
+            int seedDistance = distance(rgb, seedColours[i]);
+            if (seedDistance < nearestDistance) {
+                nearestDistance = seedDistance;
+                nearest = i;
+            }
+        }
+        return nearest;
+    }
+
+    private static int distance(int first, int second) {
+        int dr = (first >>> 16 & 0xff) - (second >>> 16 & 0xff);
+        int dg = (first >>> 8 & 0xff) - (second >>> 8 & 0xff);
+        int db = (first & 0xff) - (second & 0xff);
+        // weight green highest and blue lowest, roughly following perceived luminance
+        return 3 * dr * dr + 4 * dg * dg + 2 * db * db;
+    }
+
+    private static void packRow(int[] pixels, int start, int width, int bitDepth, Scratch scratch, byte[] row) {
+        int[] keys = scratch.tableKeys;
+        int mask = keys.length - 1;
+        int pixelsPerByte = 8 / bitDepth;
+        int packed = 0;
+        int filled = 0;
+        int position = 0;
+        int lastRgb = 0;
+        int lastIndex = 0;
+        for (int x = 0; x < width; x++) {
+            int rgb = pixels[start + x] | 0xff000000;
+            if (rgb != lastRgb) {
+                lastRgb = rgb;
+                int slot = mix(rgb) & mask;
+                while (keys[slot] != rgb) {
+                    slot = (slot + 1) & mask;
+                }
+                lastIndex = scratch.indices[scratch.tableSlots[slot]];
+            }
+
+            packed = packed << bitDepth | lastIndex;
+            if (++filled == pixelsPerByte) {
+                row[position++] = (byte) packed;
+                packed = 0;
+                filled = 0;
+            }
+        }
+        if (filled > 0) {
+            row[position] = (byte) (packed << (8 - filled * bitDepth));
+        }
+    }
+
+    /**
+     * Writes the filter type byte and the filtered scanline into the raw image data.
+     *
+     * @return the offset following the written scanline
+     */
+    private int filterRow(byte[] current, byte[] previous, int rowBytes, byte[] raw, int offset, Scratch scratch) {
+        PngFilter rowFilter = filter;
+        if (rowFilter == PngFilter.ADAPTIVE) {
+            long bestSum = Long.MAX_VALUE;
+            for (PngFilter candidate : CANDIDATES) {
+                applyFilter(candidate, current, previous, rowBytes, scratch.candidate, 0);
+                long sum = 0;
+                for (int i = 0; i < rowBytes; i++) {
+                    sum += Math.abs((int) scratch.candidate[i]);
+                }
+                if (sum < bestSum) {
+                    bestSum = sum;
+                    rowFilter = candidate;
+                }
+            }
+        }
+
+        raw[offset] = (byte) rowFilter.ordinal();
+        applyFilter(rowFilter, current, previous, rowBytes, raw, offset + 1);
+        return offset + 1 + rowBytes;
+    }
+
+    private static void applyFilter(PngFilter filter, byte[] current, byte[] previous, int rowBytes, byte[] out, int offset) {
+        switch (filter) {
+            case SUB:
+                for (int i = 0; i < rowBytes; i++) {
+                    int left = i > 0 ? current[i - 1] & 0xff : 0;
+                    out[offset + i] = (byte) (current[i] - left);
+                }
+                break;
+            case UP:
+                for (int i = 0; i < rowBytes; i++) {
+                    out[offset + i] = (byte) (current[i] - previous[i]);
+                }
+                break;
+            case AVERAGE:
+                for (int i = 0; i < rowBytes; i++) {
+                    int left = i > 0 ? current[i - 1] & 0xff : 0;
+                    out[offset + i] = (byte) (current[i] - ((left + (previous[i] & 0xff)) >>> 1));
+                }
+                break;
+            case PAETH:
+                for (int i = 0; i < rowBytes; i++) {
+                    int left = i > 0 ? current[i - 1] & 0xff : 0;
+                    int upperLeft = i > 0 ? previous[i - 1] & 0xff : 0;
+                    out[offset + i] = (byte) (current[i] - paeth(left, previous[i] & 0xff, upperLeft));
+                }
+                break;
+            default:
+                System.arraycopy(current, 0, out, offset, rowBytes);
+        }
+    }
+
+    private static int paeth(int left, int up, int upperLeft) {
+        int estimate = left + up - upperLeft;
+        int distanceLeft = Math.abs(estimate - left);
+        int distanceUp = Math.abs(estimate - up);
+        int distanceUpperLeft = Math.abs(estimate - upperLeft);
+        if (distanceLeft <= distanceUp && distanceLeft <= distanceUpperLeft) {
+            return left;
+        }
+        return distanceUp <= distanceUpperLeft ? up : upperLeft;
+    }
+
+    private static int deflate(byte[] raw, int length, Scratch scratch) {
+        Deflater deflater = scratch.deflater;
+        deflater.reset();
+        deflater.setInput(raw, 0, length);
+        deflater.finish();
+
+        int compressedLength = 0;
+        while (!deflater.finished()) {
+            if (compressedLength == scratch.compressed.length) {
+                scratch.compressed = Arrays.copyOf(scratch.compressed, scratch.compressed.length * 2);
+            }
+            compressedLength += deflater.deflate(scratch.compressed, compressedLength,
+                    scratch.compressed.length - compressedLength);
+        }
+        return compressedLength;
+    }
+
+    private static void writeChunk(ReusableImageOutputStream buffer, CRC32 crc, int type, byte[] data, int length) throws IOException {
+        buffer.writeInt(length);
+        buffer.writeInt(type);
+        buffer.write(data, 0, length);
+
+        crc.reset();
+        crc.update(type >>> 24);
+        crc.update(type >>> 16);
+        crc.update(type >>> 8);
+        crc.update(type);
+        crc.update(data, 0, length);
+        buffer.writeInt((int) crc.getValue());
+    }
+
+    private static void writeInt(byte[] data, int offset, int value) {
+        data[offset] = (byte) (value >>> 24);
+        data[offset + 1] = (byte) (value >>> 16);
+        data[offset + 2] = (byte) (value >>> 8);
+        data[offset + 3] = (byte) value;
+    }
+
+    private static int mix(int value) {
+        int hash = value * 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * The working storage of one thread, kept across images.
+     */
+    private static class Scratch {
+        private final Deflater deflater;
+        private final CRC32 crc = new CRC32();
+
+        private int[] tableKeys = new int[0];
+        private int[] tableSlots = new int[0];
+
+        private int[] colours = new int[0];
+        private int[] counts = new int[0];
+        private int[] indices = new int[0];
+        private int[] order = new int[0];
+        private long[] sortKeys = new long[0];
+
+        private final int[] boxStarts = new int[256];
+        private final int[] boxEnds = new int[256];
+
+        private final int[] palette = new int[256];
+        private int paletteSize;
+
+        private final byte[] header = new byte[13];
+        private final byte[] paletteBytes = new byte[256 * 3];
+
+        private int[] pixels = new int[0];
+        private byte[] raw = new byte[0];
+        private byte[] previous = new byte[0];
+        private byte[] current = new byte[0];
+        private byte[] candidate = new byte[0];
+        private byte[] compressed = new byte[4096];
+
+        private Scratch(int compressionLevel) {
+            this.deflater = new Deflater(compressionLevel);
+        }
+
+        /**
+         * Clears the colour table, growing it to hold every colour of an image of the given size.
+         */
+        private void prepareTable(int size) {
+            int capacity = Integer.highestOneBit(Math.max(size, 8) * 2 - 1) << 1;
+            if (tableKeys.length < capacity) {
+                tableKeys = new int[capacity];
+                tableSlots = new int[capacity];
+            } else {
+                Arrays.fill(tableKeys, 0);
+            }
+            if (colours.length < size) {
+                colours = new int[size];
+                counts = new int[size];
+                indices = new int[size];
+                order = new int[size];
+                sortKeys = new long[size];
+            }
+        }
+
+        private int[] pixels(int size) {
+            if (pixels.length < size) {
+                pixels = new int[size];
+            }
+            return pixels;
+        }
+
+        private byte[] raw(int size) {
+            if (raw.length < size) {
+                raw = new byte[size];
+            }
+            return raw;
+        }
+
+        private void ensureRowCapacity(int size) {
+            if (previous.length < size) {
+                previous = new byte[size];
+                current = new byte[size];
+                candidate = new byte[size];
+            }
+        }
+    }
+
+    /**
+     * Creates a new {@link IndexedPngEncoderBuilder}.
+     *
+     * @return a new {@link IndexedPngEncoderBuilder}
+     */
+    public static IndexedPngEncoderBuilder builder() {
+        return new IndexedPngEncoderBuilder();
+    }
+
+    /**
+     * A builder for creating {@link IndexedPngEncoder} instances.
+     */
+    public static class IndexedPngEncoderBuilder {
+        private int maxColours;
+        private int compressionLevel;
+        private PngFilter filter;
+        private Color[] seedColours;
+
+        private IndexedPngEncoderBuilder() {
+            this.maxColours = 64;
+            this.compressionLevel = 6;
+            this.filter = PngFilter.NONE;
+            this.seedColours = new Color[0];
+        }
+
+        /**
+         * Sets the maximum number of colours in the palette. Fewer colours give smaller images at the
+         * cost of coarser anti-aliasing and gradients.
+         *
+         * @param maxColours the maximum number of colours, between 2 and 256
+         * @return this builder
+         */
+        public IndexedPngEncoderBuilder maxColours(int maxColours) {
+            if (maxColours < 2 || maxColours > 256) {
+                throw new IllegalArgumentException("Max colours should be in range [2, 256].");
+            }
+
+            this.maxColours = maxColours;
+            return this;
+        }
+
+        /**
+         * Sets the deflate compression level.
+         *
+         * @param compressionLevel the compression level, between 0 (no compression) and 9 (best
+         *                         compression)
+         * @return this builder
+         */
+        public IndexedPngEncoderBuilder compressionLevel(int compressionLevel) {
+            if (compressionLevel < Deflater.NO_COMPRESSION || compressionLevel > Deflater.BEST_COMPRESSION) {
+                throw new IllegalArgumentException("Compression level should be in range [0, 9].");
+            }
+
+            this.compressionLevel = compressionLevel;
+            return this;
+        }
+
+        /**
+         * Sets the scanline filter strategy.
+         *
+         * @param filter the filter strategy
+         * @return this builder
+         */
+        public IndexedPngEncoderBuilder filter(PngFilter filter) {
+            if (Objects.isNull(filter)) {
+                throw new IllegalArgumentException("Filter should not be null.");
+            }
+
+            this.filter = filter;
+            return this;
+        }
+
+        /**
+         * Sets colours which are always part of the palette, such as the font, noise and border
+         * colours and the ends of the background gradient. Seeding them keeps these colours exact
+         * when the image has to be quantised. There may be as many seed colours as the maximum
+         * number of colours, in which case every pixel is written as its nearest seed colour.
+         *
+         * @param seedColours the colours
+         * @return this builder
+         */
+        public IndexedPngEncoderBuilder seedColours(Color... seedColours) {
+            if (Objects.isNull(seedColours)) {
+                throw new IllegalArgumentException("Seed colours should not be null.");
+            }
+
+            for (Color seedColour : seedColours) {
+                if (Objects.isNull(seedColour)) {
+                    throw new IllegalArgumentException("Seed colour should not be null.");
+                }
+            }
+
+            this.seedColours = seedColours.clone();
+            return this;
+        }
+
+        /**
+         * Builds a new {@link IndexedPngEncoder} with the configured properties.
+         *
+         * @return a new {@link IndexedPngEncoder}
+         */
+        public IndexedPngEncoder build() {
+            int[] _seedColours = Arrays.stream(seedColours)
+                    .mapToInt((colour) -> colour.getRGB() | 0xff000000)
+                    .distinct()
+                    .toArray();
+            if (_seedColours.length > maxColours) {
+                throw new IllegalStateException("Seed colours should not exceed max colours.");
+            }
+
+            return new IndexedPngEncoder(maxColours, compressionLevel, filter, _seedColours);
+        }
+    }
+}
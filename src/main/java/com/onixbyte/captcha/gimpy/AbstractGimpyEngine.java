@@ -26,13 +26,32 @@ import com.onixbyte.captcha.noise.NoiseProducer;
 
 import java.awt.*;
 import java.awt.image.BufferedImage;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * An abstract implementation of {@link GimpyEngine}, which provides a base for creating image distortion effects.
+ * <p>
+ * Filters computing every pixel independently of the others can run over
+ * {@link #forEachRowBand(int, int, RowBandAction) row bands}, which are spread over the common
+ * fork-join pool for images of at least the parallel threshold and run on the calling thread
+ * otherwise.
  */
 public abstract class AbstractGimpyEngine implements GimpyEngine {
 
+    /**
+     * The default number of pixels from which an image is distorted in parallel, somewhat more
+     * than a 400 x 150 image.
+     */
+    public static final int DEFAULT_PARALLEL_THRESHOLD = 1 << 16;
+
+    /**
+     * The number of pixels below which a row band is not split any further, so that each task
+     * is worth more than handing it over to another worker.
+     */
+    private static final int MIN_BAND_PIXELS = 1 << 14;
+
     private final NoiseProducer noiseProducer;
+    private final int parallelThreshold;
 
     /**
      * Creates a new {@link AbstractGimpyEngine} with the given noise producer.
@@ -40,7 +59,23 @@ public abstract class AbstractGimpyEngine implements GimpyEngine {
      * @param noiseProducer the noise producer to use
      */
     public AbstractGimpyEngine(NoiseProducer noiseProducer) {
+        this(noiseProducer, DEFAULT_PARALLEL_THRESHOLD);
+    }
+
+    /**
+     * Creates a new {@link AbstractGimpyEngine} with the given noise producer and parallel
+     * threshold.
+     *
+     * @param noiseProducer     the noise producer to use
+     * @param parallelThreshold the number of pixels from which row bands are run in parallel
+     */
+    public AbstractGimpyEngine(NoiseProducer noiseProducer, int parallelThreshold) {
+        if (parallelThreshold <= 0) {
+            throw new IllegalArgumentException("Parallel threshold should be greater than 0.");
+        }
+
         this.noiseProducer = noiseProducer;
+        this.parallelThreshold = parallelThreshold;
     }
 
     /**
@@ -65,13 +100,54 @@ public abstract class AbstractGimpyEngine implements GimpyEngine {
 
         graphics.dispose();
 
-        // draw lines over the image and/or text
-        noiseProducer.makeNoise(distortedImage, .1f, .1f, .25f, .25f);
-        noiseProducer.makeNoise(distortedImage, .1f, .25f, .5f, .9f);
+        addNoise(distortedImage);
 
         return distortedImage;
     }
 
+    /**
+     * Applies a distortion effect to the given image in place, using the scratch image as working
+     * storage, and then adds noise. No intermediate image is allocated unless the filter itself
+     * needs one.
+     *
+     * @param baseImage the image to distort
+     * @param scratch   an image of the same size and type the engine may overwrite
+     * @return the distorted image with noise, either the base image or the scratch image
+     */
+    @Override
+    public BufferedImage getDistortedImage(BufferedImage baseImage, BufferedImage scratch) {
+        BufferedImage distortedImage = applyFilter(baseImage, scratch);
+
+        addNoise(distortedImage);
+
+        return distortedImage;
+    }
+
+    /**
+     * Applies the distortion effect to the given image in place, using the scratch image as working
+     * storage, without adding noise.
+     *
+     * @param baseImage the image to distort
+     * @param scratch   an image of the same size and type the engine may overwrite
+     * @return the distorted image, either the base image or the scratch image
+     */
+    @Override
+    public BufferedImage applyDistortion(BufferedImage baseImage, BufferedImage scratch) {
+        return applyFilter(baseImage, scratch);
+    }
+
+    /**
+     * Draws the noise curves over the given image.
+     *
+     * @param image the distorted image to add the noise to
+     */
+    @Override
+    public void addNoise(BufferedImage image) {
+        // draw lines over the image and/or text
+        noiseProducer.makeNoise(image, .1f, .1f, .25f, .25f);
+        noiseProducer.makeNoise(image, .1f, .25f, .5f, .9f);
+    }
+
     /**
      * Applies a filter to the given image.
      *
@@ -79,4 +155,58 @@ public abstract class AbstractGimpyEngine implements GimpyEngine {
      * @return the filtered image
      */
     protected abstract BufferedImage applyFilter(BufferedImage baseImage);
+
+    /**
+     * Applies a filter to the given image, writing the result into either the base image or the
+     * scratch image. Subclasses should override this to ping-pong between the two images instead of
+     * allocating their outputs.
+     * <p>
+     * The default implementation delegates to {@link #applyFilter(BufferedImage)}.
+     *
+     * @param baseImage the image to apply the filter to
+     * @param scratch   an image of the same size and type which may be overwritten
+     * @return the filtered image, which may be the base image, the scratch image or a new
+     * {@link BufferedImage#TYPE_INT_ARGB} image
+     */
+    protected BufferedImage applyFilter(BufferedImage baseImage, BufferedImage scratch) {
+        return applyFilter(baseImage);
+    }
+
+    /**
+     * Runs the given action over every row of an image of the given size, split into bands. For
+     * images of at least the parallel threshold, the bands are run on the common fork-join pool
+     * and this method returns once all of them are done; smaller images are run as a single band
+     * on the calling thread.
+     * <p>
+     * The bands may run concurrently, so the action must only write to the rows of its band, and
+     * anything random should be drawn beforehand on the calling thread, where the
+     * {@link com.onixbyte.captcha.random.RandomSource random sources} and seeds apply.
+     *
+     * @param width  the width of the image
+     * @param height the height of the image
+     * @param action the action to run over every band
+     */
+    protected void forEachRowBand(int width, int height, RowBandAction action) {
+        if ((long) width * height < parallelThreshold || ForkJoinPool.getCommonPoolParallelism() < 2) {
+            action.apply(0, height);
+            return;
+        }
+
+        ForkJoinPool.commonPool().invoke(new RowBandTask(action, width, MIN_BAND_PIXELS, 0, height));
+    }
+
+    /**
+     * An action run over a band of rows of an image.
+     */
+    @FunctionalInterface
+    protected interface RowBandAction {
+
+        /**
+         * Runs the action over the given rows.
+         *
+         * @param fromRow the first row, inclusive
+         * @param toRow   the last row, exclusive
+         */
+        void apply(int fromRow, int toRow);
+    }
 }
\ No newline at end of file
@@ -26,6 +26,11 @@ import java.awt.image.BufferedImage;
 
 /**
  * {@link GimpyEngine} is responsible for applying image distortion.
+ * <p>
+ * A single engine is shared by every thread using the producer it belongs to, so implementations
+ * should be safe for concurrent use. The engines of this library are, without locking: their
+ * configuration is immutable, and the state of the image being distorted is kept in local
+ * variables or per thread.
  */
 public interface GimpyEngine {
     /**
@@ -35,4 +40,51 @@ public interface GimpyEngine {
      * @return the image with distortion applied to the base image
      */
     BufferedImage getDistortedImage(BufferedImage baseImage);
+
+    /**
+     * Get distorted image, allowing the engine to work in place. The engine may overwrite both the
+     * base image and the scratch image, which must have the same size and type as the base image,
+     * and returns whichever image holds the result.
+     * <p>
+     * The default implementation ignores the scratch image and delegates to
+     * {@link #getDistortedImage(BufferedImage)}.
+     *
+     * @param baseImage the base image
+     * @param scratch   an image the engine may use as working storage
+     * @return the image with distortion applied to the base image, which may be the base image, the
+     * scratch image or a new image
+     */
+    default BufferedImage getDistortedImage(BufferedImage baseImage, BufferedImage scratch) {
+        return getDistortedImage(baseImage);
+    }
+
+    /**
+     * Applies only the distortion of {@link #getDistortedImage(BufferedImage, BufferedImage)},
+     * without the noise. Calling this method and then {@link #addNoise(BufferedImage)} on its result
+     * is equivalent to calling {@link #getDistortedImage(BufferedImage, BufferedImage)}, which lets
+     * callers observe both steps separately.
+     * <p>
+     * The default implementation delegates to {@link #getDistortedImage(BufferedImage, BufferedImage)}
+     * for engines which do not tell their distortion and noise apart.
+     *
+     * @param baseImage the base image
+     * @param scratch   an image the engine may use as working storage
+     * @return the image with distortion applied to the base image, which may be the base image, the
+     * scratch image or a new image
+     */
+    default BufferedImage applyDistortion(BufferedImage baseImage, BufferedImage scratch) {
+        return getDistortedImage(baseImage, scratch);
+    }
+
+    /**
+     * Adds the noise of {@link #getDistortedImage(BufferedImage, BufferedImage)} to an image
+     * returned by {@link #applyDistortion(BufferedImage, BufferedImage)}.
+     * <p>
+     * The default implementation does nothing, as the default
+     * {@link #applyDistortion(BufferedImage, BufferedImage)} already adds the noise.
+     *
+     * @param image the distorted image to add the noise to
+     */
+    default void addNoise(BufferedImage image) {
+    }
 }
@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2024-2025 OnixByte
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.onixbyte.captcha.gimpy;
+
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * A fork-join task running an action over a range of rows by recursively splitting it into bands,
+ * so that idle workers can steal halves of the remaining rows.
+ */
+class RowBandTask extends RecursiveAction {
+
+    private static final long serialVersionUID = 1L;
+
+    private final AbstractGimpyEngine.RowBandAction action;
+    private final int width;
+    private final int minBandPixels;
+    private final int fromRow;
+    private final int toRow;
+
+    /**
+     * Creates a new {@link RowBandTask}.
+     *
+     * @param action        the action to run over every band
+     * @param width         the width of the rows
+     * @param minBandPixels the number of pixels below which a band is not split any further
+     * @param fromRow       the first row, inclusive
+     * @param toRow         the last row, exclusive
+     */
+    RowBandTask(AbstractGimpyEngine.RowBandAction action, int width, int minBandPixels, int fromRow, int toRow) {
+        this.action = action;
+        this.width = width;
+        this.minBandPixels = minBandPixels;
+        this.fromRow = fromRow;
+        this.toRow = toRow;
+    }
+
+    @Override
+    protected void compute() {
+        int rows = toRow - fromRow;
+        if (rows < 2 || (long) rows * width < 2L * minBandPixels) {
+            action.apply(fromRow, toRow);
+            return;
+        }
+
+        int middle = (fromRow + toRow) >>> 1;
+        invokeAll(
+                new RowBandTask(action, width, minBandPixels, fromRow, middle),
+                new RowBandTask(action, width, minBandPixels, middle, toRow)
+        );
+    }
+}
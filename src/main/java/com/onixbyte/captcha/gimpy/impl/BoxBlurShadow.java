@@ -0,0 +1,282 @@
+/*
+ * Copyright (c) 2024-2025 OnixByte
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.onixbyte.captcha.gimpy.impl;
+
+import com.onixbyte.captcha.util.RasterUtils;
+
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * A drop shadow drawn from the alpha channel of an image alone.
+ * <p>
+ * The alpha channel is blurred by a few passes of a box blur, which approximate a Gaussian blur
+ * and cost the same for every pixel whatever the radius. The blurred alpha is then offset, tinted
+ * and composited under the image in a single pass over its pixels.
+ */
+final class BoxBlurShadow {
+
+    /**
+     * The number of box blurs approximating the Gaussian blur.
+     */
+    private static final int PASSES = 3;
+
+    /**
+     * The alpha planes of each thread, the shadow and the one it is blurred through, followed by
+     * the running sums of the columns.
+     */
+    private static final ThreadLocal<int[][]> PLANES = ThreadLocal.withInitial(() -> new int[3][0]);
+
+    /**
+     * The pixels of each thread, when they cannot be read from or written to the images directly.
+     */
+    private static final ThreadLocal<int[][]> PIXELS = ThreadLocal.withInitial(() -> new int[2][0]);
+
+    private final int[] boxRadii;
+    private final int offsetX;
+    private final int offsetY;
+    private final int opacity;
+    private final int colour;
+    private final int red;
+    private final int green;
+    private final int blue;
+
+    /**
+     * Creates a new {@link BoxBlurShadow}.
+     *
+     * @param radius   the radius of the Gaussian blur the shadow is blurred with, three times its
+     *                 standard deviation
+     * @param angle    the angle the shadow is cast at, in radians, counterclockwise from the x axis
+     * @param distance the distance the shadow is cast at, in pixels
+     * @param opacity  the opacity of the shadow, between 0 and 1
+     * @param colour   the colour of the shadow, as packed RGB
+     */
+    BoxBlurShadow(float radius, float angle, float distance, float opacity, int colour) {
+        this.boxRadii = boxRadii(radius / 3);
+        this.offsetX = Math.round(distance * (float) Math.cos(angle));
+        this.offsetY = Math.round(-distance * (float) Math.sin(angle));
+        this.opacity = Math.round(Math.max(0, Math.min(1, opacity)) * 255);
+        this.colour = colour & 0xffffff;
+        this.red = colour >> 16 & 0xff;
+        this.green = colour >> 8 & 0xff;
+        this.blue = colour & 0xff;
+    }
+
+    /**
+     * Returns the radii of the box blurs which together come closest to a Gaussian blur of the
+     * given standard deviation.
+     */
+    private static int[] boxRadii(float sigma) {
+        double idealWidth = Math.sqrt(12 * sigma * sigma / PASSES + 1);
+        int lowerWidth = (int) Math.floor(idealWidth);
+        if (lowerWidth % 2 == 0) {
+            lowerWidth--;
+        }
+        int upperWidth = lowerWidth + 2;
+        long lowerPasses = Math.round((12 * sigma * sigma - PASSES * lowerWidth * lowerWidth
+                - 4 * PASSES * lowerWidth - 3 * PASSES) / (-4.0 * lowerWidth - 4));
+
+        int[] radii = new int[PASSES];
+        for (int i = 0; i < PASSES; i++) {
+            radii[i] = ((i < lowerPasses ? lowerWidth : upperWidth) - 1) / 2;
+        }
+        return radii;
+    }
+
+    /**
+     * Composites the source image over its shadow into the target image of the same size, which
+     * may be the source image itself. Every pixel of the target image is overwritten.
+     *
+     * @param source the image casting the shadow
+     * @param target the image to write the result into
+     */
+    void apply(BufferedImage source, BufferedImage target) {
+        int width = source.getWidth();
+        int height = source.getHeight();
+        int size = width * height;
+        int[][] buffers = PIXELS.get();
+
+        // packed RGB images have no alpha in their arrays, so they are read through getRGB
+        int[] sourcePixels = source.getType() == BufferedImage.TYPE_INT_ARGB ? RasterUtils.pixels(source) : null;
+        if (Objects.isNull(sourcePixels)) {
+            sourcePixels = buffer(buffers, 0, size);
+            source.getRGB(0, 0, width, height, sourcePixels, 0, width);
+        }
+
+        int[] targetPixels = RasterUtils.pixels(target);
+        boolean direct = Objects.nonNull(targetPixels);
+        if (!direct) {
+            targetPixels = buffer(buffers, 1, size);
+        }
+
+        apply(sourcePixels, targetPixels, width, height);
+
+        if (!direct) {
+            target.setRGB(0, 0, width, height, targetPixels, 0, width);
+        }
+    }
+
+    /**
+     * Composites the source pixels over their shadow into the target pixels, both laid out row by
+     * row. The arrays may be the same.
+     */
+    private void apply(int[] source, int[] target, int width, int height) {
+        int size = width * height;
+        int[][] planes = PLANES.get();
+        int[] shadow = buffer(planes, 0, size);
+        int[] blurred = buffer(planes, 1, size);
+        int[] sums = buffer(planes, 2, width);
+
+        for (int i = 0; i < size; i++) {
+            shadow[i] = source[i] >>> 24;
+        }
+        for (int radius : boxRadii) {
+            blurRows(shadow, blurred, width, height, radius);
+            shadow = swap(planes, shadow);
+            blurred = swap(planes, blurred);
+        }
+        for (int radius : boxRadii) {
+            blurColumns(shadow, blurred, sums, width, height, radius);
+            shadow = swap(planes, shadow);
+            blurred = swap(planes, blurred);
+        }
+
+        for (int y = 0, i = 0; y < height; y++) {
+            int shadowY = y - offsetY;
+            boolean rowInside = shadowY >= 0 && shadowY < height;
+            for (int x = 0; x < width; x++, i++) {
+                int pixel = source[i];
+                int alpha = pixel >>> 24;
+                int shadowX = x - offsetX;
+                if (alpha == 0xff || !rowInside || shadowX < 0 || shadowX >= width) {
+                    target[i] = pixel;
+                    continue;
+                }
+
+                // the part of the shadow showing through the pixel, premultiplied
+                int cover = divide255(divide255(shadow[shadowY * width + shadowX] * opacity) * (0xff - alpha));
+                if (cover == 0) {
+                    target[i] = pixel;
+                    continue;
+                }
+                if (alpha == 0) {
+                    target[i] = cover << 24 | colour;
+                    continue;
+                }
+
+                int outAlpha = alpha + cover;
+                int half = outAlpha >> 1;
+                int outRed = ((pixel >> 16 & 0xff) * alpha + red * cover + half) / outAlpha;
+                int outGreen = ((pixel >> 8 & 0xff) * alpha + green * cover + half) / outAlpha;
+                int outBlue = ((pixel & 0xff) * alpha + blue * cover + half) / outAlpha;
+                target[i] = outAlpha << 24 | outRed << 16 | outGreen << 8 | outBlue;
+            }
+        }
+    }
+
+    /**
+     * Blurs every row of a plane with a box of the given radius, clamping at the edges.
+     */
+    private static void blurRows(int[] source, int[] target, int width, int height, int radius) {
+        int scale = box(radius);
+        int last = width - 1;
+        for (int row = 0; row < width * height; row += width) {
+            int sum = 0;
+            for (int k = -radius; k <= radius; k++) {
+                sum += source[row + clamp(k, last)];
+            }
+            int first = source[row];
+            int end = source[row + last];
+            for (int x = 0; x < width; x++) {
+                target[row + x] = (sum * scale + 0x8000) >>> 16;
+                int entering = x + radius + 1;
+                int leaving = x - radius;
+                sum += (entering <= last ? source[row + entering] : end) - (leaving >= 0 ? source[row + leaving] : first);
+            }
+        }
+    }
+
+    /**
+     * Blurs every column of a plane with a box of the given radius, clamping at the edges. The
+     * plane is walked row by row, keeping the running sum of every column.
+     */
+    private static void blurColumns(int[] source, int[] target, int[] sums, int width, int height, int radius) {
+        int scale = box(radius);
+        int last = height - 1;
+        Arrays.fill(sums, 0, width, 0);
+        for (int k = -radius; k <= radius; k++) {
+            int row = clamp(k, last) * width;
+            for (int x = 0; x < width; x++) {
+                sums[x] += source[row + x];
+            }
+        }
+        for (int y = 0; y < height; y++) {
+            int row = y * width;
+            int entering = Math.min(y + radius + 1, last) * width;
+            int leaving = Math.max(y - radius, 0) * width;
+            for (int x = 0; x < width; x++) {
+                int sum = sums[x];
+                target[row + x] = (sum * scale + 0x8000) >>> 16;
+                sums[x] = sum + source[entering + x] - source[leaving + x];
+            }
+        }
+    }
+
+    /**
+     * Returns the reciprocal of the width of a box of the given radius, in 16-bit fixed point.
+     */
+    private static int box(int radius) {
+        int width = radius * 2 + 1;
+        return ((1 << 16) + width / 2) / width;
+    }
+
+    /**
+     * Divides a product of two bytes by 255, rounding to the nearest integer.
+     */
+    private static int divide255(int value) {
+        value += 0x80;
+        return (value + (value >> 8)) >> 8;
+    }
+
+    private static int clamp(int index, int last) {
+        return Math.max(0, Math.min(last, index));
+    }
+
+    /**
+     * Returns the other plane of the two held in the given array.
+     */
+    private static int[] swap(int[][] planes, int[] plane) {
+        return planes[0] == plane ? planes[1] : planes[0];
+    }
+
+    /**
+     * Returns the array at the given index of the given buffers, grown to at least the given size.
+     */
+    private static int[] buffer(int[][] buffers, int index, int size) {
+        if (buffers[index].length < size) {
+            buffers[index] = new int[size];
+        }
+        return buffers[index];
+    }
+}
@@ -22,98 +22,191 @@
 
 package com.onixbyte.captcha.gimpy.impl;
 
-import com.onixbyte.captcha.gimpy.GimpyEngine;
+import com.onixbyte.captcha.gimpy.AbstractGimpyEngine;
+import com.onixbyte.captcha.noise.NoiseProducer;
+import com.onixbyte.captcha.noise.impl.NoNoiseProducer;
+import com.onixbyte.captcha.random.RandomSource;
+import com.onixbyte.captcha.random.impl.FastRandomSource;
+import com.onixbyte.captcha.util.RasterUtils;
 
 import java.awt.*;
 import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * {@link FishEyeGimpy} adds a fish-eye distortion effect to an image, with vertical and horizontal lines.
+ * <p>
+ * The image is distorted directly in its pixel array, row by row. The lens radius is one of a few
+ * evenly spaced buckets between a quarter and a third of the image width. Where each pixel of the
+ * lens is taken from only depends on that radius, so it is computed once into a lens table and
+ * reused for every image drawing the same radius, whatever its size and wherever the lens is
+ * centred. As the lens is symmetric about both axes, a table only holds the quarter of the disc
+ * right of and below its centre, and a bounded number of tables is kept.
+ * <p>
+ * The lens size and position are drawn on the calling thread, after which images of at least the
+ * {@link FishEyeGimpyBuilder#parallelThreshold(int) parallel threshold} are distorted in row bands
+ * on the common fork-join pool.
+ * <p>
+ * Instances are safe for concurrent use without locking. The lens tables are never modified once
+ * built, and the snapshot of the image is held per thread.
  */
-public class FishEyeGimpy implements GimpyEngine {
+public class FishEyeGimpy extends AbstractGimpyEngine {
 
-    private FishEyeGimpy() {
+    private static final int HORIZONTAL_LINE_COLOUR = Color.blue.getRGB();
+    private static final int VERTICAL_LINE_COLOUR = Color.red.getRGB();
+
+    /**
+     * The copy of the pixels of the image being distorted on each thread, which the lens reads
+     * from while the image is overwritten.
+     */
+    private static final ThreadLocal<int[]> SNAPSHOT = ThreadLocal.withInitial(() -> new int[0]);
+
+    /**
+     * The number of radii a lens is drawn with, from a quarter to a third of the image width.
+     */
+    private static final int RADIUS_BUCKETS = 4;
+
+    /**
+     * The greatest number of lens tables kept, enough for every bucket of four image widths.
+     */
+    private static final int MAX_LENS_TABLES = RADIUS_BUCKETS * 4;
+
+    private final RandomSource randomSource;
+
+    /**
+     * The lens tables, keyed by lens radius. The map is cleared when it is full, so that images of
+     * many different widths cannot grow it without bound.
+     */
+    private final ConcurrentMap<Integer, LensTable> lensTables = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a new {@link FishEyeGimpy}.
+     *
+     * @param noiseProducer     the noise producer to use
+     * @param randomSource      the source of the random lens size and position
+     * @param parallelThreshold the number of pixels from which images are distorted in parallel
+     */
+    private FishEyeGimpy(NoiseProducer noiseProducer, RandomSource randomSource, int parallelThreshold) {
+        super(noiseProducer, parallelThreshold);
+        this.randomSource = randomSource;
     }
 
     /**
-     * Applies a fish-eye distortion to the given image, drawing horizontal and vertical lines over it.
+     * Applies a fish-eye distortion to the given image in place and then adds noise. Unlike the
+     * other engines, no new image is allocated, as the lens reads from a snapshot of the image.
      *
      * @param baseImage the image to distort
-     * @return the distorted image
+     * @return the base image holding the distorted result
      */
+    @Override
     public BufferedImage getDistortedImage(BufferedImage baseImage) {
-        Graphics2D graph = (Graphics2D) baseImage.getGraphics();
+        BufferedImage distortedImage = applyFilter(baseImage);
+
+        addNoise(distortedImage);
+
+        return distortedImage;
+    }
+
+    /**
+     * Applies a fish-eye distortion to the given image in place, drawing horizontal and vertical
+     * lines over it.
+     *
+     * @param baseImage the image to distort
+     * @return the base image holding the distorted result
+     */
+    @Override
+    protected BufferedImage applyFilter(BufferedImage baseImage) {
         int imageHeight = baseImage.getHeight();
         int imageWidth = baseImage.getWidth();
 
-        // want lines put them in a variable so we might configure these later
-        int horizontalLines = imageHeight / 7;
-        int verticalLines = imageWidth / 7;
+        int[] pixels = RasterUtils.pixels(baseImage);
+        boolean direct = Objects.nonNull(pixels);
+        if (!direct) {
+            pixels = baseImage.getRGB(0, 0, imageWidth, imageHeight, null, 0, imageWidth);
+        }
 
-        // calculate space between lines
-        int horizontalGaps = imageHeight / (horizontalLines + 1);
-        int verticalGaps = imageWidth / (verticalLines + 1);
+        drawLines(pixels, imageWidth, imageHeight);
 
-        // draw the horizontal stripes
-        for (int i = horizontalGaps; i < imageHeight; i = i + horizontalGaps) {
-            graph.setColor(Color.blue);
-            graph.drawLine(0, i, imageWidth, i);
+        // the lens reads the image as it was before being distorted
+        int[] snapshot = SNAPSHOT.get();
+        if (snapshot.length < pixels.length) {
+            snapshot = new int[pixels.length];
+            SNAPSHOT.set(snapshot);
         }
+        System.arraycopy(pixels, 0, snapshot, 0, pixels.length);
 
-        // draw the vertical stripes
-        for (int i = verticalGaps; i < imageWidth; i = i + verticalGaps) {
-            graph.setColor(Color.red);
-            graph.drawLine(i, 0, i, imageHeight);
-        }
+        // the lens is drawn here, as the bands may run on other threads
+        Random random = randomSource.current();
+        int minRadius = imageWidth / 4;
+        int radius = minRadius + (imageWidth / 3 - minRadius) * random.nextInt(RADIUS_BUCKETS) / (RADIUS_BUCKETS - 1);
+        int centreX = imageWidth / 2 + jitter(random, imageWidth / 8);
+        int centreY = imageHeight / 2 + jitter(random, imageHeight / 8);
 
-        // create a pixel array of the original image.
-        // we need this later to do the operations on..
-        int[] pix = new int[imageHeight * imageWidth];
-        int j = 0;
+        LensTable lens = lensTable(radius);
+        int[] source = snapshot;
+        int[] target = pixels;
+        forEachRowBand(imageWidth, imageHeight, (fromRow, toRow) ->
+                lens.apply(source, target, imageWidth, imageHeight, centreX, centreY, fromRow, toRow));
 
-        for (int j1 = 0; j1 < imageWidth; j1++) {
-            for (int k1 = 0; k1 < imageHeight; k1++) {
-                pix[j] = baseImage.getRGB(j1, k1);
-                j++;
-            }
+        if (!direct) {
+            baseImage.setRGB(0, 0, imageWidth, imageHeight, pixels, 0, imageWidth);
         }
+        return baseImage;
+    }
 
-        double distance = randInt(imageWidth / 4, imageWidth / 3);
-
-        // put the distortion in the (dead) middle
-        int widthMiddle = baseImage.getWidth() / 2;
-        int heightMiddle = baseImage.getHeight() / 2;
+    /**
+     * Returns the lens table of the given radius, building it if it is not cached.
+     */
+    private LensTable lensTable(int radius) {
+        LensTable lens = lensTables.get(radius);
+        if (Objects.isNull(lens)) {
+            if (lensTables.size() >= MAX_LENS_TABLES) {
+                lensTables.clear();
+            }
+            lens = lensTables.computeIfAbsent(radius, LensTable::new);
+        }
+        return lens;
+    }
 
-        // again iterate over all pixels..
-        for (int x = 0; x < baseImage.getWidth(); x++) {
-            for (int y = 0; y < baseImage.getHeight(); y++) {
+    /**
+     * Draws the horizontal and vertical stripes, the vertical ones over the horizontal ones.
+     */
+    private static void drawLines(int[] pixels, int imageWidth, int imageHeight) {
+        // want lines put them in a variable so we might configure these later
+        int horizontalLines = imageHeight / 7;
+        int verticalLines = imageWidth / 7;
 
-                int relX = x - widthMiddle;
-                int relY = y - heightMiddle;
+        // calculate space between lines
+        int horizontalGaps = imageHeight / (horizontalLines + 1);
+        int verticalGaps = imageWidth / (verticalLines + 1);
 
-                double d1 = Math.sqrt(relX * relX + relY * relY);
-                if (d1 < distance) {
+        for (int y = horizontalGaps; y < imageHeight; y = y + horizontalGaps) {
+            Arrays.fill(pixels, y * imageWidth, (y + 1) * imageWidth, HORIZONTAL_LINE_COLOUR);
+        }
 
-                    int j2 = widthMiddle + (int) (((fishEyeFormula(d1 / distance) * distance) / d1) * (double) (x - widthMiddle));
-                    int k2 = heightMiddle + (int) (((fishEyeFormula(d1 / distance) * distance) / d1) * (double) (y - heightMiddle));
-                    baseImage.setRGB(x, y, pix[j2 * imageHeight + k2]);
-                }
+        for (int y = 0; y < imageHeight; y++) {
+            int row = y * imageWidth;
+            for (int x = verticalGaps; x < imageWidth; x = x + verticalGaps) {
+                pixels[row + x] = VERTICAL_LINE_COLOUR;
             }
         }
-
-        return baseImage;
     }
 
-    private int randInt(int i, int j) {
-        double d = Math.random();
-        return (int) ((double) i + (double) ((j - i) + 1) * d);
+    /**
+     * Returns a random offset between {@code -range} and {@code range}, both inclusive.
+     */
+    private static int jitter(Random random, int range) {
+        return range == 0 ? 0 : random.nextInt(range * 2 + 1) - range;
     }
 
     /**
      * A private fish-eye formula implementation.
      */
-    private double fishEyeFormula(double s) {
-// ... existing code ...
+    private static double fishEyeFormula(double s) {
         if (s > 1.0D) {
             return s;
         } else {
@@ -130,11 +223,147 @@ public class FishEyeGimpy implements GimpyEngine {
         return new FishEyeGimpyBuilder();
     }
 
+    /**
+     * Where each pixel of a lens of a given radius is taken from.
+     * <p>
+     * The lens is symmetric about both axes, so only the pixels at offsets {@code (dx, dy)} from
+     * its centre with {@code dx} and {@code dy} not negative are held. Row {@code dy} reaches from
+     * {@code dx = 0} to {@code dx = halfWidths[dy]}, and the source of its pixels is packed into
+     * {@code sources[rowStarts[dy] + dx]} as the source offset {@code sourceY << 16 | sourceX},
+     * the pixels in the other quarters taking their sources from the same entry with the signs of
+     * their offsets. As the lens only pulls pixels towards its centre, the source of a pixel
+     * inside the image is always inside the image as well.
+     */
+    private static final class LensTable {
+        private final int radius;
+        private final int[] halfWidths;
+        private final int[] rowStarts;
+        private final int[] sources;
+
+        private LensTable(int radius) {
+            this.radius = radius;
+            this.halfWidths = new int[radius + 1];
+            this.rowStarts = new int[radius + 1];
+
+            int length = 0;
+            for (int dy = 0; dy <= radius; dy++) {
+                int halfWidth = -1;
+                while ((halfWidth + 1) * (halfWidth + 1) + dy * dy < radius * radius) {
+                    halfWidth++;
+                }
+                halfWidths[dy] = halfWidth;
+                rowStarts[dy] = length;
+                length += halfWidth + 1;
+            }
+            this.sources = new int[length];
+
+            double distance = radius;
+            for (int dy = 0; dy <= radius; dy++) {
+                for (int dx = 0; dx <= halfWidths[dy]; dx++) {
+                    double d1 = Math.sqrt(dx * dx + dy * dy);
+                    double scale = (fishEyeFormula(d1 / distance) * distance) / d1;
+                    int sourceX = (int) (scale * (double) dx);
+                    int sourceY = (int) (scale * (double) dy);
+                    sources[rowStarts[dy] + dx] = sourceY << 16 | sourceX;
+                }
+            }
+        }
+
+        /**
+         * Distorts the rows from {@code fromRow} inclusive to {@code toRow} exclusive of the lens
+         * area of an image centred at the given position, reading the source pixels from a copy
+         * of the image.
+         */
+        private void apply(int[] source, int[] target, int imageWidth, int imageHeight, int centreX, int centreY,
+                           int fromRow, int toRow) {
+            int centre = centreY * imageWidth + centreX;
+            int fromY = Math.max(Math.max(-radius, -centreY), fromRow - centreY);
+            int toY = Math.min(Math.min(radius, imageHeight - 1 - centreY), toRow - 1 - centreY);
+            for (int dy = fromY; dy <= toY; dy++) {
+                int tableY = dy < 0 ? -dy : dy;
+                int halfWidth = halfWidths[tableY];
+                int rowStart = rowStarts[tableY];
+                int fromX = Math.max(-halfWidth, -centreX);
+                int toX = Math.min(halfWidth, imageWidth - 1 - centreX);
+                int row = centre + dy * imageWidth;
+                // the source rows lie above the centre for the rows above it
+                int stride = dy < 0 ? -imageWidth : imageWidth;
+
+                // left of the centre the source columns lie to the left as well
+                for (int dx = fromX; dx < 0 && dx <= toX; dx++) {
+                    int packed = sources[rowStart - dx];
+                    target[row + dx] = source[centre + (packed >>> 16) * stride - (packed & 0xffff)];
+                }
+                for (int dx = fromX < 0 ? 0 : fromX; dx <= toX; dx++) {
+                    int packed = sources[rowStart + dx];
+                    target[row + dx] = source[centre + (packed >>> 16) * stride + (packed & 0xffff)];
+                }
+            }
+        }
+    }
+
     /**
      * A builder for creating {@link FishEyeGimpy} instances.
      */
     public static class FishEyeGimpyBuilder {
+        private NoiseProducer noiseProducer;
+        private RandomSource randomSource;
+        private int parallelThreshold;
+
         private FishEyeGimpyBuilder() {
+            this.noiseProducer = NoNoiseProducer.builder().build();
+            this.randomSource = FastRandomSource.builder().build();
+            this.parallelThreshold = DEFAULT_PARALLEL_THRESHOLD;
+        }
+
+        /**
+         * Sets the noise producer to use. Defaults to a {@link NoNoiseProducer}, as the lines
+         * drawn over the image already obscure it.
+         *
+         * @param noiseProducer the noise producer
+         * @return this builder
+         */
+        public FishEyeGimpyBuilder noiseProducer(NoiseProducer noiseProducer) {
+            if (Objects.isNull(noiseProducer)) {
+                throw new IllegalArgumentException("Noise producer should not be null.");
+            }
+
+            this.noiseProducer = noiseProducer;
+            return this;
+        }
+
+        /**
+         * Sets the source of the random numbers the lens size and position are drawn from.
+         * Defaults to a {@link FastRandomSource}.
+         *
+         * @param randomSource the random source
+         * @return this builder
+         */
+        public FishEyeGimpyBuilder randomSource(RandomSource randomSource) {
+            if (Objects.isNull(randomSource)) {
+                throw new IllegalArgumentException("Random source should not be null.");
+            }
+
+            this.randomSource = randomSource;
+            return this;
+        }
+
+        /**
+         * Sets the number of pixels from which images are distorted in row bands on the common
+         * fork-join pool rather than on the calling thread. Defaults to
+         * {@link AbstractGimpyEngine#DEFAULT_PARALLEL_THRESHOLD}; {@link Integer#MAX_VALUE}
+         * distorts every image on the calling thread.
+         *
+         * @param parallelThreshold the parallel threshold, in pixels
+         * @return this builder
+         */
+        public FishEyeGimpyBuilder parallelThreshold(int parallelThreshold) {
+            if (parallelThreshold <= 0) {
+                throw new IllegalArgumentException("Parallel threshold should be greater than 0.");
+            }
+
+            this.parallelThreshold = parallelThreshold;
+            return this;
         }
 
         /**
@@ -143,7 +372,7 @@ public class FishEyeGimpy implements GimpyEngine {
          * @return a new {@link FishEyeGimpy}
          */
         public FishEyeGimpy build() {
-            return new FishEyeGimpy();
+            return new FishEyeGimpy(noiseProducer, randomSource, parallelThreshold);
         }
     }
 }
@@ -28,42 +28,81 @@ import com.jhlabs.image.TransformFilter;
 import com.onixbyte.captcha.gimpy.AbstractGimpyEngine;
 import com.onixbyte.captcha.noise.NoiseProducer;
 import com.onixbyte.captcha.noise.impl.DefaultNoiseProducer;
+import com.onixbyte.captcha.random.RandomSource;
+import com.onixbyte.captcha.random.impl.FastRandomSource;
+import com.onixbyte.captcha.util.RasterUtils;
 
 import java.awt.image.BufferedImage;
-import java.security.SecureRandom;
 import java.util.Objects;
 import java.util.Random;
 
 /**
  * An implementation of {@link com.onixbyte.captcha.gimpy.GimpyEngine} that adds a shadow and ripple effect to the image.
+ * <p>
+ * By default the shadow is blurred from the alpha channel of the rippled image with a few passes
+ * of a box blur and composited under it in one pass, see {@link BoxBlurShadow}. The Gaussian
+ * {@link ShadowFilter} blurring every channel can be used instead with
+ * {@link ShadowGimpyBuilder#boxBlurShadow(boolean)}.
+ * <p>
+ * Instances are safe for concurrent use without locking. Their configuration is immutable, and
+ * the jhlabs filters, which keep the state of the image being filtered in their fields, are held
+ * per thread.
  */
 public class ShadowGimpy extends AbstractGimpyEngine {
 
-    private final RippleFilter rippleFilter;
-    private final ShadowFilter shadowFilter;
+    /**
+     * The ripple filter of each thread. The ripple is drawn anew for every image, so the filter
+     * cannot be shared between threads.
+     */
+    private final ThreadLocal<RippleFilter> rippleFilters = ThreadLocal.withInitial(() -> {
+        RippleFilter rippleFilter = new RippleFilter();
+        rippleFilter.setWaveType(RippleFilter.SINE);
+        rippleFilter.setXAmplitude(7.6f);
+        rippleFilter.setEdgeAction(TransformFilter.BILINEAR);
+        return rippleFilter;
+    });
+
+    private static final float SHADOW_RADIUS = 10;
+    private static final float SHADOW_ANGLE = (float) Math.PI * 6 / 4;
+    private static final float SHADOW_DISTANCE = 5;
+    private static final float SHADOW_OPACITY = 1;
+    private static final int SHADOW_COLOUR = 0x000000;
+
+    /**
+     * The shadow filter of each thread, or {@code null} if the shadow is blurred with box blurs.
+     */
+    private final ThreadLocal<ShadowFilter> shadowFilters;
+
+    private final BoxBlurShadow boxBlurShadow;
+    private final RandomSource randomSource;
 
     /**
      * Creates a new {@link ShadowGimpy} with the given noise producer.
      *
      * @param noiseProducer the noise producer to use
+     * @param randomSource  the source of the random ripple parameters
+     * @param boxBlurShadow whether to blur the shadow from the alpha channel with box blurs
      */
-    private ShadowGimpy(NoiseProducer noiseProducer) {
+    private ShadowGimpy(NoiseProducer noiseProducer, RandomSource randomSource, boolean boxBlurShadow) {
         super(noiseProducer);
-
-        Random rand = new SecureRandom();
-
-        this.rippleFilter = new RippleFilter();
-        rippleFilter.setWaveType(RippleFilter.SINE);
-        rippleFilter.setXAmplitude(7.6f);
-        rippleFilter.setYAmplitude(rand.nextFloat() + 1.0f);
-        rippleFilter.setXWavelength(rand.nextInt(7) + 8);
-        rippleFilter.setYWavelength(rand.nextInt(3) + 2);
-        rippleFilter.setEdgeAction(TransformFilter.BILINEAR);
-
-        this.shadowFilter = new ShadowFilter();
-        shadowFilter.setRadius(10);
-        shadowFilter.setDistance(5);
-        shadowFilter.setOpacity(1);
+        this.randomSource = randomSource;
+
+        if (boxBlurShadow) {
+            this.shadowFilters = null;
+            this.boxBlurShadow = new BoxBlurShadow(SHADOW_RADIUS, SHADOW_ANGLE, SHADOW_DISTANCE,
+                    SHADOW_OPACITY, SHADOW_COLOUR);
+        } else {
+            this.shadowFilters = ThreadLocal.withInitial(() -> {
+                ShadowFilter shadowFilter = new ShadowFilter();
+                shadowFilter.setRadius(SHADOW_RADIUS);
+                shadowFilter.setAngle(SHADOW_ANGLE);
+                shadowFilter.setDistance(SHADOW_DISTANCE);
+                shadowFilter.setOpacity(SHADOW_OPACITY);
+                shadowFilter.setShadowColor(0xff000000 | SHADOW_COLOUR);
+                return shadowFilter;
+            });
+            this.boxBlurShadow = null;
+        }
     }
 
     /**
@@ -73,8 +112,49 @@ public class ShadowGimpy extends AbstractGimpyEngine {
      * @return the filtered image
      */
     protected BufferedImage applyFilter(BufferedImage baseImage) {
-        BufferedImage effectImage = rippleFilter.filter(baseImage, null);
-        return shadowFilter.filter(effectImage, null);
+        BufferedImage effectImage = rippleFilter().filter(baseImage, null);
+        if (Objects.isNull(boxBlurShadow)) {
+            return shadowFilters.get().filter(effectImage, null);
+        }
+
+        // the rippled image is new, so the shadow can be composited into it
+        boxBlurShadow.apply(effectImage, effectImage);
+        return effectImage;
+    }
+
+    /**
+     * Applies a shadow and ripple effect to the given image, using the scratch image for the
+     * intermediate ripple effect and compositing the shadow back into the base image.
+     *
+     * @param baseImage the image to apply the filter to
+     * @param scratch   an image of the same size and type which may be overwritten
+     * @return the base image holding the filtered result
+     */
+    @Override
+    protected BufferedImage applyFilter(BufferedImage baseImage, BufferedImage scratch) {
+        rippleFilter().filter(baseImage, scratch);
+        if (Objects.isNull(boxBlurShadow)) {
+            // the shadow filter draws over its destination, so it has to start out transparent
+            RasterUtils.clear(baseImage);
+            shadowFilters.get().filter(scratch, baseImage);
+        } else {
+            boxBlurShadow.apply(scratch, baseImage);
+        }
+        return baseImage;
+    }
+
+    /**
+     * Returns the ripple filter of the calling thread, set up with a newly drawn ripple.
+     *
+     * @return the ripple filter
+     */
+    private RippleFilter rippleFilter() {
+        Random random = randomSource.current();
+        RippleFilter rippleFilter = rippleFilters.get();
+        rippleFilter.setYAmplitude(random.nextFloat() + 1.0f);
+        rippleFilter.setXWavelength(random.nextInt(7) + 8);
+        rippleFilter.setYWavelength(random.nextInt(3) + 2);
+        return rippleFilter;
     }
 
     /**
@@ -91,9 +171,13 @@ public class ShadowGimpy extends AbstractGimpyEngine {
      */
     public static class ShadowGimpyBuilder {
         private NoiseProducer noiseProducer;
+        private RandomSource randomSource;
+        private boolean boxBlurShadow;
 
         private ShadowGimpyBuilder() {
             this.noiseProducer = DefaultNoiseProducer.builder().build();
+            this.randomSource = FastRandomSource.builder().build();
+            this.boxBlurShadow = true;
         }
 
         /**
@@ -111,13 +195,42 @@ public class ShadowGimpy extends AbstractGimpyEngine {
             return this;
         }
 
+        /**
+         * Sets the source of the random numbers the ripple parameters are drawn from. Defaults to
+         * a {@link FastRandomSource}.
+         *
+         * @param randomSource the random source
+         * @return this builder
+         */
+        public ShadowGimpyBuilder randomSource(RandomSource randomSource) {
+            if (Objects.isNull(randomSource)) {
+                throw new IllegalArgumentException("Random source should not be null.");
+            }
+
+            this.randomSource = randomSource;
+            return this;
+        }
+
+        /**
+         * Sets whether the shadow is blurred from the alpha channel alone with box blurs, or with
+         * the Gaussian {@link ShadowFilter} over every channel. The two look alike, the box blurs
+         * being several times faster. Defaults to {@code true}.
+         *
+         * @param boxBlurShadow {@code true} to blur the shadow with box blurs
+         * @return this builder
+         */
+        public ShadowGimpyBuilder boxBlurShadow(boolean boxBlurShadow) {
+            this.boxBlurShadow = boxBlurShadow;
+            return this;
+        }
+
         /**
          * Builds a new {@link ShadowGimpy} with the configured properties.
          *
          * @return a new {@link ShadowGimpy}
          */
         public ShadowGimpy build() {
-            return new ShadowGimpy(noiseProducer);
+            return new ShadowGimpy(noiseProducer, randomSource, boxBlurShadow);
         }
     }
 }
@@ -22,45 +22,99 @@
 
 package com.onixbyte.captcha.gimpy.impl;
 
-import com.jhlabs.image.RippleFilter;
-import com.jhlabs.image.TransformFilter;
-import com.jhlabs.image.WaterFilter;
 import com.onixbyte.captcha.gimpy.AbstractGimpyEngine;
 import com.onixbyte.captcha.noise.NoiseProducer;
 import com.onixbyte.captcha.noise.impl.DefaultNoiseProducer;
+import com.onixbyte.captcha.random.RandomSource;
+import com.onixbyte.captcha.random.impl.FastRandomSource;
+import com.onixbyte.captcha.util.RasterUtils;
 
 import java.awt.image.BufferedImage;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * An implementation of {@link com.onixbyte.captcha.gimpy.GimpyEngine} that adds a water ripple effect to the image.
+ * <p>
+ * The effect is a circular water wave followed by a sine ripple. Both are fixed for a given image
+ * size, so they are composed once per size into a warp map telling, in fixed point, where each
+ * pixel is sampled from, and every image is then warped in a single bilinear pass.
+ * <p>
+ * The warp can be made to vary between images by {@link WaterRippleBuilder#phaseShifts(int)
+ * phase-shifting} the waves, in which case a warp map is kept for every phase. Warp maps are kept
+ * for a few image sizes at most, and are all dropped when an image of yet another size arrives.
+ * <p>
+ * Images of at least the {@link WaterRippleBuilder#parallelThreshold(int) parallel threshold} are
+ * warped in row bands on the common fork-join pool.
+ * <p>
+ * Instances are safe for concurrent use without locking. Their configuration is immutable, the
+ * warp maps are never modified once built, and the pixel buffers are held per thread.
  */
 public class WaterRipple extends AbstractGimpyEngine {
 
-    private final WaterFilter waterFilter;
-    private final RippleFilter rippleFilter;
+    private static final float WATER_AMPLITUDE = 1.5f;
+    private static final float WATER_PHASE = 10;
+    private static final float WATER_WAVELENGTH = 2;
+    private static final float WATER_RADIUS = 50;
+
+    private static final float RIPPLE_X_AMPLITUDE = 2.6f;
+    private static final float RIPPLE_Y_AMPLITUDE = 1.7f;
+    private static final float RIPPLE_X_WAVELENGTH = 15;
+    private static final float RIPPLE_Y_WAVELENGTH = 5;
+
+    /**
+     * The number of fractional bits of the interpolation weights in a warp map.
+     */
+    private static final int FRACTION_BITS = 8;
+    private static final int ONE = 1 << FRACTION_BITS;
+    private static final int WEIGHT_MASK = (ONE << 1) - 1;
+    private static final int WEIGHT_BITS = FRACTION_BITS + 1;
+
+    /**
+     * The pixels of the image being warped on each thread, when they cannot be read from it
+     * directly.
+     */
+    private static final ThreadLocal<int[]> SOURCE = ThreadLocal.withInitial(() -> new int[0]);
+
+    /**
+     * The warped pixels on each thread, when they cannot be written into the image directly.
+     */
+    private static final ThreadLocal<int[]> TARGET = ThreadLocal.withInitial(() -> new int[0]);
+
+    /**
+     * The greatest number of phases, which keeps the warp maps of a 200 by 50 image within 5 MiB.
+     */
+    private static final int MAX_PHASE_SHIFTS = 64;
+
+    /**
+     * The greatest number of image sizes warp maps are kept for.
+     */
+    private static final int MAX_WARP_MAP_SIZES = 4;
+
+    private final RandomSource randomSource;
+    private final int phaseShifts;
+
+    /**
+     * The warp maps of every phase, keyed by image width in the upper half and image height in
+     * the lower half. The maps of a size are built as they are first needed. The map is cleared
+     * when it is full, so that images of many different sizes cannot grow it without bound.
+     */
+    private final ConcurrentMap<Long, WarpMap[]> warpMaps = new ConcurrentHashMap<>();
 
     /**
      * Creates a new {@link WaterRipple} with the given noise producer.
      *
-     * @param noiseProducer the noise producer to use
+     * @param noiseProducer     the noise producer to use
+     * @param randomSource      the source of the random phase of each image
+     * @param phaseShifts       the number of distinct phases the waves are shifted by
+     * @param parallelThreshold the number of pixels from which images are warped in parallel
      */
-    private WaterRipple(NoiseProducer noiseProducer) {
-        super(noiseProducer);
-
-        this.waterFilter = new WaterFilter();
-        waterFilter.setAmplitude(1.5f);
-        waterFilter.setPhase(10);
-        waterFilter.setWavelength(2);
-
-        this.rippleFilter = new RippleFilter();
-        rippleFilter.setWaveType(RippleFilter.SINE);
-        rippleFilter.setXAmplitude(2.6f);
-        rippleFilter.setYAmplitude(1.7f);
-        rippleFilter.setXWavelength(15);
-        rippleFilter.setYWavelength(5);
-        rippleFilter.setEdgeAction(TransformFilter.NEAREST_NEIGHBOUR);
-
+    private WaterRipple(NoiseProducer noiseProducer, RandomSource randomSource, int phaseShifts,
+                        int parallelThreshold) {
+        super(noiseProducer, parallelThreshold);
+        this.randomSource = randomSource;
+        this.phaseShifts = phaseShifts;
     }
 
     /**
@@ -70,8 +124,93 @@ public class WaterRipple extends AbstractGimpyEngine {
      * @return the filtered image
      */
     protected BufferedImage applyFilter(BufferedImage baseImage) {
-        BufferedImage effectImage = waterFilter.filter(baseImage, null);
-        return rippleFilter.filter(effectImage, null);
+        BufferedImage effectImage = new BufferedImage(
+                baseImage.getWidth(),
+                baseImage.getHeight(),
+                BufferedImage.TYPE_INT_ARGB
+        );
+        warp(baseImage, effectImage);
+        return effectImage;
+    }
+
+    /**
+     * Applies a water ripple effect to the given image, writing the result into the scratch image.
+     *
+     * @param baseImage the image to apply the filter to
+     * @param scratch   an image of the same size and type which may be overwritten
+     * @return the scratch image holding the filtered result
+     */
+    @Override
+    protected BufferedImage applyFilter(BufferedImage baseImage, BufferedImage scratch) {
+        warp(baseImage, scratch);
+        return scratch;
+    }
+
+    /**
+     * Warps the source image into the target image of the same size.
+     */
+    private void warp(BufferedImage source, BufferedImage target) {
+        int width = source.getWidth();
+        int height = source.getHeight();
+        int size = width * height;
+
+        // packed RGB images have no alpha in their arrays, so they are read through getRGB
+        int[] sourcePixels = source.getType() == BufferedImage.TYPE_INT_ARGB ? RasterUtils.pixels(source) : null;
+        if (Objects.isNull(sourcePixels)) {
+            sourcePixels = buffer(SOURCE, size);
+            source.getRGB(0, 0, width, height, sourcePixels, 0, width);
+        }
+
+        int[] targetPixels = RasterUtils.pixels(target);
+        boolean direct = Objects.nonNull(targetPixels);
+        if (!direct) {
+            targetPixels = buffer(TARGET, size);
+        }
+
+        int phase = phaseShifts > 1 ? randomSource.current().nextInt(phaseShifts) : 0;
+        WarpMap warpMap = warpMap(width, height, phase);
+        int[] from = sourcePixels;
+        int[] to = targetPixels;
+        forEachRowBand(width, height,
+                (fromRow, toRow) -> warpMap.apply(from, to, fromRow * width, toRow * width));
+
+        if (!direct) {
+            target.setRGB(0, 0, width, height, targetPixels, 0, width);
+        }
+    }
+
+    /**
+     * Returns the warp map of the given size and phase, building it if needed.
+     */
+    private WarpMap warpMap(int width, int height, int phase) {
+        long key = (long) width << 32 | height;
+        WarpMap[] maps = warpMaps.get(key);
+        if (Objects.isNull(maps)) {
+            if (warpMaps.size() >= MAX_WARP_MAP_SIZES) {
+                warpMaps.clear();
+            }
+            maps = warpMaps.computeIfAbsent(key, (size) -> new WarpMap[phaseShifts]);
+        }
+        WarpMap map = maps[phase];
+        if (Objects.isNull(map)) {
+            // building the same map twice on a race is harmless, as the maps are immutable
+            map = new WarpMap(width, height, (float) (2 * Math.PI * phase / phaseShifts));
+            maps[phase] = map;
+        }
+        return map;
+    }
+
+    /**
+     * Returns the array of the calling thread held by the given buffer, grown to at least the
+     * given size.
+     */
+    private static int[] buffer(ThreadLocal<int[]> buffer, int size) {
+        int[] pixels = buffer.get();
+        if (pixels.length < size) {
+            pixels = new int[size];
+            buffer.set(pixels);
+        }
+        return pixels;
     }
 
     /**
@@ -83,14 +222,207 @@ public class WaterRipple extends AbstractGimpyEngine {
         return new WaterRippleBuilder();
     }
 
+    /**
+     * The composed water and ripple warp of an image of a given size at a given phase.
+     * <p>
+     * Each target pixel {@code i} is interpolated between the source pixel at index
+     * {@code sources[i]}, its right neighbour and the two pixels below them. {@code weights[i]}
+     * packs, in {@link #FRACTION_BITS} fixed point, the horizontal weight of the right column, the
+     * vertical weight of the lower row and the coverage of the pixel. The source coordinates are
+     * clamped to the image as the water wave clamps them, which folds into the index and weights,
+     * so that the four pixels are always inside the image. The ripple leaves pixels outside the
+     * image transparent, which makes the pixels at its edges partially covered.
+     */
+    private static final class WarpMap {
+        private final int[] sources;
+        private final int[] weights;
+        private final int stepX;
+        private final int stepY;
+
+        private WarpMap(int width, int height, float phase) {
+            int size = width * height;
+            this.sources = new int[size];
+            this.weights = new int[size];
+            this.stepX = width > 1 ? 1 : 0;
+            this.stepY = height > 1 ? width : 0;
+
+            // where the water wave samples the source for each of its own pixels
+            float[] waterSourceX = new float[size];
+            float[] waterSourceY = new float[size];
+            float centreX = width * 0.5f;
+            float centreY = height * 0.5f;
+            float radius2 = WATER_RADIUS * WATER_RADIUS;
+            for (int y = 0, i = 0; y < height; y++) {
+                for (int x = 0; x < width; x++, i++) {
+                    float sourceX = x;
+                    float sourceY = y;
+                    float dx = x - centreX;
+                    float dy = y - centreY;
+                    float distance2 = dx * dx + dy * dy;
+                    if (distance2 <= radius2) {
+                        float distance = (float) Math.sqrt(distance2);
+                        float amount = WATER_AMPLITUDE * (float) Math.sin(
+                                distance / WATER_WAVELENGTH * (float) (2 * Math.PI) - (WATER_PHASE + phase));
+                        amount *= (WATER_RADIUS - distance) / WATER_RADIUS;
+                        if (distance != 0) {
+                            amount *= WATER_WAVELENGTH / distance;
+                        }
+                        sourceX += dx * amount;
+                        sourceY += dy * amount;
+                    }
+                    waterSourceX[i] = sourceX;
+                    waterSourceY[i] = sourceY;
+                }
+            }
+
+            // the ripple used to grow its output by its amplitudes on every side, and the grown
+            // image was drawn at the origin, so the ripple is still offset by them
+            int offsetX = (int) RIPPLE_X_AMPLITUDE;
+            int offsetY = (int) RIPPLE_Y_AMPLITUDE;
+
+            for (int y = 0, i = 0; y < height; y++) {
+                int rippleY = y - offsetY;
+                float shiftX = RIPPLE_X_AMPLITUDE * (float) Math.sin(rippleY / RIPPLE_X_WAVELENGTH + phase);
+                for (int x = 0; x < width; x++, i++) {
+                    int rippleX = x - offsetX;
+                    float shiftY = RIPPLE_Y_AMPLITUDE * (float) Math.sin(rippleX / RIPPLE_Y_WAVELENGTH + phase);
+
+                    // where the ripple samples the water wave
+                    float waterX = rippleX + shiftX;
+                    float waterY = rippleY + shiftY;
+                    int coverage = coverage(waterX, width) * coverage(waterY, height) >> FRACTION_BITS;
+                    waterX = Math.max(0, Math.min(width - 1, waterX));
+                    waterY = Math.max(0, Math.min(height - 1, waterY));
+
+                    // where the water wave samples the source, interpolated between the water
+                    // pixels the ripple reads
+                    int waterColumn = floor(waterX, width);
+                    int waterRow = floor(waterY, height);
+                    float waterFractionX = stepX == 0 ? 0 : waterX - waterColumn;
+                    float waterFractionY = stepY == 0 ? 0 : waterY - waterRow;
+                    int water = waterRow * width + waterColumn;
+                    float sourceX = interpolate(waterSourceX, water, stepX, stepY, waterFractionX, waterFractionY);
+                    float sourceY = interpolate(waterSourceY, water, stepX, stepY, waterFractionX, waterFractionY);
+
+                    int column = floor(sourceX, width);
+                    int row = floor(sourceY, height);
+                    sources[i] = row * width + column;
+                    weights[i] = fraction(sourceX, column, width)
+                            | fraction(sourceY, row, height) << WEIGHT_BITS
+                            | coverage << (WEIGHT_BITS * 2);
+                }
+            }
+        }
+
+        /**
+         * Interpolates a value between the given index, its right neighbour and the two below them.
+         */
+        private static float interpolate(float[] values, int index, int stepX, int stepY,
+                                         float fractionX, float fractionY) {
+            float top = values[index] + (values[index + stepX] - values[index]) * fractionX;
+            float bottom = values[index + stepY] + (values[index + stepY + stepX] - values[index + stepY]) * fractionX;
+            return top + (bottom - top) * fractionY;
+        }
+
+        /**
+         * Returns the left or upper of the two pixels a coordinate is interpolated between,
+         * clamped so that the other one is inside the image as well.
+         */
+        private static int floor(float coordinate, int length) {
+            if (coordinate <= 0 || length == 1) {
+                return 0;
+            }
+            return Math.min((int) coordinate, length - 2);
+        }
+
+        /**
+         * Returns the weight of the right or lower pixel a coordinate is interpolated with.
+         */
+        private static int fraction(float coordinate, int floor, int length) {
+            if (length == 1) {
+                return 0;
+            }
+            return Math.max(0, Math.min(ONE, (int) ((coordinate - floor) * ONE)));
+        }
+
+        /**
+         * Returns the total weight of the pixels inside the image of the two a coordinate is
+         * interpolated between.
+         */
+        private static int coverage(float coordinate, int length) {
+            int floor = (int) Math.floor(coordinate);
+            int fraction = (int) ((coordinate - floor) * ONE);
+            int coverage = 0;
+            if (floor >= 0 && floor < length) {
+                coverage += ONE - fraction;
+            }
+            if (floor + 1 >= 0 && floor + 1 < length) {
+                coverage += fraction;
+            }
+            return coverage;
+        }
+
+        /**
+         * Warps the target pixels between the given indices from the source pixels, both laid
+         * out row by row.
+         */
+        private void apply(int[] source, int[] target, int from, int to) {
+            int stepX = this.stepX;
+            int stepY = this.stepY;
+            for (int i = from; i < to; i++) {
+                int weight = weights[i];
+                int coverage = weight >>> (WEIGHT_BITS * 2);
+                if (coverage == 0) {
+                    target[i] = 0;
+                    continue;
+                }
+
+                int fractionX = weight & WEIGHT_MASK;
+                int fractionY = (weight >>> WEIGHT_BITS) & WEIGHT_MASK;
+                int index = sources[i];
+                int northWest = source[index];
+                int northEast = source[index + stepX];
+                int southWest = source[index + stepY];
+                int southEast = source[index + stepY + stepX];
+                int pixel = northWest;
+                // most of a captcha is plain background, which needs no interpolation
+                if (northEast != northWest || southWest != northWest || southEast != northWest) {
+                    int top = lerp(northWest, northEast, fractionX);
+                    int bottom = lerp(southWest, southEast, fractionX);
+                    pixel = lerp(top, bottom, fractionY);
+                }
+                if (coverage < ONE) {
+                    pixel = lerp(0, pixel, coverage);
+                }
+                target[i] = pixel;
+            }
+        }
+
+        /**
+         * Interpolates every channel of two packed pixels, two channels at a time.
+         */
+        private static int lerp(int from, int to, int fraction) {
+            int inverse = ONE - fraction;
+            int redBlue = ((from & 0x00ff00ff) * inverse + (to & 0x00ff00ff) * fraction) >>> FRACTION_BITS;
+            int alphaGreen = ((from >>> 8 & 0x00ff00ff) * inverse + (to >>> 8 & 0x00ff00ff) * fraction) >>> FRACTION_BITS;
+            return (redBlue & 0x00ff00ff) | (alphaGreen & 0x00ff00ff) << 8;
+        }
+    }
+
     /**
      * A builder for creating {@link WaterRipple} instances.
      */
     public static class WaterRippleBuilder {
         private NoiseProducer noiseProducer;
+        private RandomSource randomSource;
+        private int phaseShifts;
+        private int parallelThreshold;
 
         private WaterRippleBuilder() {
             this.noiseProducer = DefaultNoiseProducer.builder().build();
+            this.randomSource = FastRandomSource.builder().build();
+            this.phaseShifts = 1;
+            this.parallelThreshold = DEFAULT_PARALLEL_THRESHOLD;
         }
 
         /**
@@ -108,13 +440,64 @@ public class WaterRipple extends AbstractGimpyEngine {
             return this;
         }
 
+        /**
+         * Sets the source of the random numbers the phase of each image is drawn from. Defaults
+         * to a {@link FastRandomSource}.
+         *
+         * @param randomSource the random source
+         * @return this builder
+         */
+        public WaterRippleBuilder randomSource(RandomSource randomSource) {
+            if (Objects.isNull(randomSource)) {
+                throw new IllegalArgumentException("Random source should not be null.");
+            }
+
+            this.randomSource = randomSource;
+            return this;
+        }
+
+        /**
+         * Sets the number of evenly spaced phases the waves are shifted by, one of which is drawn
+         * at random for every image. A warp map is kept for every phase of every image size.
+         * Defaults to 1, which always draws the waves unshifted, and may be at most 64.
+         *
+         * @param phaseShifts the number of phases
+         * @return this builder
+         */
+        public WaterRippleBuilder phaseShifts(int phaseShifts) {
+            if (phaseShifts <= 0 || phaseShifts > MAX_PHASE_SHIFTS) {
+                throw new IllegalArgumentException("Phase shifts should be in range [1, 64].");
+            }
+
+            this.phaseShifts = phaseShifts;
+            return this;
+        }
+
+        /**
+         * Sets the number of pixels from which images are warped in row bands on the common
+         * fork-join pool rather than on the calling thread. Defaults to
+         * {@link AbstractGimpyEngine#DEFAULT_PARALLEL_THRESHOLD}; {@link Integer#MAX_VALUE} warps
+         * every image on the calling thread.
+         *
+         * @param parallelThreshold the parallel threshold, in pixels
+         * @return this builder
+         */
+        public WaterRippleBuilder parallelThreshold(int parallelThreshold) {
+            if (parallelThreshold <= 0) {
+                throw new IllegalArgumentException("Parallel threshold should be greater than 0.");
+            }
+
+            this.parallelThreshold = parallelThreshold;
+            return this;
+        }
+
         /**
          * Builds a new {@link WaterRipple} with the configured properties.
          *
          * @return a new {@link WaterRipple}
          */
         public WaterRipple build() {
-            return new WaterRipple(noiseProducer);
+            return new WaterRipple(noiseProducer, randomSource, phaseShifts, parallelThreshold);
         }
     }
 }
@@ -24,19 +24,35 @@ package com.onixbyte.captcha.impl;
 
 import com.onixbyte.captcha.background.BackgroundProducer;
 import com.onixbyte.captcha.background.impl.DefaultBackgroundProducer;
+import com.onixbyte.captcha.encoder.ImageEncoder;
+import com.onixbyte.captcha.encoder.impl.ImageIOEncoder;
 import com.onixbyte.captcha.gimpy.GimpyEngine;
+import com.onixbyte.captcha.Captcha;
 import com.onixbyte.captcha.Producer;
 import com.onixbyte.captcha.gimpy.impl.WaterRipple;
+import com.onixbyte.captcha.metrics.CaptchaMetricsListener;
+import com.onixbyte.captcha.metrics.enums.CaptchaStage;
 import com.onixbyte.captcha.text.TextProducer;
 import com.onixbyte.captcha.text.WordRenderer;
 import com.onixbyte.captcha.text.impl.DefaultTextProducer;
 import com.onixbyte.captcha.text.impl.DefaultWordRenderer;
+import com.onixbyte.captcha.token.TokenService;
+import com.onixbyte.captcha.util.ExecutorUtils;
+import com.onixbyte.captcha.util.RasterUtils;
 
 import java.awt.BasicStroke;
 import java.awt.Color;
 import java.awt.Graphics2D;
-import java.awt.geom.Line2D;
 import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.WritableByteChannel;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
 
 /**
  * Default {@link Producer} implementation which draws a captcha image using {@link WordRenderer},
@@ -84,11 +100,53 @@ public class DefaultCaptchaProducer implements Producer {
      */
     private final int borderThickness;
 
+    /**
+     * The stroke the border is drawn with, or {@code null} to keep the default stroke.
+     */
+    private final BasicStroke borderStroke;
+
     /**
      * The text producer.
      */
     private final TextProducer textProducer;
 
+    /**
+     * Whether images are rendered through the fused pipeline.
+     */
+    private final boolean fusedPipeline;
+
+    /**
+     * The encoder used to write images.
+     */
+    private final ImageEncoder imageEncoder;
+
+    /**
+     * The encoders of the formats other than that of the configured encoder, by lower-cased format
+     * name, built when a format is first requested so that their per-thread writers and buffers are
+     * reused across calls.
+     */
+    private final ConcurrentMap<String, ImageEncoder> formatEncoders = new ConcurrentHashMap<>();
+
+    /**
+     * The render context of each thread, or {@code null} if render contexts are not reused.
+     */
+    private final ThreadLocal<RenderContext> renderContexts;
+
+    /**
+     * The listener receiving the time spent in each stage, or {@code null}.
+     */
+    private final CaptchaMetricsListener metricsListener;
+
+    /**
+     * The executor captchas are rendered on asynchronously.
+     */
+    private final Executor asyncExecutor;
+
+    /**
+     * The service issuing the tokens of captchas, or {@code null}.
+     */
+    private final TokenService tokenService;
+
     /**
      * Creates a new {@link DefaultCaptchaProducer}.
      *
@@ -101,6 +159,13 @@ public class DefaultCaptchaProducer implements Producer {
      * @param borderColour       the colour of the border
      * @param borderThickness    the thickness of the border
      * @param textProducer       the text producer to use
+     * @param fusedPipeline      whether images are rendered through the fused pipeline
+     * @param imageEncoder       the encoder used to write images
+     * @param reuseRenderContexts whether each thread reuses its render context
+     * @param metricsListener    the listener receiving the time spent in each stage, or
+     *                           {@code null}
+     * @param asyncExecutor      the executor captchas are rendered on asynchronously
+     * @param tokenService       the service issuing the tokens of captchas, or {@code null}
      */
     private DefaultCaptchaProducer(
             WordRenderer wordRenderer,
@@ -111,7 +176,13 @@ public class DefaultCaptchaProducer implements Producer {
             boolean borderDrawn,
             Color borderColour,
             int borderThickness,
-            TextProducer textProducer
+            TextProducer textProducer,
+            boolean fusedPipeline,
+            ImageEncoder imageEncoder,
+            boolean reuseRenderContexts,
+            CaptchaMetricsListener metricsListener,
+            Executor asyncExecutor,
+            TokenService tokenService
     ) {
         this.wordRenderer = wordRenderer;
         this.gimpyEngine = gimpyEngine;
@@ -121,7 +192,16 @@ public class DefaultCaptchaProducer implements Producer {
         this.borderDrawn = borderDrawn;
         this.borderColour = borderColour;
         this.borderThickness = borderThickness;
+        this.borderStroke = borderThickness != 1 ? new BasicStroke((float) borderThickness) : null;
         this.textProducer = textProducer;
+        this.fusedPipeline = fusedPipeline;
+        this.imageEncoder = imageEncoder;
+        this.renderContexts = reuseRenderContexts
+                ? ThreadLocal.withInitial(() -> new RenderContext(width, height))
+                : null;
+        this.metricsListener = metricsListener;
+        this.asyncExecutor = asyncExecutor;
+        this.tokenService = tokenService;
     }
 
     /**
@@ -131,6 +211,17 @@ public class DefaultCaptchaProducer implements Producer {
      * @return image with the text
      */
     public BufferedImage createImage(String text) {
+        if (Objects.nonNull(renderContexts)) {
+            BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            RasterUtils.copy(renderFused(text, renderContexts.get()), image);
+            return image;
+        }
+        if (fusedPipeline) {
+            return renderFused(text, new RenderContext(width, height));
+        }
+        if (isTimed()) {
+            return renderTimed(text, null);
+        }
 
         BufferedImage bi = wordRenderer.renderWord(text, width, height);
         bi = gimpyEngine.getDistortedImage(bi);
@@ -142,29 +233,280 @@ public class DefaultCaptchaProducer implements Producer {
         return bi;
     }
 
+    /**
+     * Create an image which will have written a distorted text, drawn into the given destination
+     * image. When render contexts are reused, the image is rendered in the context of the calling
+     * thread and copied into the destination, so that no image is allocated.
+     *
+     * @param text        the distorted characters
+     * @param destination the image to draw into, of the same size as the captcha
+     * @return the destination image
+     */
+    @Override
+    public BufferedImage createImage(String text, BufferedImage destination) {
+        if (Objects.isNull(destination)) {
+            throw new IllegalArgumentException("Destination should not be null.");
+        }
+
+        BufferedImage image = Objects.nonNull(renderContexts)
+                ? renderFused(text, renderContexts.get())
+                : createImage(text);
+        RasterUtils.copy(image, destination);
+        return destination;
+    }
+
+    /**
+     * Renders an image through the fused pipeline. Every stage works on one of the two rasters of a
+     * {@link RenderContext}, handing it over to the next stage without compositing it into a newly
+     * allocated image, and the background stage writes the opaque result into the raster which is
+     * free at that point.
+     *
+     * @param text    the distorted characters
+     * @param context the context to render in
+     * @return image with the text, backed by one of the rasters of the context
+     */
+    private BufferedImage renderFused(String text, RenderContext context) {
+        if (isTimed()) {
+            return renderTimed(text, context);
+        }
+
+        wordRenderer.renderWord(text, context.getFront());
+        BufferedImage bi = gimpyEngine.getDistortedImage(context.getFront(), context.getBack());
+        bi = backgroundProducer.addBackground(bi, context.getOpaqueTarget(bi));
+        if (borderDrawn) {
+            Graphics2D graphics = bi.createGraphics();
+            drawBox(graphics);
+            graphics.dispose();
+        }
+        return bi;
+    }
+
+    /**
+     * Returns whether the stages are timed, either for the metrics listener or for a Flight Recorder
+     * recording.
+     */
+    private boolean isTimed() {
+        return Objects.nonNull(metricsListener) || FlightRecorderEvents.isEnabled();
+    }
+
+    /**
+     * Renders an image like {@link #createImage(String)} or {@link #renderFused(String, RenderContext)}
+     * do, reporting the time spent in each stage to the metrics listener and to Flight Recorder. The
+     * distortion and the noise are applied as two separate steps so that they can be timed
+     * separately.
+     *
+     * @param text    the distorted characters
+     * @param context the context to render in, or {@code null} to allocate an image per stage
+     * @return image with the text
+     */
+    private BufferedImage renderTimed(String text, RenderContext context) {
+        int textLength = text.length();
+        Object captchaEvent = FlightRecorderEvents.beginCaptcha();
+
+        long time = System.nanoTime();
+        Object stageEvent = FlightRecorderEvents.beginStage();
+        BufferedImage bi;
+        BufferedImage scratch;
+        if (Objects.nonNull(context)) {
+            wordRenderer.renderWord(text, context.getFront());
+            bi = context.getFront();
+            scratch = context.getBack();
+        } else {
+            bi = wordRenderer.renderWord(text, width, height);
+            scratch = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        }
+        time = completeStage(CaptchaStage.WORD_RENDERING, wordRenderer, time, stageEvent, textLength);
+
+        stageEvent = FlightRecorderEvents.beginStage();
+        bi = gimpyEngine.applyDistortion(bi, scratch);
+        time = completeStage(CaptchaStage.DISTORTION, gimpyEngine, time, stageEvent, textLength);
+
+        stageEvent = FlightRecorderEvents.beginStage();
+        gimpyEngine.addNoise(bi);
+        time = completeStage(CaptchaStage.NOISE, gimpyEngine, time, stageEvent, textLength);
+
+        stageEvent = FlightRecorderEvents.beginStage();
+        bi = Objects.nonNull(context)
+                ? backgroundProducer.addBackground(bi, context.getOpaqueTarget(bi))
+                : backgroundProducer.addBackground(bi);
+        time = completeStage(CaptchaStage.BACKGROUND, backgroundProducer, time, stageEvent, textLength);
+
+        if (borderDrawn) {
+            stageEvent = FlightRecorderEvents.beginStage();
+            Graphics2D graphics = bi.createGraphics();
+            drawBox(graphics);
+            graphics.dispose();
+            completeStage(CaptchaStage.BORDER, this, time, stageEvent, textLength);
+        }
+
+        FlightRecorderEvents.commitCaptcha(captchaEvent, gimpyEngine.getClass(), width, height, textLength);
+        return bi;
+    }
+
+    /**
+     * Reports a completed stage to the metrics listener, if any, and commits its Flight Recorder
+     * event, if any.
+     *
+     * @param stage      the completed stage
+     * @param component  the component which ran the stage
+     * @param start      the time the stage started at, from {@link System#nanoTime()}
+     * @param event      the Flight Recorder event of the stage, or {@code null}
+     * @param textLength the length of the text
+     * @return the current time, which the next stage starts at
+     */
+    private long completeStage(CaptchaStage stage, Object component, long start, Object event, int textLength) {
+        long now = System.nanoTime();
+        if (Objects.nonNull(metricsListener)) {
+            metricsListener.onStage(stage, now - start);
+        }
+        FlightRecorderEvents.commitStage(event, stage, component.getClass(), width, height, textLength);
+        return now;
+    }
+
     private void drawBox(Graphics2D graphics) {
         graphics.setColor(borderColour);
 
-        if (borderThickness != 1) {
-            BasicStroke stroke = new BasicStroke((float) borderThickness);
-            graphics.setStroke(stroke);
+        if (Objects.nonNull(borderStroke)) {
+            graphics.setStroke(borderStroke);
         }
 
-        Line2D line1 = new Line2D.Double(0, 0, 0, ((double) width));
-        graphics.draw(line1);
-        Line2D line2 = new Line2D.Double(0, 0, width, 0);
-        graphics.draw(line2);
-        line2 = new Line2D.Double(0, height - 1, width, height - 1);
-        graphics.draw(line2);
-        line2 = new Line2D.Double(width - 1, height - 1, width - 1, 0);
-        graphics.draw(line2);
+        graphics.drawLine(0, 0, 0, width);
+        graphics.drawLine(0, 0, width, 0);
+        graphics.drawLine(0, height - 1, width, height - 1);
+        graphics.drawLine(width - 1, height - 1, width - 1, 0);
     }
 
     /**
      * @return the text to be drawn
      */
     public String createText() {
-        return textProducer.getText();
+        if (!isTimed()) {
+            return textProducer.getText();
+        }
+
+        Object event = FlightRecorderEvents.beginStage();
+        long start = System.nanoTime();
+        String text = textProducer.getText();
+        completeStage(CaptchaStage.TEXT_GENERATION, textProducer, start, event, text.length());
+        return text;
+    }
+
+    /**
+     * Create an image which will have written a distorted text, encoded into the given format. The
+     * configured encoder is used if it writes the requested format.
+     *
+     * @param text   the distorted text
+     * @param format the informal name of the image format, such as {@code "png"}
+     * @return the encoded image with the text
+     * @throws IOException if the image cannot be encoded
+     */
+    @Override
+    public byte[] createImageBytes(String text, String format) throws IOException {
+        ImageEncoder encoder = encoderFor(format);
+        BufferedImage image = renderForEncoding(text);
+        if (!isTimed()) {
+            return encoder.encode(image);
+        }
+
+        Object event = FlightRecorderEvents.beginStage();
+        long start = System.nanoTime();
+        byte[] bytes = encoder.encode(image);
+        completeStage(CaptchaStage.ENCODING, encoder, start, event, text.length());
+        return bytes;
+    }
+
+    /**
+     * Create an image which will have written a distorted text and write it to an output stream,
+     * encoded with the configured encoder.
+     *
+     * @param text the distorted text
+     * @param out  the stream to write the encoded image to
+     * @throws IOException if the image cannot be encoded or written
+     */
+    @Override
+    public void writeImage(String text, OutputStream out) throws IOException {
+        BufferedImage image = renderForEncoding(text);
+        if (!isTimed()) {
+            imageEncoder.encode(image, out);
+            return;
+        }
+
+        Object event = FlightRecorderEvents.beginStage();
+        long start = System.nanoTime();
+        imageEncoder.encode(image, out);
+        completeStage(CaptchaStage.ENCODING, imageEncoder, start, event, text.length());
+    }
+
+    /**
+     * Create an image which will have written a distorted text and write it to a channel, encoded
+     * with the configured encoder.
+     *
+     * @param text    the distorted text
+     * @param channel the channel to write the encoded image to
+     * @throws IOException if the image cannot be encoded or written
+     */
+    @Override
+    public void writeImage(String text, WritableByteChannel channel) throws IOException {
+        BufferedImage image = renderForEncoding(text);
+        if (!isTimed()) {
+            imageEncoder.encode(image, channel);
+            return;
+        }
+
+        Object event = FlightRecorderEvents.beginStage();
+        long start = System.nanoTime();
+        imageEncoder.encode(image, channel);
+        completeStage(CaptchaStage.ENCODING, imageEncoder, start, event, text.length());
+    }
+
+    /**
+     * Renders an image which is encoded straight away. When render contexts are reused, the image
+     * is left in the context of the calling thread instead of being copied out, as the encoder is
+     * done with it before the thread renders again.
+     */
+    private BufferedImage renderForEncoding(String text) {
+        return Objects.nonNull(renderContexts) ? renderFused(text, renderContexts.get()) : createImage(text);
+    }
+
+    /**
+     * Create a captcha, that is a new text together with the image it is drawn on and, if a token
+     * service is configured, the token its answer can be verified against.
+     *
+     * @return a new captcha
+     */
+    @Override
+    public Captcha createCaptcha() {
+        String text = createText();
+        Captcha.CaptchaBuilder captcha = Captcha.builder()
+                .text(text)
+                .image(createImage(text));
+        if (Objects.nonNull(tokenService)) {
+            captcha.token(tokenService.issue(text));
+        }
+        return captcha.build();
+    }
+
+    /**
+     * Create a captcha asynchronously on the configured executor.
+     *
+     * @return a future completed with a new captcha
+     */
+    @Override
+    public CompletableFuture<Captcha> createCaptchaAsync() {
+        return createCaptchaAsync(asyncExecutor);
+    }
+
+    private ImageEncoder encoderFor(String format) {
+        if (Objects.isNull(format) || format.trim().isEmpty()) {
+            throw new IllegalArgumentException("Format name should not be empty.");
+        }
+
+        String formatName = format.trim().toLowerCase(Locale.ROOT);
+        if (formatName.equalsIgnoreCase(imageEncoder.getFormatName())) {
+            return imageEncoder;
+        }
+        return formatEncoders.computeIfAbsent(formatName,
+                (name) -> ImageIOEncoder.builder().formatName(name).build());
     }
 
     /**
@@ -189,6 +531,12 @@ public class DefaultCaptchaProducer implements Producer {
         private Color borderColour;
         private int borderThickness;
         private TextProducer textProducer;
+        private boolean fusedPipeline;
+        private ImageEncoder imageEncoder;
+        private boolean reuseRenderContexts;
+        private CaptchaMetricsListener metricsListener;
+        private Executor asyncExecutor;
+        private TokenService tokenService;
 
         private DefaultCaptchaProducerBuilder() {
             this.wordRenderer = DefaultWordRenderer.builder().build();
@@ -200,6 +548,12 @@ public class DefaultCaptchaProducer implements Producer {
             this.borderColour = Color.BLACK;
             this.borderThickness = 1;
             this.textProducer = DefaultTextProducer.builder().build();
+            this.fusedPipeline = false;
+            this.imageEncoder = ImageIOEncoder.builder().build();
+            this.reuseRenderContexts = false;
+            this.metricsListener = null;
+            this.asyncExecutor = ExecutorUtils.defaultExecutor();
+            this.tokenService = null;
         }
 
         /**
@@ -301,13 +655,112 @@ public class DefaultCaptchaProducer implements Producer {
             return this;
         }
 
+        /**
+         * Sets whether images are rendered through the fused pipeline. In this mode the stages work
+         * in place on a pair of ping-pong rasters instead of each allocating and compositing its
+         * own output image, so each captcha costs two full-size rasters plus whatever a stage
+         * allocates internally. Stages which do not support working in place fall back to their
+         * regular behaviour.
+         *
+         * @param fusedPipeline whether to use the fused pipeline
+         * @return this builder
+         */
+        public DefaultCaptchaProducerBuilder fusedPipeline(boolean fusedPipeline) {
+            this.fusedPipeline = fusedPipeline;
+            return this;
+        }
+
+        /**
+         * Sets the encoder used by {@link DefaultCaptchaProducer#writeImage} and, for its own format,
+         * by {@link DefaultCaptchaProducer#createImageBytes}.
+         *
+         * @param imageEncoder the image encoder
+         * @return this builder
+         */
+        public DefaultCaptchaProducerBuilder imageEncoder(ImageEncoder imageEncoder) {
+            if (Objects.isNull(imageEncoder)) {
+                throw new IllegalArgumentException("Image encoder should not be null.");
+            }
+
+            this.imageEncoder = imageEncoder;
+            return this;
+        }
+
+        /**
+         * Sets whether each thread keeps its render context and reuses it for every image it
+         * renders, instead of allocating new rasters each time. Reusing render contexts implies the
+         * fused pipeline.
+         * <p>
+         * {@link DefaultCaptchaProducer#writeImage}, {@link DefaultCaptchaProducer#createImageBytes}
+         * and {@link DefaultCaptchaProducer#createImage(String, BufferedImage)} then allocate no
+         * images at all, while {@link DefaultCaptchaProducer#createImage(String)} still copies the
+         * result into a new image, as the rasters of the context are overwritten by the next image
+         * rendered on the same thread. The rasters are kept for as long as the thread lives.
+         *
+         * @param reuseRenderContexts whether render contexts are reused
+         * @return this builder
+         */
+        public DefaultCaptchaProducerBuilder reuseRenderContexts(boolean reuseRenderContexts) {
+            this.reuseRenderContexts = reuseRenderContexts;
+            return this;
+        }
+
+        /**
+         * Sets the listener receiving the time spent in text generation, word rendering,
+         * distortion, noise, background, border and encoding for every captcha. No listener is set
+         * by default, in which case the stages are only timed while a Flight Recorder recording
+         * enables the captcha events, on Java 11 and later.
+         *
+         * @param metricsListener the metrics listener, or {@code null} to disable timing
+         * @return this builder
+         * @see com.onixbyte.captcha.metrics.impl.HistogramMetricsListener
+         */
+        public DefaultCaptchaProducerBuilder metricsListener(CaptchaMetricsListener metricsListener) {
+            this.metricsListener = metricsListener;
+            return this;
+        }
+
+        /**
+         * Sets the executor {@link DefaultCaptchaProducer#createCaptchaAsync()} renders captchas
+         * on. Defaults to {@link ExecutorUtils#defaultExecutor()}, which uses virtual threads on
+         * Java 21 and later and a bounded pool of platform threads before.
+         *
+         * @param asyncExecutor the executor
+         * @return this builder
+         */
+        public DefaultCaptchaProducerBuilder asyncExecutor(Executor asyncExecutor) {
+            if (Objects.isNull(asyncExecutor)) {
+                throw new IllegalArgumentException("Async executor should not be null.");
+            }
+
+            this.asyncExecutor = asyncExecutor;
+            return this;
+        }
+
+        /**
+         * Sets the service issuing a token for every captcha created by
+         * {@link DefaultCaptchaProducer#createCaptcha()}, so that answers can be verified without
+         * keeping any state. No tokens are issued by default.
+         * <p>
+         * The lifetime of a token starts when the captcha is created, which for pooled captchas is
+         * before they are handed out.
+         *
+         * @param tokenService the token service, or {@code null} to issue no tokens
+         * @return this builder
+         * @see com.onixbyte.captcha.token.impl.HmacTokenService
+         */
+        public DefaultCaptchaProducerBuilder tokenService(TokenService tokenService) {
+            this.tokenService = tokenService;
+            return this;
+        }
+
         /**
          * Builds a new {@link DefaultCaptchaProducer} with the configured properties.
          *
          * @return a new {@link DefaultCaptchaProducer}
          */
         public DefaultCaptchaProducer build() {
-            return new DefaultCaptchaProducer(wordRenderer, gimpyEngine, backgroundProducer, width, height, borderDrawn, borderColour, borderThickness, textProducer);
+            return new DefaultCaptchaProducer(wordRenderer, gimpyEngine, backgroundProducer, width, height, borderDrawn, borderColour, borderThickness, textProducer, fusedPipeline, imageEncoder, reuseRenderContexts, metricsListener, asyncExecutor, tokenService);
         }
     }
 }
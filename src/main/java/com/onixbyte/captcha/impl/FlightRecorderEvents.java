@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2024-2025 OnixByte
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.onixbyte.captcha.impl;
+
+import com.onixbyte.captcha.metrics.enums.CaptchaStage;
+
+/**
+ * Emits JDK Flight Recorder events for the captchas rendered by {@link DefaultCaptchaProducer}.
+ * <p>
+ * Flight Recorder is not available on Java 8, so this implementation emits nothing and reports
+ * events as disabled. The multi-release jar carries a replacement for Java 11 and later, which
+ * emits a {@code com.onixbyte.captcha.CaptchaGeneration} event per captcha and a
+ * {@code com.onixbyte.captcha.CaptchaStage} event per stage whenever a recording enables them.
+ * <p>
+ * Events are passed around as {@link Object}s, so that callers do not depend on the event classes.
+ */
+final class FlightRecorderEvents {
+
+    private FlightRecorderEvents() {
+    }
+
+    /**
+     * Returns whether any captcha event is enabled in a running recording.
+     *
+     * @return {@code false}, as Flight Recorder is not available
+     */
+    static boolean isEnabled() {
+        return false;
+    }
+
+    /**
+     * Begins timing a captcha.
+     *
+     * @return the event to commit once the captcha is rendered, or {@code null}
+     */
+    static Object beginCaptcha() {
+        return null;
+    }
+
+    /**
+     * Commits the event of a captcha.
+     *
+     * @param event      the event returned by {@link #beginCaptcha()}, or {@code null}
+     * @param engine     the class of the gimpy engine
+     * @param width      the width of the image
+     * @param height     the height of the image
+     * @param textLength the length of the text
+     */
+    static void commitCaptcha(Object event, Class<?> engine, int width, int height, int textLength) {
+    }
+
+    /**
+     * Begins timing a stage.
+     *
+     * @return the event to commit once the stage is completed, or {@code null}
+     */
+    static Object beginStage() {
+        return null;
+    }
+
+    /**
+     * Commits the event of a stage.
+     *
+     * @param event      the event returned by {@link #beginStage()}, or {@code null}
+     * @param stage      the completed stage
+     * @param component  the class of the component which ran the stage
+     * @param width      the width of the image
+     * @param height     the height of the image
+     * @param textLength the length of the text
+     */
+    static void commitStage(Object event, CaptchaStage stage, Class<?> component, int width, int height, int textLength) {
+    }
+}
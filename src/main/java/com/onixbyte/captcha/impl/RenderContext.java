@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2024-2025 OnixByte
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.onixbyte.captcha.impl;
+
+import com.onixbyte.captcha.util.RasterUtils;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * A pair of ping-pong rasters the fused rendering pipeline of {@link DefaultCaptchaProducer} runs
+ * on. Each raster is exposed both as a {@link BufferedImage#TYPE_INT_ARGB} image, which the text,
+ * distortion and noise stages draw on, and as a {@link BufferedImage#TYPE_INT_RGB} image sharing
+ * the same pixels, which the background stage writes the opaque result into.
+ */
+final class RenderContext {
+
+    private final int width;
+    private final int height;
+
+    private final BufferedImage front;
+    private final BufferedImage back;
+    private final BufferedImage opaqueFront;
+    private final BufferedImage opaqueBack;
+
+    /**
+     * Creates a new {@link RenderContext} with two rasters of the given size.
+     *
+     * @param width  the width of the rasters
+     * @param height the height of the rasters
+     */
+    RenderContext(int width, int height) {
+        this.width = width;
+        this.height = height;
+
+        int[] frontPixels = new int[width * height];
+        int[] backPixels = new int[width * height];
+        this.front = RasterUtils.wrap(frontPixels, width, height, true);
+        this.back = RasterUtils.wrap(backPixels, width, height, true);
+        this.opaqueFront = RasterUtils.wrap(frontPixels, width, height, false);
+        this.opaqueBack = RasterUtils.wrap(backPixels, width, height, false);
+    }
+
+    int getWidth() {
+        return width;
+    }
+
+    int getHeight() {
+        return height;
+    }
+
+    /**
+     * Returns the raster the text is rendered on.
+     *
+     * @return the front raster as an ARGB image
+     */
+    BufferedImage getFront() {
+        return front;
+    }
+
+    /**
+     * Returns the raster the stages may use as scratch space.
+     *
+     * @return the back raster as an ARGB image
+     */
+    BufferedImage getBack() {
+        return back;
+    }
+
+    /**
+     * Returns an opaque view of the raster not holding the given image, for the background stage
+     * to write into.
+     *
+     * @param image the image produced by the previous stage
+     * @return an RGB image over the other raster
+     */
+    BufferedImage getOpaqueTarget(BufferedImage image) {
+        return image == front ? opaqueBack : opaqueFront;
+    }
+}
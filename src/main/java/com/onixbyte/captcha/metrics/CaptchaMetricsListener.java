@@ -0,0 +1,43 @@
+/*
+ * Copyright (c) 2024-2025 OnixByte
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.onixbyte.captcha.metrics;
+
+import com.onixbyte.captcha.metrics.enums.CaptchaStage;
+
+/**
+ * A callback receiving the time spent in each stage of creating a captcha.
+ * <p>
+ * The listener is called synchronously on the thread creating the captcha, possibly from many
+ * threads at once, so implementations must be thread-safe, should return quickly and should not
+ * throw.
+ */
+public interface CaptchaMetricsListener {
+
+    /**
+     * Called when a stage of creating a captcha has completed.
+     *
+     * @param stage the completed stage
+     * @param nanos the time spent in the stage, in nanoseconds
+     */
+    void onStage(CaptchaStage stage, long nanos);
+}
@@ -0,0 +1,289 @@
+/*
+ * Copyright (c) 2024-2025 OnixByte
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.onixbyte.captcha.metrics;
+
+import com.onixbyte.captcha.metrics.enums.CaptchaStage;
+
+import java.util.Objects;
+
+/**
+ * A snapshot of the times recorded for one stage of creating a captcha. Percentiles are estimated
+ * from a histogram and are therefore approximate.
+ */
+public class StageStatistics {
+
+    /**
+     * The stage the times were recorded for.
+     */
+    private final CaptchaStage stage;
+
+    /**
+     * The number of recorded times.
+     */
+    private final long count;
+
+    /**
+     * The sum of the recorded times, in nanoseconds.
+     */
+    private final long totalNanos;
+
+    /**
+     * The longest recorded time, in nanoseconds.
+     */
+    private final long maxNanos;
+
+    /**
+     * The estimated median time, in nanoseconds.
+     */
+    private final long p50Nanos;
+
+    /**
+     * The estimated 90th percentile time, in nanoseconds.
+     */
+    private final long p90Nanos;
+
+    /**
+     * The estimated 99th percentile time, in nanoseconds.
+     */
+    private final long p99Nanos;
+
+    /**
+     * Creates a new {@link StageStatistics}.
+     *
+     * @param stage      the stage the times were recorded for
+     * @param count      the number of recorded times
+     * @param totalNanos the sum of the recorded times
+     * @param maxNanos   the longest recorded time
+     * @param p50Nanos   the estimated median time
+     * @param p90Nanos   the estimated 90th percentile time
+     * @param p99Nanos   the estimated 99th percentile time
+     */
+    private StageStatistics(
+            CaptchaStage stage,
+            long count,
+            long totalNanos,
+            long maxNanos,
+            long p50Nanos,
+            long p90Nanos,
+            long p99Nanos
+    ) {
+        this.stage = stage;
+        this.count = count;
+        this.totalNanos = totalNanos;
+        this.maxNanos = maxNanos;
+        this.p50Nanos = p50Nanos;
+        this.p90Nanos = p90Nanos;
+        this.p99Nanos = p99Nanos;
+    }
+
+    /**
+     * Returns the stage the times were recorded for.
+     *
+     * @return the stage
+     */
+    public CaptchaStage getStage() {
+        return stage;
+    }
+
+    /**
+     * Returns the number of recorded times.
+     *
+     * @return the number of recorded times
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Returns the sum of the recorded times.
+     *
+     * @return the sum of the recorded times, in nanoseconds
+     */
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    /**
+     * Returns the mean of the recorded times.
+     *
+     * @return the mean time in nanoseconds, or 0 if no time was recorded
+     */
+    public double getMeanNanos() {
+        return count == 0 ? 0d : (double) totalNanos / count;
+    }
+
+    /**
+     * Returns the longest recorded time.
+     *
+     * @return the longest recorded time, in nanoseconds
+     */
+    public long getMaxNanos() {
+        return maxNanos;
+    }
+
+    /**
+     * Returns the estimated median time.
+     *
+     * @return the estimated median time, in nanoseconds
+     */
+    public long getP50Nanos() {
+        return p50Nanos;
+    }
+
+    /**
+     * Returns the estimated 90th percentile time.
+     *
+     * @return the estimated 90th percentile time, in nanoseconds
+     */
+    public long getP90Nanos() {
+        return p90Nanos;
+    }
+
+    /**
+     * Returns the estimated 99th percentile time.
+     *
+     * @return the estimated 99th percentile time, in nanoseconds
+     */
+    public long getP99Nanos() {
+        return p99Nanos;
+    }
+
+    /**
+     * Creates a new {@link StageStatisticsBuilder}.
+     *
+     * @return a new {@link StageStatisticsBuilder}
+     */
+    public static StageStatisticsBuilder builder() {
+        return new StageStatisticsBuilder();
+    }
+
+    /**
+     * A builder for creating {@link StageStatistics} instances.
+     */
+    public static class StageStatisticsBuilder {
+        private CaptchaStage stage;
+        private long count;
+        private long totalNanos;
+        private long maxNanos;
+        private long p50Nanos;
+        private long p90Nanos;
+        private long p99Nanos;
+
+        private StageStatisticsBuilder() {
+        }
+
+        /**
+         * Sets the stage the times were recorded for.
+         *
+         * @param stage the stage
+         * @return this builder
+         */
+        public StageStatisticsBuilder stage(CaptchaStage stage) {
+            if (Objects.isNull(stage)) {
+                throw new IllegalArgumentException("Stage should not be null.");
+            }
+
+            this.stage = stage;
+            return this;
+        }
+
+        /**
+         * Sets the number of recorded times.
+         *
+         * @param count the number of recorded times
+         * @return this builder
+         */
+        public StageStatisticsBuilder count(long count) {
+            this.count = count;
+            return this;
+        }
+
+        /**
+         * Sets the sum of the recorded times.
+         *
+         * @param totalNanos the sum of the recorded times, in nanoseconds
+         * @return this builder
+         */
+        public StageStatisticsBuilder totalNanos(long totalNanos) {
+            this.totalNanos = totalNanos;
+            return this;
+        }
+
+        /**
+         * Sets the longest recorded time.
+         *
+         * @param maxNanos the longest recorded time, in nanoseconds
+         * @return this builder
+         */
+        public StageStatisticsBuilder maxNanos(long maxNanos) {
+            this.maxNanos = maxNanos;
+            return this;
+        }
+
+        /**
+         * Sets the estimated median time.
+         *
+         * @param p50Nanos the estimated median time, in nanoseconds
+         * @return this builder
+         */
+        public StageStatisticsBuilder p50Nanos(long p50Nanos) {
+            this.p50Nanos = p50Nanos;
+            return this;
+        }
+
+        /**
+         * Sets the estimated 90th percentile time.
+         *
+         * @param p90Nanos the estimated 90th percentile time, in nanoseconds
+         * @return this builder
+         */
+        public StageStatisticsBuilder p90Nanos(long p90Nanos) {
+            this.p90Nanos = p90Nanos;
+            return this;
+        }
+
+        /**
+         * Sets the estimated 99th percentile time.
+         *
+         * @param p99Nanos the estimated 99th percentile time, in nanoseconds
+         * @return this builder
+         */
+        public StageStatisticsBuilder p99Nanos(long p99Nanos) {
+            this.p99Nanos = p99Nanos;
+            return this;
+        }
+
+        /**
+         * Builds a new {@link StageStatistics} with the configured properties.
+         *
+         * @return a new {@link StageStatistics}
+         */
+        public StageStatistics build() {
+            if (Objects.isNull(stage)) {
+                throw new IllegalStateException("Stage should be set.");
+            }
+
+            return new StageStatistics(stage, count, totalNanos, maxNanos, p50Nanos, p90Nanos, p99Nanos);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2024-2025 OnixByte
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.onixbyte.captcha.metrics.enums;
+
+/**
+ * The stages of creating a captcha which are reported to a
+ * {@link com.onixbyte.captcha.metrics.CaptchaMetricsListener}.
+ */
+public enum CaptchaStage {
+
+    /**
+     * Generating the text of the captcha.
+     */
+    TEXT_GENERATION,
+
+    /**
+     * Rendering the text onto an image.
+     */
+    WORD_RENDERING,
+
+    /**
+     * Distorting the rendered text.
+     */
+    DISTORTION,
+
+    /**
+     * Adding noise to the distorted text.
+     */
+    NOISE,
+
+    /**
+     * Adding the background.
+     */
+    BACKGROUND,
+
+    /**
+     * Drawing the border.
+     */
+    BORDER,
+
+    /**
+     * Encoding the finished image.
+     */
+    ENCODING
+}
@@ -0,0 +1,306 @@
+/*
+ * Copyright (c) 2024-2025 OnixByte
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.onixbyte.captcha.metrics.impl;
+
+import com.onixbyte.captcha.metrics.CaptchaMetricsListener;
+import com.onixbyte.captcha.metrics.CaptchaMetricsMXBean;
+import com.onixbyte.captcha.metrics.StageStatistics;
+import com.onixbyte.captcha.metrics.enums.CaptchaStage;
+
+import javax.management.InstanceNotFoundException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A {@link CaptchaMetricsListener} aggregating the reported times of each stage into a histogram,
+ * which can be read directly or published as a {@link CaptchaMetricsMXBean}.
+ * <p>
+ * Recording a time only increments a few {@link LongAdder}s, so that threads reporting at the same
+ * time rarely contend. Each histogram has four buckets per power of two, which bounds the error of
+ * the estimated percentiles to an eighth of their value.
+ */
+public class HistogramMetricsListener implements CaptchaMetricsListener, CaptchaMetricsMXBean {
+
+    /**
+     * The histogram of each stage, indexed by the ordinal of the stage.
+     */
+    private final Histogram[] histograms;
+
+    /**
+     * The name the listener is registered under.
+     */
+    private final ObjectName objectName;
+
+    /**
+     * Creates a new {@link HistogramMetricsListener}.
+     *
+     * @param objectName the name the listener is registered under
+     */
+    private HistogramMetricsListener(ObjectName objectName) {
+        this.objectName = objectName;
+        CaptchaStage[] stages = CaptchaStage.values();
+        this.histograms = new Histogram[stages.length];
+        for (int i = 0; i < stages.length; i++) {
+            histograms[i] = new Histogram();
+        }
+    }
+
+    /**
+     * Records the time spent in a stage.
+     *
+     * @param stage the completed stage
+     * @param nanos the time spent in the stage, in nanoseconds
+     */
+    @Override
+    public void onStage(CaptchaStage stage, long nanos) {
+        histograms[stage.ordinal()].record(nanos);
+    }
+
+    /**
+     * Returns the statistics of a stage.
+     *
+     * @param stage the stage
+     * @return the statistics of the stage
+     */
+    public StageStatistics getStageStatistics(CaptchaStage stage) {
+        return histograms[stage.ordinal()].snapshot(stage);
+    }
+
+    /**
+     * Returns the statistics of every stage, in the order the stages run in.
+     *
+     * @return the statistics of every stage
+     */
+    @Override
+    public List<StageStatistics> getStageStatistics() {
+        CaptchaStage[] stages = CaptchaStage.values();
+        List<StageStatistics> statistics = new ArrayList<>(stages.length);
+        for (CaptchaStage stage : stages) {
+            statistics.add(getStageStatistics(stage));
+        }
+        return Collections.unmodifiableList(statistics);
+    }
+
+    /**
+     * Discards every recorded time. Times recorded while resetting may be partially kept.
+     */
+    @Override
+    public void reset() {
+        for (Histogram histogram : histograms) {
+            histogram.reset();
+        }
+    }
+
+    /**
+     * Returns the name the listener is registered under.
+     *
+     * @return the object name of the listener
+     */
+    public ObjectName getObjectName() {
+        return objectName;
+    }
+
+    /**
+     * Registers the listener with the platform MBean server.
+     *
+     * @throws IllegalStateException if the listener cannot be registered, for example because
+     *                               another MBean is registered under the same name
+     */
+    public void register() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+        } catch (JMException e) {
+            throw new IllegalStateException("Cannot register captcha metrics as " + objectName + ".", e);
+        }
+    }
+
+    /**
+     * Unregisters the listener from the platform MBean server, if it is registered.
+     */
+    public void unregister() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            server.unregisterMBean(objectName);
+        } catch (InstanceNotFoundException e) {
+            // not registered, nothing to do
+        } catch (JMException e) {
+            throw new IllegalStateException("Cannot unregister captcha metrics " + objectName + ".", e);
+        }
+    }
+
+    /**
+     * Creates a new {@link HistogramMetricsListenerBuilder}.
+     *
+     * @return a new {@link HistogramMetricsListenerBuilder}
+     */
+    public static HistogramMetricsListenerBuilder builder() {
+        return new HistogramMetricsListenerBuilder();
+    }
+
+    /**
+     * A histogram of times with four buckets per power of two. Values below 4 have a bucket each.
+     */
+    private static final class Histogram {
+        private static final int BUCKETS = 256;
+
+        private final LongAdder count = new LongAdder();
+        private final LongAdder total = new LongAdder();
+        private final LongAccumulator max = new LongAccumulator(Math::max, 0L);
+        private final LongAdder[] buckets = new LongAdder[BUCKETS];
+
+        private Histogram() {
+            for (int i = 0; i < BUCKETS; i++) {
+                buckets[i] = new LongAdder();
+            }
+        }
+
+        private void record(long nanos) {
+            long value = Math.max(nanos, 0L);
+            count.increment();
+            total.add(value);
+            max.accumulate(value);
+            buckets[bucketOf(value)].increment();
+        }
+
+        private void reset() {
+            count.reset();
+            total.reset();
+            max.reset();
+            for (LongAdder bucket : buckets) {
+                bucket.reset();
+            }
+        }
+
+        private StageStatistics snapshot(CaptchaStage stage) {
+            long[] counts = new long[BUCKETS];
+            long recorded = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                counts[i] = buckets[i].sum();
+                recorded += counts[i];
+            }
+            long maxNanos = max.get();
+
+            return StageStatistics.builder()
+                    .stage(stage)
+                    .count(count.sum())
+                    .totalNanos(total.sum())
+                    .maxNanos(maxNanos)
+                    .p50Nanos(percentile(counts, recorded, 0.5, maxNanos))
+                    .p90Nanos(percentile(counts, recorded, 0.9, maxNanos))
+                    .p99Nanos(percentile(counts, recorded, 0.99, maxNanos))
+                    .build();
+        }
+
+        /**
+         * Estimates a percentile as the middle of the bucket holding it, capped at the maximum.
+         */
+        private static long percentile(long[] counts, long recorded, double quantile, long maxNanos) {
+            if (recorded == 0) {
+                return 0L;
+            }
+
+            long rank = (long) Math.ceil(recorded * quantile);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    long lower = lowerBound(i);
+                    long upper = lowerBound(i + 1);
+                    return Math.min(lower + (upper - lower) / 2, maxNanos);
+                }
+            }
+            return maxNanos;
+        }
+
+        private static int bucketOf(long value) {
+            if (value < 4) {
+                return (int) value;
+            }
+            int exponent = 63 - Long.numberOfLeadingZeros(value);
+            int mantissa = (int) (value >>> (exponent - 2)) & 3;
+            return (exponent - 1) * 4 + mantissa;
+        }
+
+        private static long lowerBound(int bucket) {
+            if (bucket < 4) {
+                return bucket;
+            }
+            int exponent = bucket / 4 + 1;
+            int mantissa = bucket % 4;
+            if (exponent >= 63) {
+                return Long.MAX_VALUE;
+            }
+            return (long) (4 + mantissa) << (exponent - 2);
+        }
+    }
+
+    /**
+     * A builder for creating {@link HistogramMetricsListener} instances.
+     */
+    public static class HistogramMetricsListenerBuilder {
+        private String objectName;
+
+        private HistogramMetricsListenerBuilder() {
+            this.objectName = "com.onixbyte.captcha:type=CaptchaMetrics";
+        }
+
+        /**
+         * Sets the name the listener is registered under with the platform MBean server. Every
+         * listener registered at the same time needs a distinct name.
+         *
+         * @param objectName the object name
+         * @return this builder
+         */
+        public HistogramMetricsListenerBuilder objectName(String objectName) {
+            if (Objects.isNull(objectName)) {
+                throw new IllegalArgumentException("Object name should not be null.");
+            }
+
+            this.objectName = objectName;
+            return this;
+        }
+
+        /**
+         * Builds a new {@link HistogramMetricsListener} with the configured properties. The
+         * listener is not registered until {@link HistogramMetricsListener#register()} is called.
+         *
+         * @return a new {@link HistogramMetricsListener}
+         */
+        public HistogramMetricsListener build() {
+            try {
+                return new HistogramMetricsListener(new ObjectName(objectName));
+            } catch (MalformedObjectNameException e) {
+                throw new IllegalArgumentException("Object name is malformed.", e);
+            }
+        }
+    }
+}
@@ -23,29 +23,73 @@
 package com.onixbyte.captcha.noise.impl;
 
 import com.onixbyte.captcha.noise.NoiseProducer;
+import com.onixbyte.captcha.random.RandomSource;
+import com.onixbyte.captcha.random.impl.FastRandomSource;
+import com.onixbyte.captcha.util.RasterUtils;
 
 import java.awt.*;
-import java.awt.geom.CubicCurve2D;
-import java.awt.geom.PathIterator;
-import java.awt.geom.Point2D;
 import java.awt.image.BufferedImage;
-import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Objects;
 import java.util.Random;
 
 /**
  * The default implementation of {@link NoiseProducer}.
+ * <p>
+ * The noise is a cubic Bezier curve, flattened into line segments by forward differencing and
+ * drawn thicker at its start. On packed integer images the segments are plotted straight into the
+ * pixel array, each pixel near a segment being blended with the noise colour by how much of it
+ * the segment covers, so that drawing allocates nothing and creates no Java2D objects. Other
+ * images are drawn on through Java2D.
  */
 public class DefaultNoiseProducer implements NoiseProducer {
 
+    private static final RenderingHints HINTS = new RenderingHints(
+            RenderingHints.KEY_ANTIALIASING,
+            RenderingHints.VALUE_ANTIALIAS_ON);
+
+    /**
+     * The widths of the first three segments of the curve, getting thinner towards its end. The
+     * remaining segments are as wide as the third.
+     */
+    private static final float[] WIDTHS = {0.9f * 4, 0.9f * 3, 0.9f * 2};
+
+    /**
+     * The strokes of the first three segments of the curve, when drawing through Java2D.
+     */
+    private static final BasicStroke[] STROKES = {
+            new BasicStroke(WIDTHS[0]),
+            new BasicStroke(WIDTHS[1]),
+            new BasicStroke(WIDTHS[2])
+    };
+
+    /**
+     * The greatest distance, in pixels, between the curve and the segments it is flattened into.
+     */
+    private static final double FLATNESS = 2;
+
+    /**
+     * The greatest number of segments a curve is flattened into.
+     */
+    private static final int MAX_SEGMENTS = 1024;
+
+    /**
+     * The scratch storage of each thread, reused by every curve drawn on that thread.
+     */
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
     private final Color noiseColour;
+    private final RandomSource randomSource;
 
     /**
      * Creates a new {@link DefaultNoiseProducer} with the given noise colour.
      *
-     * @param noiseColour the colour of the noise
+     * @param noiseColour  the colour of the noise
+     * @param randomSource the source of the random curve points
      */
-    private DefaultNoiseProducer(Color noiseColour) {
+    private DefaultNoiseProducer(Color noiseColour, RandomSource randomSource) {
         this.noiseColour = noiseColour;
+        this.randomSource = randomSource;
     }
 
     /**
@@ -64,59 +108,254 @@ public class DefaultNoiseProducer implements NoiseProducer {
         int width = image.getWidth();
         int height = image.getHeight();
 
-        // the points where the line changes the stroke and direction
-        Point2D[] points;
-        Random rand = new SecureRandom();
-
-        // the curve from where the points are taken
-        CubicCurve2D cubicCurve = new CubicCurve2D.Float(
-                width * factorOne, height * rand.nextFloat(),
-                width * factorTwo, height * rand.nextFloat(),
-                width * factorThree, height * rand.nextFloat(),
-                width * factorFour, height * rand.nextFloat()
-        );
-
-        // creates an iterator to define the boundary of the flattened curve
-        PathIterator pi = cubicCurve.getPathIterator(null, 2);
-        Point2D[] tmp = new Point2D[200];
-        int i = 0;
-
-        // while pi is iterating the curve, adds points to tmp array
-        while (!pi.isDone()) {
-            float[] coords = new float[6];
-            switch (pi.currentSegment(coords)) {
-                case PathIterator.SEG_MOVETO:
-                case PathIterator.SEG_LINETO:
-                    tmp[i] = new Point2D.Float(coords[0], coords[1]);
+        Scratch scratch = SCRATCH.get();
+        Random rand = randomSource.current();
+
+        // the control points of the curve
+        float x0 = width * factorOne;
+        float y0 = height * rand.nextFloat();
+        float x1 = width * factorTwo;
+        float y1 = height * rand.nextFloat();
+        float x2 = width * factorThree;
+        float y2 = height * rand.nextFloat();
+        float x3 = width * factorFour;
+        float y3 = height * rand.nextFloat();
+
+        int count = flatten(scratch, x0, y0, x1, y1, x2, y2, x3, y3);
+
+        int[] pixels = RasterUtils.pixels(image);
+        if (Objects.nonNull(pixels)) {
+            boolean alpha = image.getType() == BufferedImage.TYPE_INT_ARGB;
+            for (int i = 0; i < count - 1; i++) {
+                plotSegment(pixels, width, height, alpha,
+                        scratch.xs[i], scratch.ys[i], scratch.xs[i + 1], scratch.ys[i + 1],
+                        WIDTHS[Math.min(i, WIDTHS.length - 1)]);
             }
-            i++;
-            pi.next();
+            return;
         }
 
-        points = new Point2D[i];
-        System.arraycopy(tmp, 0, points, 0, i);
-
-        Graphics2D graph = (Graphics2D) image.getGraphics();
-        graph.setRenderingHints(new RenderingHints(
-                RenderingHints.KEY_ANTIALIASING,
-                RenderingHints.VALUE_ANTIALIAS_ON));
+        Graphics2D graph = image.createGraphics();
+        graph.setRenderingHints(HINTS);
 
         graph.setColor(noiseColour);
 
         // for the maximum 3 point change the stroke and direction
-        for (i = 0; i < points.length - 1; i++) {
-            if (i < 3) {
-                graph.setStroke(new BasicStroke(0.9f * (4 - i)));
+        for (int i = 0; i < count - 1; i++) {
+            if (i < STROKES.length) {
+                graph.setStroke(STROKES[i]);
             }
-            graph.drawLine(
-                    (int) points[i].getX(), (int) points[i].getY(),
-                    (int) points[i + 1].getX(), (int) points[i + 1].getY()
-            );
+            graph.drawLine((int) scratch.xs[i], (int) scratch.ys[i], (int) scratch.xs[i + 1], (int) scratch.ys[i + 1]);
         }
 
         graph.dispose();
     }
 
+    /**
+     * Flattens the cubic Bezier curve with the given control points into the point buffers of the
+     * scratch storage, stepping along it by forward differencing.
+     *
+     * @return the number of points
+     */
+    private static int flatten(Scratch scratch, float x0, float y0, float x1, float y1,
+                               float x2, float y2, float x3, float y3) {
+        // the number of segments keeping them within the flatness of the curve, after Wang
+        double bendX = Math.max(Math.abs(x0 - 2 * x1 + x2), Math.abs(x1 - 2 * x2 + x3));
+        double bendY = Math.max(Math.abs(y0 - 2 * y1 + y2), Math.abs(y1 - 2 * y2 + y3));
+        double bend = Math.sqrt(bendX * bendX + bendY * bendY);
+        int segments = (int) Math.ceil(Math.sqrt(0.75 * bend / FLATNESS));
+        segments = Math.max(1, Math.min(MAX_SEGMENTS, segments));
+        scratch.ensureCapacity(segments + 1);
+
+        // the polynomial coefficients of the curve, and its differences for the step
+        double step = 1.0 / segments;
+        double step2 = step * step;
+        double step3 = step2 * step;
+        double ax = -x0 + 3 * x1 - 3 * x2 + x3;
+        double ay = -y0 + 3 * y1 - 3 * y2 + y3;
+        double bx = 3 * x0 - 6 * x1 + 3 * x2;
+        double by = 3 * y0 - 6 * y1 + 3 * y2;
+        double cx = 3 * (x1 - x0);
+        double cy = 3 * (y1 - y0);
+
+        double x = x0;
+        double y = y0;
+        double dx = ax * step3 + bx * step2 + cx * step;
+        double dy = ay * step3 + by * step2 + cy * step;
+        double ddx = 6 * ax * step3 + 2 * bx * step2;
+        double ddy = 6 * ay * step3 + 2 * by * step2;
+        double dddx = 6 * ax * step3;
+        double dddy = 6 * ay * step3;
+
+        float[] xs = scratch.xs;
+        float[] ys = scratch.ys;
+        xs[0] = x0;
+        ys[0] = y0;
+        for (int i = 1; i < segments; i++) {
+            x += dx;
+            y += dy;
+            dx += ddx;
+            dy += ddy;
+            ddx += dddx;
+            ddy += dddy;
+            xs[i] = (float) x;
+            ys[i] = (float) y;
+        }
+        // the last point is exact, whatever the rounding errors accumulated on the way
+        xs[segments] = x3;
+        ys[segments] = y3;
+        return segments + 1;
+    }
+
+    /**
+     * Plots an anti-aliased line segment of the given width with round ends into the pixels of an
+     * image. Walking along the major axis of the segment, each pixel across it is blended with the
+     * noise colour by how much of the pixel the segment covers, estimated from the distance between
+     * its centre and the segment. Alongside the segment, that distance is the distance to its line,
+     * which changes by a constant step from one pixel to the next; only pixels beyond its ends
+     * need the distance to the nearest end.
+     */
+    private void plotSegment(int[] pixels, int width, int height, boolean alpha,
+                             float fromX, float fromY, float toX, float toY, float lineWidth) {
+        float halfWidth = lineWidth / 2;
+        float dx = toX - fromX;
+        float dy = toY - fromY;
+        float length2 = dx * dx + dy * dy;
+        float inverseLength2 = length2 > 0 ? 1 / length2 : 0;
+        // the unit normal of the segment
+        float length = (float) Math.sqrt(length2);
+        float normalX = length > 0 ? -dy / length : 0;
+        float normalY = length > 0 ? dx / length : 0;
+        int colour = noiseColour.getRGB();
+        boolean steep = Math.abs(dy) > Math.abs(dx);
+
+        // the major and minor coordinates of both ends, and the slope of the minor over the major
+        float majorFrom = steep ? fromY : fromX;
+        float majorTo = steep ? toY : toX;
+        float minorFrom = steep ? fromX : fromY;
+        float minorTo = steep ? toX : toY;
+        if (majorTo < majorFrom) {
+            float swap = majorFrom;
+            majorFrom = majorTo;
+            majorTo = swap;
+            swap = minorFrom;
+            minorFrom = minorTo;
+            minorTo = swap;
+        }
+        float slope = majorTo > majorFrom ? (minorTo - minorFrom) / (majorTo - majorFrom) : 0;
+        // pixels whose centres are further from the segment than this are not covered at all
+        float outer = halfWidth + 0.5f;
+        float outer2 = outer * outer;
+        // how far across the segment, along the minor axis, pixels may be covered
+        float reach = outer * (float) Math.sqrt(1 + slope * slope);
+
+        int majorLength = steep ? height : width;
+        int minorLength = steep ? width : height;
+        // the steps of the distance to the line, of the position along the segment, from 0 at its
+        // start to 1 at its end, and of the index, from one pixel across the segment to the next
+        float distanceStep = steep ? normalX : normalY;
+        float positionStep = (steep ? dx : dy) * inverseLength2;
+        int indexStep = steep ? 1 : width;
+        // the float versions of Math.min, Math.max, Math.floor and Math.ceil are not intrinsic on
+        // every virtual machine and cost more than the rest of the loop, so plain comparisons and
+        // casts are used instead; pixels taken in by truncating towards zero are not covered
+        int firstMajor = Math.max(0, (int) (majorFrom - outer + 0.5f));
+        int lastMajor = Math.min(majorLength - 1, (int) (majorTo + outer - 0.5f));
+        for (int major = firstMajor; major <= lastMajor; major++) {
+            float along = major + 0.5f;
+            along = along < majorFrom ? majorFrom : (along > majorTo ? majorTo : along);
+            float minor = minorFrom + (along - majorFrom) * slope;
+            int firstMinor = Math.max(0, (int) (minor - reach + 0.5f));
+            int lastMinor = Math.min(minorLength - 1, (int) (minor + reach - 0.5f));
+            if (firstMinor > lastMinor) {
+                continue;
+            }
+
+            float offsetX = (steep ? firstMinor : major) + 0.5f - fromX;
+            float offsetY = (steep ? major : firstMinor) + 0.5f - fromY;
+            float lineDistance = offsetX * normalX + offsetY * normalY;
+            // a segment of no length is all ends
+            float position = length2 > 0 ? (offsetX * dx + offsetY * dy) * inverseLength2 : -1;
+            int index = steep ? major * width + firstMinor : firstMinor * width + major;
+            for (int across = firstMinor; across <= lastMinor; across++) {
+                float distance;
+                if (position >= 0 && position <= 1) {
+                    distance = lineDistance < 0 ? -lineDistance : lineDistance;
+                } else {
+                    float endX = (steep ? across : major) + 0.5f - (position < 0 ? fromX : toX);
+                    float endY = (steep ? major : across) + 0.5f - (position < 0 ? fromY : toY);
+                    float distance2 = endX * endX + endY * endY;
+                    distance = distance2 < outer2 ? (float) Math.sqrt(distance2) : outer;
+                }
+
+                if (distance < outer) {
+                    int coverage = Math.min(0xff, (int) ((outer - distance) * 0xff + 0.5f));
+                    pixels[index] = blend(pixels[index], colour, coverage, alpha);
+                }
+
+                lineDistance += distanceStep;
+                position += positionStep;
+                index += indexStep;
+            }
+        }
+    }
+
+    /**
+     * Blends a colour over a packed pixel, the colour being weighted by the given coverage between
+     * 0 and 255.
+     */
+    private static int blend(int pixel, int colour, int coverage, boolean alpha) {
+        int sourceAlpha = divide255((colour >>> 24) * coverage);
+        if (sourceAlpha == 0) {
+            return pixel;
+        }
+
+        int targetAlpha = alpha ? pixel >>> 24 : 0xff;
+        if (targetAlpha == 0xff) {
+            // the most common case, over the text or an opaque background, needs no division
+            int keptAlpha = 0xff - sourceAlpha;
+            int red = divide255((colour >> 16 & 0xff) * sourceAlpha + (pixel >> 16 & 0xff) * keptAlpha);
+            int green = divide255((colour >> 8 & 0xff) * sourceAlpha + (pixel >> 8 & 0xff) * keptAlpha);
+            int blue = divide255((colour & 0xff) * sourceAlpha + (pixel & 0xff) * keptAlpha);
+            return pixel & 0xff000000 | red << 16 | green << 8 | blue;
+        }
+
+        int keptAlpha = divide255(targetAlpha * (0xff - sourceAlpha));
+        if (keptAlpha == 0) {
+            return sourceAlpha << 24 | colour & 0xffffff;
+        }
+
+        int outAlpha = sourceAlpha + keptAlpha;
+        int half = outAlpha >> 1;
+        int red = ((colour >> 16 & 0xff) * sourceAlpha + (pixel >> 16 & 0xff) * keptAlpha + half) / outAlpha;
+        int green = ((colour >> 8 & 0xff) * sourceAlpha + (pixel >> 8 & 0xff) * keptAlpha + half) / outAlpha;
+        int blue = ((colour & 0xff) * sourceAlpha + (pixel & 0xff) * keptAlpha + half) / outAlpha;
+        return (alpha ? outAlpha << 24 : pixel & 0xff000000) | red << 16 | green << 8 | blue;
+    }
+
+    /**
+     * Divides a product of two bytes, or a sum of such products weighted to at most 255 * 255, by
+     * 255, rounding to the nearest integer.
+     */
+    private static int divide255(int value) {
+        value += 0x80;
+        return (value + (value >> 8)) >> 8;
+    }
+
+    /**
+     * The point buffers of a thread, grown when a curve flattens into more points than they hold.
+     */
+    private static final class Scratch {
+        private float[] xs = new float[64];
+        private float[] ys = new float[64];
+
+        private void ensureCapacity(int capacity) {
+            if (xs.length < capacity) {
+                xs = Arrays.copyOf(xs, Math.max(capacity, xs.length * 2));
+                ys = Arrays.copyOf(ys, xs.length);
+            }
+        }
+    }
+
     /**
      * Creates a new {@link DefaultNoiseProducerBuilder}.
      *
@@ -131,9 +370,11 @@ public class DefaultNoiseProducer implements NoiseProducer {
      */
     public static class DefaultNoiseProducerBuilder {
         private Color noiseColour;
+        private RandomSource randomSource;
 
         private DefaultNoiseProducerBuilder() {
             this.noiseColour = Color.BLACK;
+            this.randomSource = FastRandomSource.builder().build();
         }
 
         /**
@@ -147,13 +388,29 @@ public class DefaultNoiseProducer implements NoiseProducer {
             return this;
         }
 
+        /**
+         * Sets the source of the random numbers the noise curves are drawn from. Defaults to a
+         * {@link FastRandomSource}.
+         *
+         * @param randomSource the random source
+         * @return this builder
+         */
+        public DefaultNoiseProducerBuilder randomSource(RandomSource randomSource) {
+            if (Objects.isNull(randomSource)) {
+                throw new IllegalArgumentException("Random source should not be null.");
+            }
+
+            this.randomSource = randomSource;
+            return this;
+        }
+
         /**
          * Builds a new {@link DefaultNoiseProducer} with the configured properties.
          *
          * @return a new {@link DefaultNoiseProducer}
          */
         public DefaultNoiseProducer build() {
-            return new DefaultNoiseProducer(noiseColour);
+            return new DefaultNoiseProducer(noiseColour, randomSource);
         }
     }
 }
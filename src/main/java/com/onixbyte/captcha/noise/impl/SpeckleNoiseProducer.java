@@ -0,0 +1,286 @@
+/*
+ * Copyright (c) 2024-2025 OnixByte
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.onixbyte.captcha.noise.impl;
+
+import com.onixbyte.captcha.noise.NoiseProducer;
+import com.onixbyte.captcha.noise.enums.SpeckleStyle;
+import com.onixbyte.captcha.random.RandomSource;
+import com.onixbyte.captcha.random.impl.FastRandomSource;
+import com.onixbyte.captcha.util.RasterUtils;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.Objects;
+
+/**
+ * A {@link NoiseProducer} scattering small marks over the whole image, either single pixels, dots
+ * or short dashes, to break up the clean edges optical character recognition relies on.
+ * <p>
+ * On packed integer images the marks are written straight into the pixel array, their positions
+ * being drawn from a generator seeded once per call from the random source, so that a call costs
+ * a few nanoseconds per mark and allocates nothing. Other images are written to pixel by pixel.
+ * The colours are written as they are, without blending.
+ * <p>
+ * This class is immutable and safe for use by multiple threads.
+ */
+public class SpeckleNoiseProducer implements NoiseProducer {
+
+    /**
+     * The number of pixels in a dash.
+     */
+    private static final int DASH_LENGTH = 4;
+
+    /**
+     * The horizontal steps between the pixels of a dash, by direction.
+     */
+    private static final int[] DASH_STEPS_X = {1, 0, 1, -1};
+
+    /**
+     * The vertical steps between the pixels of a dash, by direction.
+     */
+    private static final int[] DASH_STEPS_Y = {0, 1, 1, 1};
+
+    /**
+     * The increment of the generator state, the odd integer closest to 2^64 divided by the golden
+     * ratio.
+     */
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    private final SpeckleStyle style;
+    private final float density;
+    private final int noiseColour;
+    private final int saltColour;
+    private final RandomSource randomSource;
+
+    /**
+     * Creates a new {@link SpeckleNoiseProducer}.
+     *
+     * @param style        the shape of the marks
+     * @param density      the number of marks per pixel of the image
+     * @param noiseColour  the colour of the marks
+     * @param saltColour   the colour of every other single pixel in salt-and-pepper noise
+     * @param randomSource the source of the seed the marks are placed from
+     */
+    private SpeckleNoiseProducer(SpeckleStyle style, float density, Color noiseColour, Color saltColour,
+                                 RandomSource randomSource) {
+        this.style = style;
+        this.density = density;
+        this.noiseColour = noiseColour.getRGB();
+        this.saltColour = saltColour.getRGB();
+        this.randomSource = randomSource;
+    }
+
+    /**
+     * Scatters marks over the whole image, as many as the density gives for its size. The factors
+     * are ignored, since the marks are not placed along a curve.
+     *
+     * @param image       the image to add the noise to
+     * @param factorOne   ignored
+     * @param factorTwo   ignored
+     * @param factorThree ignored
+     * @param factorFour  ignored
+     */
+    @Override
+    public void makeNoise(BufferedImage image, float factorOne, float factorTwo, float factorThree, float factorFour) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int count = (int) (width * (long) height * density + 0.5f);
+        if (count == 0) {
+            return;
+        }
+
+        int[] pixels = RasterUtils.pixels(image);
+        long state = randomSource.current().nextLong();
+        for (int i = 0; i < count; i++) {
+            state += GOLDEN_GAMMA;
+            long bits = mix(state);
+            int high = (int) (bits >>> 32);
+            int low = (int) bits;
+
+            // scale each half of the bits to a coordinate without a division
+            int x = (int) (((high & 0xffffffffL) * width) >>> 32);
+            int y = (int) (((low & 0xffffffffL) * height) >>> 32);
+
+            switch (style) {
+                case SALT_AND_PEPPER:
+                    plot(image, pixels, width, height, x, y, (low & 1) == 0 ? noiseColour : saltColour);
+                    break;
+                case DOTS:
+                    plot(image, pixels, width, height, x, y, noiseColour);
+                    plot(image, pixels, width, height, x + 1, y, noiseColour);
+                    plot(image, pixels, width, height, x, y + 1, noiseColour);
+                    plot(image, pixels, width, height, x + 1, y + 1, noiseColour);
+                    break;
+                default:
+                    int direction = high & 3;
+                    int stepX = DASH_STEPS_X[direction];
+                    int stepY = DASH_STEPS_Y[direction];
+                    for (int j = 0; j < DASH_LENGTH; j++) {
+                        plot(image, pixels, width, height, x + j * stepX, y + j * stepY, noiseColour);
+                    }
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Sets a pixel to the given colour, if it lies inside the image.
+     */
+    private static void plot(BufferedImage image, int[] pixels, int width, int height, int x, int y, int colour) {
+        if (x < 0 || y < 0 || x >= width || y >= height) {
+            return;
+        }
+
+        if (Objects.nonNull(pixels)) {
+            pixels[y * width + x] = colour;
+        } else {
+            image.setRGB(x, y, colour);
+        }
+    }
+
+    /**
+     * Mixes the bits of the generator state into a well distributed value, as the SplitMix64
+     * generator does.
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Creates a new {@link SpeckleNoiseProducerBuilder}.
+     *
+     * @return a new {@link SpeckleNoiseProducerBuilder}
+     */
+    public static SpeckleNoiseProducerBuilder builder() {
+        return new SpeckleNoiseProducerBuilder();
+    }
+
+    /**
+     * A builder for creating {@link SpeckleNoiseProducer} instances.
+     */
+    public static class SpeckleNoiseProducerBuilder {
+        private SpeckleStyle style;
+        private float density;
+        private Color noiseColour;
+        private Color saltColour;
+        private RandomSource randomSource;
+
+        private SpeckleNoiseProducerBuilder() {
+            this.style = SpeckleStyle.SALT_AND_PEPPER;
+            this.density = 0.01f;
+            this.noiseColour = Color.BLACK;
+            this.saltColour = Color.WHITE;
+            this.randomSource = FastRandomSource.builder().build();
+        }
+
+        /**
+         * Sets the shape of the marks. Defaults to {@link SpeckleStyle#SALT_AND_PEPPER}.
+         *
+         * @param style the speckle style
+         * @return this builder
+         */
+        public SpeckleNoiseProducerBuilder style(SpeckleStyle style) {
+            if (Objects.isNull(style)) {
+                throw new IllegalArgumentException("Style should not be null.");
+            }
+
+            this.style = style;
+            return this;
+        }
+
+        /**
+         * Sets the number of marks scattered per pixel of the image on each call. Defaults to
+         * 0.01, that is 100 marks on a 200 by 50 image.
+         *
+         * @param density the density, between 0 and 1
+         * @return this builder
+         */
+        public SpeckleNoiseProducerBuilder density(float density) {
+            if (!(density >= 0f && density <= 1f)) {
+                throw new IllegalArgumentException("Density should be in range [0, 1].");
+            }
+
+            this.density = density;
+            return this;
+        }
+
+        /**
+         * Sets the colour of the marks. Defaults to {@link Color#BLACK}.
+         *
+         * @param noiseColour the noise colour
+         * @return this builder
+         */
+        public SpeckleNoiseProducerBuilder noiseColour(Color noiseColour) {
+            if (Objects.isNull(noiseColour)) {
+                throw new IllegalArgumentException("Noise colour should not be null.");
+            }
+
+            this.noiseColour = noiseColour;
+            return this;
+        }
+
+        /**
+         * Sets the colour of every other single pixel in {@link SpeckleStyle#SALT_AND_PEPPER}
+         * noise. Defaults to {@link Color#WHITE}.
+         *
+         * @param saltColour the salt colour
+         * @return this builder
+         */
+        public SpeckleNoiseProducerBuilder saltColour(Color saltColour) {
+            if (Objects.isNull(saltColour)) {
+                throw new IllegalArgumentException("Salt colour should not be null.");
+            }
+
+            this.saltColour = saltColour;
+            return this;
+        }
+
+        /**
+         * Sets the source of the random numbers the marks are placed from. Defaults to a
+         * {@link FastRandomSource}.
+         *
+         * @param randomSource the random source
+         * @return this builder
+         */
+        public SpeckleNoiseProducerBuilder randomSource(RandomSource randomSource) {
+            if (Objects.isNull(randomSource)) {
+                throw new IllegalArgumentException("Random source should not be null.");
+            }
+
+            this.randomSource = randomSource;
+            return this;
+        }
+
+        /**
+         * Builds a new {@link SpeckleNoiseProducer} with the configured properties.
+         *
+         * @return a new {@link SpeckleNoiseProducer}
+         */
+        public SpeckleNoiseProducer build() {
+            return new SpeckleNoiseProducer(style, density, noiseColour, saltColour, randomSource);
+        }
+    }
+}
@@ -0,0 +1,421 @@
+/*
+ * Copyright (c) 2024-2025 OnixByte
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.onixbyte.captcha.pool;
+
+import com.onixbyte.captcha.Captcha;
+import com.onixbyte.captcha.Producer;
+import com.onixbyte.captcha.impl.DefaultCaptchaProducer;
+
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A pool of pre-generated captchas wrapping a {@link Producer}.
+ * <p>
+ * Ready captchas are kept in a bounded set of striped queues, one per stripe, so that concurrent
+ * callers rarely contend on the same queue. Each stripe is topped up on a low-priority worker pool
+ * whenever it falls below its low-water mark. When every stripe is drained, {@link #take()} falls
+ * back to generating a captcha synchronously on the calling thread.
+ * <p>
+ * Every captcha is handed out at most once. The pool should be {@link #close() closed} when no
+ * longer needed in order to stop its refill workers.
+ */
+public class CaptchaPool implements AutoCloseable {
+
+    /**
+     * The producer used to generate captchas.
+     */
+    private final Producer producer;
+
+    /**
+     * The striped queues of ready captchas.
+     */
+    private final ArrayBlockingQueue<Captcha>[] stripes;
+
+    /**
+     * Whether a refill is already scheduled for the stripe at the same index.
+     */
+    private final AtomicBoolean[] refillScheduled;
+
+    /**
+     * The mask used to map a thread to a stripe.
+     */
+    private final int stripeMask;
+
+    /**
+     * The size below which the stripe at the same index is refilled.
+     */
+    private final int[] lowWaterMarks;
+
+    /**
+     * The executor running refill tasks.
+     */
+    private final ThreadPoolExecutor refillExecutor;
+
+    /**
+     * The number of captchas served from the pool.
+     */
+    private final LongAdder hits = new LongAdder();
+
+    /**
+     * The number of captchas generated synchronously because the pool was drained.
+     */
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * The number of captchas generated by refill workers.
+     */
+    private final LongAdder refills = new LongAdder();
+
+    /**
+     * The number of refills stopped by the producer throwing an exception.
+     */
+    private final LongAdder refillFailures = new LongAdder();
+
+    /**
+     * Whether the pool has been closed.
+     */
+    private volatile boolean closed;
+
+    /**
+     * Creates a new {@link CaptchaPool}.
+     *
+     * @param producer         the producer used to generate captchas
+     * @param stripeCount      the number of stripes, a power of two no greater than the capacity
+     * @param capacity         the total capacity, split as evenly as possible between the stripes
+     * @param lowWaterMark     the fill ratio of a stripe below which it is refilled
+     * @param refillThreads    the number of refill worker threads
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private CaptchaPool(
+            Producer producer,
+            int stripeCount,
+            int capacity,
+            float lowWaterMark,
+            int refillThreads
+    ) {
+        this.producer = producer;
+        this.stripes = new ArrayBlockingQueue[stripeCount];
+        this.refillScheduled = new AtomicBoolean[stripeCount];
+        this.lowWaterMarks = new int[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            // the first capacity % stripeCount stripes hold one more, so that they sum to the capacity
+            int stripeCapacity = capacity / stripeCount + (i < capacity % stripeCount ? 1 : 0);
+            stripes[i] = new ArrayBlockingQueue<>(stripeCapacity);
+            refillScheduled[i] = new AtomicBoolean();
+            lowWaterMarks[i] = Math.max(1, (int) Math.ceil(stripeCapacity * lowWaterMark));
+        }
+        this.stripeMask = stripeCount - 1;
+        this.refillExecutor = new ThreadPoolExecutor(
+                refillThreads, refillThreads,
+                0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(),
+                new RefillThreadFactory()
+        );
+
+        for (int i = 0; i < stripeCount; i++) {
+            scheduleRefill(i);
+        }
+    }
+
+    /**
+     * Takes a captcha from the pool. The stripe of the calling thread is tried first, then the
+     * remaining stripes. If the pool is drained, a captcha is generated on the calling thread.
+     *
+     * @return a captcha which has not been handed out before
+     */
+    public Captcha take() {
+        int home = stripeOf(Thread.currentThread());
+        for (int i = 0; i <= stripeMask; i++) {
+            int index = (home + i) & stripeMask;
+            Captcha captcha = stripes[index].poll();
+            if (Objects.nonNull(captcha)) {
+                hits.increment();
+                if (stripes[index].size() < lowWaterMarks[index]) {
+                    scheduleRefill(index);
+                }
+                return captcha;
+            }
+            scheduleRefill(index);
+        }
+
+        misses.increment();
+        return producer.createCaptcha();
+    }
+
+    /**
+     * Returns the number of captchas currently ready in the pool.
+     *
+     * @return the number of ready captchas
+     */
+    public int size() {
+        int size = 0;
+        for (ArrayBlockingQueue<Captcha> stripe : stripes) {
+            size += stripe.size();
+        }
+        return size;
+    }
+
+    /**
+     * Returns the number of captchas served from the pool.
+     *
+     * @return the hit count
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * Returns the number of captchas generated on the calling thread because the pool was drained.
+     *
+     * @return the miss count
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * Returns the number of captchas generated by the refill workers.
+     *
+     * @return the refill count
+     */
+    public long getRefillCount() {
+        return refills.sum();
+    }
+
+    /**
+     * Returns the number of refills stopped because the producer threw an exception. A stripe whose
+     * refill failed is refilled again on the next {@link #take()} finding it below its low-water
+     * mark.
+     *
+     * @return the refill failure count
+     */
+    public long getRefillFailureCount() {
+        return refillFailures.sum();
+    }
+
+    /**
+     * Stops the refill workers and discards every ready captcha.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        refillExecutor.shutdownNow();
+        for (ArrayBlockingQueue<Captcha> stripe : stripes) {
+            stripe.clear();
+        }
+    }
+
+    private int stripeOf(Thread thread) {
+        long id = thread.getId();
+        int hash = (int) (id ^ (id >>> 32)) * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & stripeMask;
+    }
+
+    private void scheduleRefill(int index) {
+        if (closed || !refillScheduled[index].compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            refillExecutor.execute(() -> refill(index));
+        } catch (RejectedExecutionException e) {
+            refillScheduled[index].set(false);
+        }
+    }
+
+    private void refill(int index) {
+        ArrayBlockingQueue<Captcha> stripe = stripes[index];
+        boolean failed = false;
+        try {
+            while (!closed && stripe.remainingCapacity() > 0) {
+                if (!stripe.offer(producer.createCaptcha())) {
+                    break;
+                }
+                refills.increment();
+            }
+        } catch (RuntimeException e) {
+            failed = true;
+            refillFailures.increment();
+        } finally {
+            refillScheduled[index].set(false);
+        }
+
+        // a take draining the stripe after the loop ended saw the refill still scheduled and left
+        // it, while a failed refill is left to the next take rather than retried in a loop
+        if (!failed && stripe.size() < lowWaterMarks[index]) {
+            scheduleRefill(index);
+        }
+    }
+
+    /**
+     * Creates a new {@link CaptchaPoolBuilder}.
+     *
+     * @return a new {@link CaptchaPoolBuilder}
+     */
+    public static CaptchaPoolBuilder builder() {
+        return new CaptchaPoolBuilder();
+    }
+
+    /**
+     * Creates daemon refill threads running at the lowest priority, so that refilling never
+     * competes with request threads for CPU.
+     */
+    private static class RefillThreadFactory implements ThreadFactory {
+        private static final AtomicInteger POOL_SEQUENCE = new AtomicInteger();
+
+        private final int poolNumber = POOL_SEQUENCE.incrementAndGet();
+        private final AtomicInteger threadSequence = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable,
+                    "captcha-pool-" + poolNumber + "-refill-" + threadSequence.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        }
+    }
+
+    /**
+     * A builder for creating {@link CaptchaPool} instances.
+     */
+    public static class CaptchaPoolBuilder {
+        private Producer producer;
+        private int capacity;
+        private int stripes;
+        private float lowWaterMark;
+        private int refillThreads;
+
+        private CaptchaPoolBuilder() {
+            int processors = Runtime.getRuntime().availableProcessors();
+            this.producer = DefaultCaptchaProducer.builder().build();
+            this.capacity = 256;
+            this.stripes = processors;
+            this.lowWaterMark = 0.5f;
+            this.refillThreads = Math.max(1, processors / 4);
+        }
+
+        /**
+         * Sets the producer used to generate captchas.
+         *
+         * @param producer the producer
+         * @return this builder
+         */
+        public CaptchaPoolBuilder producer(Producer producer) {
+            if (Objects.isNull(producer)) {
+                throw new IllegalArgumentException("Producer should not be null.");
+            }
+
+            this.producer = producer;
+            return this;
+        }
+
+        /**
+         * Sets the total number of captchas kept ready in the pool. It is split between the
+         * stripes as evenly as possible, and the stripes together hold exactly this many.
+         *
+         * @param capacity the capacity
+         * @return this builder
+         */
+        public CaptchaPoolBuilder capacity(int capacity) {
+            if (capacity <= 0) {
+                throw new IllegalArgumentException("Capacity should be greater than 0.");
+            }
+
+            this.capacity = capacity;
+            return this;
+        }
+
+        /**
+         * Sets the number of stripes the pool is split into. The value is rounded up to the next
+         * power of two, but kept no greater than the capacity, so that every stripe holds at least
+         * one captcha. Defaults to the number of available processors.
+         *
+         * @param stripes the number of stripes
+         * @return this builder
+         */
+        public CaptchaPoolBuilder stripes(int stripes) {
+            if (stripes <= 0) {
+                throw new IllegalArgumentException("Stripes should be greater than 0.");
+            }
+
+            this.stripes = stripes;
+            return this;
+        }
+
+        /**
+         * Sets the fill ratio of a stripe below which it is refilled.
+         *
+         * @param lowWaterMark the low-water mark, between 0 (exclusive) and 1 (inclusive)
+         * @return this builder
+         */
+        public CaptchaPoolBuilder lowWaterMark(float lowWaterMark) {
+            if (lowWaterMark <= 0f || lowWaterMark > 1f) {
+                throw new IllegalArgumentException("Low-water mark should be in range (0, 1].");
+            }
+
+            this.lowWaterMark = lowWaterMark;
+            return this;
+        }
+
+        /**
+         * Sets the number of worker threads refilling the pool.
+         *
+         * @param refillThreads the number of refill threads
+         * @return this builder
+         */
+        public CaptchaPoolBuilder refillThreads(int refillThreads) {
+            if (refillThreads <= 0) {
+                throw new IllegalArgumentException("Refill threads should be greater than 0.");
+            }
+
+            this.refillThreads = refillThreads;
+            return this;
+        }
+
+        /**
+         * Builds a new {@link CaptchaPool} with the configured properties. The pool starts filling
+         * in the background immediately.
+         *
+         * @return a new {@link CaptchaPool}
+         */
+        public CaptchaPool build() {
+            // every stripe should hold at least one captcha
+            int stripeCount = 1;
+            while (stripeCount < stripes && stripeCount * 2 <= capacity) {
+                stripeCount <<= 1;
+            }
+
+            return new CaptchaPool(producer, stripeCount, capacity, lowWaterMark, refillThreads);
+        }
+    }
+}
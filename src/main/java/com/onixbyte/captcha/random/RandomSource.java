@@ -0,0 +1,44 @@
+/*
+ * Copyright (c) 2024-2025 OnixByte
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.onixbyte.captcha.random;
+
+import java.util.Random;
+
+/**
+ * {@link RandomSource} provides the random number generators the rendering stages draw from.
+ * <p>
+ * Sources are injected through the builders of the stages, so that the answer text can be drawn
+ * from a cryptographically strong generator while visual parameters, of which a captcha draws
+ * many more, come from a cheaper one. Implementations keep one generator per thread, so drawing
+ * needs neither construction nor locking, and honour
+ * {@link com.onixbyte.captcha.util.RandomUtils#withSeed(long, java.util.function.Supplier)}.
+ */
+public interface RandomSource {
+
+    /**
+     * Returns the generator of the calling thread. It must not be handed over to other threads.
+     *
+     * @return the generator of the calling thread
+     */
+    Random current();
+}
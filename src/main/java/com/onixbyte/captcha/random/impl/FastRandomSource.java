@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2024-2025 OnixByte
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.onixbyte.captcha.random.impl;
+
+import com.onixbyte.captcha.random.RandomSource;
+import com.onixbyte.captcha.util.RandomUtils;
+
+import java.util.Random;
+import java.util.SplittableRandom;
+
+/**
+ * A {@link RandomSource} providing a fast, non-cryptographic generator per thread, split from a
+ * securely seeded {@link SplittableRandom}, for visual parameters such as glyph fonts, noise
+ * curves and distortion strengths.
+ */
+public class FastRandomSource implements RandomSource {
+
+    private FastRandomSource() {
+    }
+
+    /**
+     * Returns the fast generator of the calling thread, or the seeded generator when called within
+     * {@link RandomUtils#withSeed(long, java.util.function.Supplier)}.
+     *
+     * @return the generator of the calling thread
+     */
+    @Override
+    public Random current() {
+        return RandomUtils.fast();
+    }
+
+    /**
+     * Creates a new {@link FastRandomSourceBuilder}.
+     *
+     * @return a new {@link FastRandomSourceBuilder}
+     */
+    public static FastRandomSourceBuilder builder() {
+        return new FastRandomSourceBuilder();
+    }
+
+    /**
+     * A builder for creating {@link FastRandomSource} instances.
+     */
+    public static class FastRandomSourceBuilder {
+        private FastRandomSourceBuilder() {
+        }
+
+        /**
+         * Builds a new {@link FastRandomSource}.
+         *
+         * @return a new {@link FastRandomSource}
+         */
+        public FastRandomSource build() {
+            return new FastRandomSource();
+        }
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2024-2025 OnixByte
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.onixbyte.captcha.random.impl;
+
+import com.onixbyte.captcha.random.RandomSource;
+import com.onixbyte.captcha.util.RandomUtils;
+
+import java.security.SecureRandom;
+import java.util.Random;
+
+/**
+ * A {@link RandomSource} providing a {@link SecureRandom} per thread, for values an attacker must
+ * not be able to predict, such as the answer text.
+ */
+public class SecureRandomSource implements RandomSource {
+
+    private SecureRandomSource() {
+    }
+
+    /**
+     * Returns the {@link SecureRandom} of the calling thread, or the seeded generator when called
+     * within {@link RandomUtils#withSeed(long, java.util.function.Supplier)}.
+     *
+     * @return the generator of the calling thread
+     */
+    @Override
+    public Random current() {
+        return RandomUtils.current();
+    }
+
+    /**
+     * Creates a new {@link SecureRandomSourceBuilder}.
+     *
+     * @return a new {@link SecureRandomSourceBuilder}
+     */
+    public static SecureRandomSourceBuilder builder() {
+        return new SecureRandomSourceBuilder();
+    }
+
+    /**
+     * A builder for creating {@link SecureRandomSource} instances.
+     */
+    public static class SecureRandomSourceBuilder {
+        private SecureRandomSourceBuilder() {
+        }
+
+        /**
+         * Builds a new {@link SecureRandomSource}.
+         *
+         * @return a new {@link SecureRandomSource}
+         */
+        public SecureRandomSource build() {
+            return new SecureRandomSource();
+        }
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2024-2025 OnixByte
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.onixbyte.captcha.store;
+
+import com.onixbyte.captcha.Captcha;
+
+/**
+ * Keeps the answers of issued captchas until they are verified or expire.
+ * <p>
+ * Each answer is stored under an identifier issued by the store, which is handed to the client
+ * together with the image. Identifiers are random and unguessable. Every answer can be verified
+ * at most once, whether the attempt succeeds or not.
+ */
+public interface CaptchaStore {
+
+    /**
+     * Stores the answer of a captcha.
+     *
+     * @param answer the expected answer
+     * @return the identifier the answer is stored under
+     */
+    long put(String answer);
+
+    /**
+     * Stores the text of a captcha as its answer.
+     *
+     * @param captcha the captcha
+     * @return the identifier the answer is stored under
+     */
+    default long put(Captcha captcha) {
+        return put(captcha.getText());
+    }
+
+    /**
+     * Verifies an answer and removes it from the store, atomically, so that the same identifier
+     * can never be verified twice, even by concurrent callers.
+     *
+     * @param id     the identifier returned by {@link #put(String)}
+     * @param answer the answer given by the client
+     * @return {@code true} if an answer was stored under the identifier, has not expired and
+     * matches the given answer
+     */
+    boolean verify(long id, String answer);
+
+    /**
+     * Removes an answer without verifying it.
+     *
+     * @param id the identifier returned by {@link #put(String)}
+     * @return {@code true} if an answer which had not expired was removed
+     */
+    boolean remove(long id);
+
+    /**
+     * Returns the number of answers currently stored. Expired answers may be counted until the
+     * store gets round to removing them.
+     *
+     * @return the number of stored answers
+     */
+    int size();
+}
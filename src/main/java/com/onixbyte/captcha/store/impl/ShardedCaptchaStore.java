@@ -0,0 +1,695 @@
+/*
+ * Copyright (c) 2024-2025 OnixByte
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.onixbyte.captcha.store.impl;
+
+import com.onixbyte.captcha.store.CaptchaStore;
+import com.onixbyte.captcha.util.AnswerUtils;
+import com.onixbyte.captcha.util.RandomUtils;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.Random;
+
+/**
+ * A {@link CaptchaStore} keeping answers in memory, in a fixed number of independently locked
+ * shards.
+ * <p>
+ * Entries hold no objects: each shard keeps the identifier, a keyed 64-bit hash of the answer and
+ * the expiry tick of every entry in primitive arrays, indexed by an open-addressing table of
+ * {@code int}s. The arrays grow on demand up to the per-shard share of the entry cap and are never
+ * shrunk, so a full store costs about 40 bytes per entry and produces no garbage per entry.
+ * <p>
+ * Expiry is driven by a hierarchical timing wheel per shard, with 256 slots of one tick, 64 slots
+ * of 256 ticks and 64 slots of 16384 ticks. The wheel is advanced by whichever operation next
+ * takes the lock of the shard, so no background thread is needed. The wheel jumps straight to the
+ * next tick with entries due or a slot to cascade, looking at each slot at most once, so expired
+ * entries are removed in time proportional to their number however long the shard was idle. Only
+ * entries expiring beyond the span of the wheel are moved on once per turn of it. When a shard is
+ * full, the entry closest to expiry is evicted to make room.
+ */
+public class ShardedCaptchaStore implements CaptchaStore {
+
+    private static final int LEVEL_0_SLOTS = 256;
+    private static final int LEVEL_1_SLOTS = 64;
+    private static final int LEVEL_2_SLOTS = 64;
+
+    private static final int LEVEL_1_SHIFT = 8;
+    private static final int LEVEL_2_SHIFT = 14;
+
+    /**
+     * The number of ticks the wheel spans. Entries expiring later are parked in its last slot and
+     * moved on as the wheel turns.
+     */
+    private static final long WHEEL_SPAN = (long) LEVEL_2_SLOTS << LEVEL_2_SHIFT;
+
+    /**
+     * The index of the first slot sentinel of each level. Sentinels come before the entries in the
+     * entry arrays, so the index of an entry never changes when the arrays grow.
+     */
+    private static final int LEVEL_0 = 0;
+    private static final int LEVEL_1 = LEVEL_0 + LEVEL_0_SLOTS;
+    private static final int LEVEL_2 = LEVEL_1 + LEVEL_1_SLOTS;
+    private static final int FIRST_ENTRY = LEVEL_2 + LEVEL_2_SLOTS;
+
+    private static final int EMPTY = -1;
+
+    private final Shard[] shards;
+    private final int shardMask;
+    private final long epoch;
+    private final long tickNanos;
+    private final long ttlTicks;
+    private final long hashKey;
+    private final boolean caseSensitive;
+
+    /**
+     * Creates a new {@link ShardedCaptchaStore}.
+     *
+     * @param shardCount      the number of shards, a power of two
+     * @param shardCapacity   the maximum number of entries per shard
+     * @param tickNanos       the length of a tick of the timing wheels, in nanoseconds
+     * @param ttlTicks        the number of ticks an answer is kept for
+     * @param caseSensitive   whether answers are compared case-sensitively
+     */
+    private ShardedCaptchaStore(int shardCount, int shardCapacity, long tickNanos, long ttlTicks, boolean caseSensitive) {
+        this.shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard(shardCapacity);
+        }
+        this.shardMask = shardCount - 1;
+        this.epoch = System.nanoTime();
+        this.tickNanos = tickNanos;
+        this.ttlTicks = ttlTicks;
+        this.hashKey = RandomUtils.secure().nextLong();
+        this.caseSensitive = caseSensitive;
+    }
+
+    @Override
+    public long put(String answer) {
+        if (Objects.isNull(answer)) {
+            throw new IllegalArgumentException("Answer should not be null.");
+        }
+
+        long hash = hash(answer);
+        Random random = RandomUtils.secure();
+        while (true) {
+            long id = random.nextLong();
+            Shard shard = shards[shardOf(id)];
+            synchronized (shard) {
+                long now = currentTick();
+                shard.advance(now);
+                if (shard.insert(id, hash, now + ttlTicks)) {
+                    return id;
+                }
+            }
+            // the identifier is taken, which is astronomically unlikely, so draw another one
+        }
+    }
+
+    @Override
+    public boolean verify(long id, String answer) {
+        if (Objects.isNull(answer)) {
+            remove(id);
+            return false;
+        }
+
+        long hash = hash(answer);
+        Shard shard = shards[shardOf(id)];
+        synchronized (shard) {
+            long now = currentTick();
+            shard.advance(now);
+            int entry = shard.take(id, now);
+            return entry != EMPTY && shard.hashes[entry] == hash;
+        }
+    }
+
+    @Override
+    public boolean remove(long id) {
+        Shard shard = shards[shardOf(id)];
+        synchronized (shard) {
+            long now = currentTick();
+            shard.advance(now);
+            return shard.take(id, now) != EMPTY;
+        }
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (Shard shard : shards) {
+            synchronized (shard) {
+                size += shard.size;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Returns the number of answers evicted to make room for new ones because their shard was
+     * full.
+     *
+     * @return the number of evicted answers
+     */
+    public long getEvictionCount() {
+        long evictions = 0;
+        for (Shard shard : shards) {
+            synchronized (shard) {
+                evictions += shard.evictions;
+            }
+        }
+        return evictions;
+    }
+
+    /**
+     * Returns the number of answers removed because they expired before being verified.
+     *
+     * @return the number of expired answers
+     */
+    public long getExpiryCount() {
+        long expiries = 0;
+        for (Shard shard : shards) {
+            synchronized (shard) {
+                expiries += shard.expiries;
+            }
+        }
+        return expiries;
+    }
+
+    private long currentTick() {
+        return (System.nanoTime() - epoch) / tickNanos;
+    }
+
+    private int shardOf(long id) {
+        return (int) mix(id) & shardMask;
+    }
+
+    /**
+     * Normalises an answer as {@link AnswerUtils#normalise(String, boolean)} does and hashes it
+     * with the secret key of the store, so that answers with colliding hashes cannot be found
+     * without the key.
+     */
+    private long hash(String answer) {
+        answer = AnswerUtils.normalise(answer, caseSensitive);
+        long hash = hashKey;
+        for (int i = 0; i < answer.length(); i++) {
+            char c = answer.charAt(i);
+            hash = (hash ^ c) * 0x9e3779b97f4a7c15L;
+            hash ^= hash >>> 32;
+        }
+        return mix(hash ^ answer.length());
+    }
+
+    private static long mix(long value) {
+        value = (value ^ (value >>> 33)) * 0xff51afd7ed558ccdL;
+        value = (value ^ (value >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return value ^ (value >>> 33);
+    }
+
+    /**
+     * Creates a new {@link ShardedCaptchaStoreBuilder}.
+     *
+     * @return a new {@link ShardedCaptchaStoreBuilder}
+     */
+    public static ShardedCaptchaStoreBuilder builder() {
+        return new ShardedCaptchaStoreBuilder();
+    }
+
+    /**
+     * A shard of the store, guarded by its own monitor.
+     * <p>
+     * Entry {@code i} is made of {@code ids[i]}, {@code hashes[i]} and {@code deadlines[i]}, and is
+     * linked into a slot of the timing wheel through {@code next[i]} and {@code prev[i]}. Every slot
+     * is a circular list headed by a sentinel entry, and free entries are chained through
+     * {@code next}.
+     */
+    private static final class Shard {
+        private final int capacity;
+
+        private long[] ids;
+        private long[] hashes;
+        private long[] deadlines;
+        private int[] next;
+        private int[] prev;
+
+        private int[] table;
+        private int tableMask;
+
+        private int allocated = FIRST_ENTRY;
+        private int freeHead = EMPTY;
+        private int size;
+        private long currentTick;
+
+        private long evictions;
+        private long expiries;
+
+        private Shard(int capacity) {
+            this.capacity = capacity;
+
+            int entries = FIRST_ENTRY + Math.min(capacity, 64);
+            this.ids = new long[entries];
+            this.hashes = new long[entries];
+            this.deadlines = new long[entries];
+            this.next = new int[entries];
+            this.prev = new int[entries];
+            for (int slot = 0; slot < FIRST_ENTRY; slot++) {
+                next[slot] = slot;
+                prev[slot] = slot;
+            }
+
+            this.table = new int[tableSizeFor(entries - FIRST_ENTRY)];
+            this.tableMask = table.length - 1;
+            Arrays.fill(table, EMPTY);
+        }
+
+        /**
+         * Adds an entry, evicting the entry closest to expiry if the shard is full.
+         *
+         * @return {@code false} if the identifier is already taken
+         */
+        private boolean insert(long id, long hash, long deadline) {
+            if (find(id) >= 0) {
+                return false;
+            }
+            if (size == capacity) {
+                evict();
+            }
+
+            int entry = allocate();
+            ids[entry] = id;
+            hashes[entry] = hash;
+            deadlines[entry] = deadline;
+            schedule(entry);
+
+            int position = home(id);
+            while (table[position] != EMPTY) {
+                position = (position + 1) & tableMask;
+            }
+            table[position] = entry;
+            size++;
+            return true;
+        }
+
+        /**
+         * Removes the entry with the given identifier if it has not expired.
+         *
+         * @return the index of the removed entry, whose fields stay readable until the next
+         * insertion, or {@link #EMPTY}
+         */
+        private int take(long id, long now) {
+            int position = find(id);
+            if (position < 0) {
+                return EMPTY;
+            }
+
+            int entry = table[position];
+            removeAt(position);
+            return deadlines[entry] > now ? entry : EMPTY;
+        }
+
+        /**
+         * Turns the timing wheel to the given tick, removing every entry which expired by then.
+         */
+        private void advance(long now) {
+            if (now <= currentTick) {
+                return;
+            }
+            if (size == 0) {
+                currentTick = now;
+                return;
+            }
+
+            while (currentTick < now) {
+                long tick = nextBusyTick(now);
+                if (tick > now) {
+                    currentTick = now;
+                    return;
+                }
+
+                currentTick = tick;
+                if ((currentTick & (LEVEL_0_SLOTS - 1)) == 0) {
+                    if ((currentTick & ((1L << LEVEL_2_SHIFT) - 1)) == 0) {
+                        cascade(LEVEL_2 + (int) ((currentTick >>> LEVEL_2_SHIFT) & (LEVEL_2_SLOTS - 1)));
+                    }
+                    cascade(LEVEL_1 + (int) ((currentTick >>> LEVEL_1_SHIFT) & (LEVEL_1_SLOTS - 1)));
+                }
+
+                int sentinel = LEVEL_0 + (int) (currentTick & (LEVEL_0_SLOTS - 1));
+                while (next[sentinel] != sentinel) {
+                    int entry = next[sentinel];
+                    if (deadlines[entry] <= currentTick) {
+                        removeAt(find(ids[entry]));
+                        expiries++;
+                    } else {
+                        unlink(entry);
+                        schedule(entry);
+                    }
+                }
+
+                if (size == 0) {
+                    currentTick = now;
+                }
+            }
+        }
+
+        /**
+         * Returns the first tick after the current one, and no later than the given tick, at which
+         * a slot of the first level holds entries or a slot of an upper level is to be cascaded,
+         * or a tick after the given one if there is none.
+         * <p>
+         * The next turn of the first level is looked at tick by tick. Once its slots are all found
+         * empty, it can only be refilled by a cascade, so the search moves on from one cascade of
+         * the second level to the next, and once those slots are all empty as well, from one
+         * cascade of the third level to the next. Each slot is thus looked at no more than once.
+         */
+        private long nextBusyTick(long limit) {
+            long tick = currentTick + 1;
+            for (long end = Math.min(limit, currentTick + LEVEL_0_SLOTS); tick <= end; tick++) {
+                if (isBusy(tick) || !isEmpty(LEVEL_0 + (int) (tick & (LEVEL_0_SLOTS - 1)))) {
+                    return tick;
+                }
+            }
+
+            // the first level is empty, so only the cascades of the upper levels are left
+            tick = (tick + LEVEL_0_SLOTS - 1) & -LEVEL_0_SLOTS;
+            for (int i = 0; i < LEVEL_1_SLOTS && tick <= limit; i++, tick += LEVEL_0_SLOTS) {
+                if (isBusy(tick)) {
+                    return tick;
+                }
+            }
+
+            long level2Tick = 1L << LEVEL_2_SHIFT;
+            tick = (tick + level2Tick - 1) & -level2Tick;
+            for (; tick <= limit; tick += level2Tick) {
+                if (isBusy(tick)) {
+                    return tick;
+                }
+            }
+            return tick;
+        }
+
+        /**
+         * Returns whether a slot of an upper level holding entries is cascaded at the given tick.
+         */
+        private boolean isBusy(long tick) {
+            if ((tick & (LEVEL_0_SLOTS - 1)) != 0) {
+                return false;
+            }
+            if (!isEmpty(LEVEL_1 + (int) ((tick >>> LEVEL_1_SHIFT) & (LEVEL_1_SLOTS - 1)))) {
+                return true;
+            }
+            return (tick & ((1L << LEVEL_2_SHIFT) - 1)) == 0
+                    && !isEmpty(LEVEL_2 + (int) ((tick >>> LEVEL_2_SHIFT) & (LEVEL_2_SLOTS - 1)));
+        }
+
+        private boolean isEmpty(int sentinel) {
+            return next[sentinel] == sentinel;
+        }
+
+        /**
+         * Moves the entries of a slot of an upper level down to the slots matching their
+         * remaining time.
+         */
+        private void cascade(int sentinel) {
+            int entry = next[sentinel];
+            next[sentinel] = sentinel;
+            prev[sentinel] = sentinel;
+            while (entry != sentinel) {
+                int following = next[entry];
+                schedule(entry);
+                entry = following;
+            }
+        }
+
+        /**
+         * Links an entry into the slot of the wheel matching its deadline.
+         */
+        private void schedule(int entry) {
+            long deadline = Math.max(deadlines[entry], currentTick + 1);
+            long delay = deadline - currentTick;
+
+            int sentinel;
+            if (delay < LEVEL_0_SLOTS) {
+                sentinel = LEVEL_0 + (int) (deadline & (LEVEL_0_SLOTS - 1));
+            } else if (delay < (long) LEVEL_1_SLOTS << LEVEL_1_SHIFT) {
+                sentinel = LEVEL_1 + (int) ((deadline >>> LEVEL_1_SHIFT) & (LEVEL_1_SLOTS - 1));
+            } else {
+                long parked = Math.min(deadline, currentTick + WHEEL_SPAN - 1);
+                sentinel = LEVEL_2 + (int) ((parked >>> LEVEL_2_SHIFT) & (LEVEL_2_SLOTS - 1));
+            }
+
+            int last = prev[sentinel];
+            next[last] = entry;
+            prev[entry] = last;
+            next[entry] = sentinel;
+            prev[sentinel] = entry;
+        }
+
+        private void unlink(int entry) {
+            next[prev[entry]] = next[entry];
+            prev[next[entry]] = prev[entry];
+        }
+
+        /**
+         * Evicts an entry from the first non-empty slot of the wheel, which holds the entries
+         * closest to expiry.
+         */
+        private void evict() {
+            int entry = firstScheduled(LEVEL_0, LEVEL_0_SLOTS, currentTick + 1);
+            if (entry == EMPTY) {
+                entry = firstScheduled(LEVEL_1, LEVEL_1_SLOTS, (currentTick >>> LEVEL_1_SHIFT) + 1);
+            }
+            if (entry == EMPTY) {
+                entry = firstScheduled(LEVEL_2, LEVEL_2_SLOTS, (currentTick >>> LEVEL_2_SHIFT) + 1);
+            }
+            if (entry != EMPTY) {
+                removeAt(find(ids[entry]));
+                evictions++;
+            }
+        }
+
+        private int firstScheduled(int level, int slots, long start) {
+            for (int i = 0; i < slots; i++) {
+                int sentinel = level + (int) ((start + i) & (slots - 1));
+                if (next[sentinel] != sentinel) {
+                    return next[sentinel];
+                }
+            }
+            return EMPTY;
+        }
+
+        private int allocate() {
+            if (freeHead != EMPTY) {
+                int entry = freeHead;
+                freeHead = next[entry];
+                return entry;
+            }
+
+            if (allocated == ids.length) {
+                grow();
+            }
+            return allocated++;
+        }
+
+        private void grow() {
+            int entries = FIRST_ENTRY + Math.min(capacity, (ids.length - FIRST_ENTRY) * 2);
+            ids = Arrays.copyOf(ids, entries);
+            hashes = Arrays.copyOf(hashes, entries);
+            deadlines = Arrays.copyOf(deadlines, entries);
+            next = Arrays.copyOf(next, entries);
+            prev = Arrays.copyOf(prev, entries);
+
+            int[] oldTable = table;
+            table = new int[tableSizeFor(entries - FIRST_ENTRY)];
+            tableMask = table.length - 1;
+            Arrays.fill(table, EMPTY);
+            for (int entry : oldTable) {
+                if (entry != EMPTY) {
+                    int position = home(ids[entry]);
+                    while (table[position] != EMPTY) {
+                        position = (position + 1) & tableMask;
+                    }
+                    table[position] = entry;
+                }
+            }
+        }
+
+        private int find(long id) {
+            int position = home(id);
+            while (true) {
+                int entry = table[position];
+                if (entry == EMPTY) {
+                    return -1;
+                }
+                if (ids[entry] == id) {
+                    return position;
+                }
+                position = (position + 1) & tableMask;
+            }
+        }
+
+        /**
+         * Removes the entry at a position of the table, unlinks it from the wheel and frees it.
+         * The following entries of the probe sequence are shifted back, so that lookups never need
+         * tombstones.
+         */
+        private void removeAt(int position) {
+            int entry = table[position];
+            unlink(entry);
+            next[entry] = freeHead;
+            freeHead = entry;
+            size--;
+
+            int hole = position;
+            int current = (hole + 1) & tableMask;
+            while (table[current] != EMPTY) {
+                int home = home(ids[table[current]]);
+                // move the entry into the hole unless its home lies cyclically in (hole, current]
+                if (((current - home) & tableMask) >= ((current - hole) & tableMask)) {
+                    table[hole] = table[current];
+                    hole = current;
+                }
+                current = (current + 1) & tableMask;
+            }
+            table[hole] = EMPTY;
+        }
+
+        private int home(long id) {
+            return (int) (mix(id) >>> 32) & tableMask;
+        }
+
+        private static int tableSizeFor(int entries) {
+            return Integer.highestOneBit(Math.max(entries, 2) * 2 - 1) << 1;
+        }
+    }
+
+    /**
+     * A builder for creating {@link ShardedCaptchaStore} instances.
+     */
+    public static class ShardedCaptchaStoreBuilder {
+        private int maxEntries;
+        private int shards;
+        private Duration ttl;
+        private Duration tick;
+        private boolean caseSensitive;
+
+        private ShardedCaptchaStoreBuilder() {
+            this.maxEntries = 1_000_000;
+            this.shards = Runtime.getRuntime().availableProcessors() * 4;
+            this.ttl = Duration.ofMinutes(5);
+            this.tick = Duration.ofSeconds(1);
+            this.caseSensitive = false;
+        }
+
+        /**
+         * Sets the maximum number of answers kept. Once a shard holds its share of them, storing
+         * another answer in it evicts the answer closest to expiry.
+         *
+         * @param maxEntries the maximum number of answers
+         * @return this builder
+         */
+        public ShardedCaptchaStoreBuilder maxEntries(int maxEntries) {
+            if (maxEntries <= 0) {
+                throw new IllegalArgumentException("Max entries should be greater than 0.");
+            }
+
+            this.maxEntries = maxEntries;
+            return this;
+        }
+
+        /**
+         * Sets the number of independently locked shards. The value is rounded up to the next
+         * power of two. Defaults to four times the number of available processors.
+         *
+         * @param shards the number of shards
+         * @return this builder
+         */
+        public ShardedCaptchaStoreBuilder shards(int shards) {
+            if (shards <= 0) {
+                throw new IllegalArgumentException("Shards should be greater than 0.");
+            }
+
+            this.shards = shards;
+            return this;
+        }
+
+        /**
+         * Sets how long an answer is kept before it expires. Defaults to five minutes.
+         *
+         * @param ttl the time to live of an answer
+         * @return this builder
+         */
+        public ShardedCaptchaStoreBuilder ttl(Duration ttl) {
+            if (Objects.isNull(ttl) || ttl.isNegative() || ttl.isZero()) {
+                throw new IllegalArgumentException("TTL should be positive.");
+            }
+
+            this.ttl = ttl;
+            return this;
+        }
+
+        /**
+         * Sets the resolution of expiry. Answers expire up to one tick after their time to live.
+         * Defaults to one second.
+         *
+         * @param tick the length of a tick
+         * @return this builder
+         */
+        public ShardedCaptchaStoreBuilder tick(Duration tick) {
+            if (Objects.isNull(tick) || tick.isNegative() || tick.isZero()) {
+                throw new IllegalArgumentException("Tick should be positive.");
+            }
+
+            this.tick = tick;
+            return this;
+        }
+
+        /**
+         * Sets whether answers are compared case-sensitively. Defaults to {@code false}.
+         *
+         * @param caseSensitive whether answers are compared case-sensitively
+         * @return this builder
+         */
+        public ShardedCaptchaStoreBuilder caseSensitive(boolean caseSensitive) {
+            this.caseSensitive = caseSensitive;
+            return this;
+        }
+
+        /**
+         * Builds a new {@link ShardedCaptchaStore} with the configured properties.
+         *
+         * @return a new {@link ShardedCaptchaStore}
+         */
+        public ShardedCaptchaStore build() {
+            int shardCount = 1;
+            while (shardCount < shards && shardCount < maxEntries) {
+                shardCount <<= 1;
+            }
+
+            int shardCapacity = (int) ((maxEntries + (long) shardCount - 1) / shardCount);
+            long tickNanos = tick.toNanos();
+            long ttlTicks = Math.max(1L, (ttl.toNanos() + tickNanos - 1) / tickNanos);
+
+            return new ShardedCaptchaStore(shardCount, shardCapacity, tickNanos, ttlTicks, caseSensitive);
+        }
+    }
+}
@@ -33,4 +33,15 @@ public interface TextProducer {
      * @return a string of characters
      */
     String getText();
+
+    /**
+     * Returns the characters of a new text, for callers which do not need a {@link String}.
+     * <p>
+     * The default implementation copies the characters of {@link #getText()}.
+     *
+     * @return the characters of a new text
+     */
+    default char[] getChars() {
+        return getText().toCharArray();
+    }
 }
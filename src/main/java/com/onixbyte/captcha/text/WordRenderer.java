@@ -22,6 +22,8 @@
 
 package com.onixbyte.captcha.text;
 
+import com.onixbyte.captcha.util.RasterUtils;
+
 import java.awt.image.BufferedImage;
 
 /**
@@ -38,4 +40,17 @@ public interface WordRenderer {
      * @return the BufferedImage created from the word
      */
     BufferedImage renderWord(String word, int width, int height);
+
+    /**
+     * Renders a word into an existing image, replacing its content. The image is expected to be a
+     * {@link BufferedImage#TYPE_INT_ARGB} image, the text being drawn over a transparent background.
+     * <p>
+     * The default implementation renders into a new image and copies it into the target.
+     *
+     * @param word   the word to be rendered
+     * @param target the image to render the word into
+     */
+    default void renderWord(String word, BufferedImage target) {
+        RasterUtils.copy(renderWord(word, target.getWidth(), target.getHeight()), target);
+    }
 }
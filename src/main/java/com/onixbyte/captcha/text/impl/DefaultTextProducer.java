@@ -22,24 +22,61 @@
 
 package com.onixbyte.captcha.text.impl;
 
+import com.onixbyte.captcha.random.RandomSource;
+import com.onixbyte.captcha.random.impl.SecureRandomSource;
 import com.onixbyte.captcha.text.TextProducer;
 
-import java.security.SecureRandom;
 import java.util.Objects;
 import java.util.Random;
 
 /**
  * The default implementation of {@link TextProducer}.
+ * <p>
+ * Unless disabled, random bytes are pulled from the random source in blocks into a buffer per
+ * thread, and each character is picked by one byte, or two bytes for alphabets of more than 256
+ * characters. Values beyond the largest multiple of the alphabet size are rejected, so that every
+ * character stays equally likely. A buffer is only consumed for the generator it was filled from,
+ * so bytes drawn within {@link com.onixbyte.captcha.util.RandomUtils#withSeed(long,
+ * java.util.function.Supplier)} never end up in texts generated outside of it.
+ * <p>
+ * Many texts can be generated at once into a single {@code char[]} arena with
+ * {@link #getTexts(int)}.
  */
 public class DefaultTextProducer implements TextProducer {
 
+    /**
+     * The buffered random bytes of each thread.
+     */
+    private static final ThreadLocal<EntropyBuffer> BUFFERS = ThreadLocal.withInitial(EntropyBuffer::new);
+
     private final int length;
 
     private final char[] chars;
 
-    private DefaultTextProducer(int length, char[] chars) {
+    private final RandomSource randomSource;
+
+    private final int entropyBufferSize;
+
+    /**
+     * The number of random bytes picking a character, or {@code 0} if the alphabet is too large
+     * to be picked from bytes.
+     */
+    private final int bytesPerChar;
+
+    /**
+     * The exclusive bound of the random values accepted, a multiple of the alphabet size.
+     */
+    private final int acceptBound;
+
+    private DefaultTextProducer(int length, char[] chars, RandomSource randomSource, int entropyBufferSize) {
         this.length = length;
         this.chars = chars;
+        this.randomSource = randomSource;
+        this.entropyBufferSize = entropyBufferSize;
+        this.bytesPerChar = chars.length <= 1 << 8 ? 1 : chars.length <= 1 << 16 ? 2 : 0;
+
+        int range = 1 << (bytesPerChar * 8);
+        this.acceptBound = range - range % chars.length;
     }
 
     /**
@@ -48,13 +85,118 @@ public class DefaultTextProducer implements TextProducer {
      * @return a string of random characters
      */
     public String getText() {
-        Random rand = new SecureRandom();
-        StringBuilder text = new StringBuilder();
-        for (int i = 0; i < length; i++) {
-            text.append(chars[rand.nextInt(chars.length)]);
+        return new String(getChars());
+    }
+
+    /**
+     * Returns the random characters of a new text without creating a {@link String}.
+     *
+     * @return the characters of a new text
+     */
+    @Override
+    public char[] getChars() {
+        char[] text = new char[length];
+        fill(text, 0, length);
+        return text;
+    }
+
+    /**
+     * Generates several texts at once into a new arena, text {@code i} taking the characters from
+     * {@code i * getLength()} up to {@code (i + 1) * getLength()}.
+     *
+     * @param count the number of texts
+     * @return the arena holding the texts
+     */
+    public char[] getTexts(int count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("Count should not be negative.");
+        }
+        if ((long) count * length > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Count is too large for a single arena.");
+        }
+
+        char[] arena = new char[count * length];
+        fill(arena, 0, arena.length);
+        return arena;
+    }
+
+    /**
+     * Generates several texts at once into an existing arena, starting at the given offset.
+     *
+     * @param arena  the arena to write the texts to
+     * @param offset the index of the first character to write
+     * @param count  the number of texts
+     */
+    public void getTexts(char[] arena, int offset, int count) {
+        if (Objects.isNull(arena)) {
+            throw new IllegalArgumentException("Arena should not be null.");
+        }
+        if (offset < 0 || count < 0 || (long) count * length > arena.length - offset) {
+            throw new IllegalArgumentException("Arena is too small for the texts.");
         }
 
-        return text.toString();
+        fill(arena, offset, count * length);
+    }
+
+    /**
+     * Returns the length of the generated texts.
+     *
+     * @return the length of the texts
+     */
+    public int getLength() {
+        return length;
+    }
+
+    private void fill(char[] destination, int offset, int count) {
+        Random random = randomSource.current();
+        int end = offset + count;
+        if (entropyBufferSize == 0 || bytesPerChar == 0) {
+            for (int i = offset; i < end; i++) {
+                destination[i] = chars[random.nextInt(chars.length)];
+            }
+            return;
+        }
+
+        EntropyBuffer buffer = BUFFERS.get();
+        buffer.attach(random, entropyBufferSize);
+        int i = offset;
+        while (i < end) {
+            int value = bytesPerChar == 1 ? buffer.next() : buffer.next() << 8 | buffer.next();
+            if (value < acceptBound) {
+                destination[i++] = chars[value % chars.length];
+            }
+        }
+    }
+
+    /**
+     * A block of random bytes drawn from one generator, consumed byte by byte.
+     */
+    private static final class EntropyBuffer {
+        private byte[] bytes = new byte[0];
+        private int position;
+        private Random source;
+
+        /**
+         * Prepares the buffer for drawing from a generator, discarding the remaining bytes if they
+         * were drawn from another one.
+         */
+        private void attach(Random random, int size) {
+            if (source != random || bytes.length != size) {
+                if (bytes.length != size) {
+                    bytes = new byte[size];
+                }
+                position = bytes.length;
+                source = random;
+            }
+        }
+
+        private int next() {
+            if (position == bytes.length) {
+                source.nextBytes(bytes);
+                position = 0;
+            }
+            return bytes[position++] & 0xff;
+        }
     }
 
     /**
@@ -72,9 +214,13 @@ public class DefaultTextProducer implements TextProducer {
     public static class DefaultTextProducerBuilder {
         private int length;
         private char[] chars;
+        private RandomSource randomSource;
+        private int entropyBufferSize;
 
         private DefaultTextProducerBuilder() {
             this.length = 6;
+            this.randomSource = SecureRandomSource.builder().build();
+            this.entropyBufferSize = 1024;
             this.chars = new char[]{
                     'a', 'b', 'c', 'd', 'e', 'f', 'g', 'h', 'i', 'j', 'k', 'l', 'm', 'n', 'o', 'p',
                     'q', 'r', 's', 't', 'u', 'v', 'w', 'x', 'y', 'z', 'A', 'B', 'C', 'D', 'E', 'F',
@@ -111,13 +257,47 @@ public class DefaultTextProducer implements TextProducer {
             return this;
         }
 
+        /**
+         * Sets the source of the random numbers the text is drawn from. As the text is the answer
+         * to the captcha, the source should be cryptographically strong. Defaults to a
+         * {@link SecureRandomSource}.
+         *
+         * @param randomSource the random source
+         * @return this builder
+         */
+        public DefaultTextProducerBuilder randomSource(RandomSource randomSource) {
+            if (Objects.isNull(randomSource)) {
+                throw new IllegalArgumentException("Random source should not be null.");
+            }
+
+            this.randomSource = randomSource;
+            return this;
+        }
+
+        /**
+         * Sets the number of random bytes drawn from the random source at once. Larger buffers
+         * suit generating many texts in bulk. Defaults to 1024, and {@code 0} draws a random
+         * number for every character instead.
+         *
+         * @param entropyBufferSize the number of bytes drawn at once
+         * @return this builder
+         */
+        public DefaultTextProducerBuilder entropyBufferSize(int entropyBufferSize) {
+            if (entropyBufferSize < 0) {
+                throw new IllegalArgumentException("Entropy buffer size should not be negative.");
+            }
+
+            this.entropyBufferSize = entropyBufferSize;
+            return this;
+        }
+
         /**
          * Builds a new {@link DefaultTextProducer} with the configured properties.
          *
          * @return a new {@link DefaultTextProducer}
          */
         public DefaultTextProducer build() {
-            return new DefaultTextProducer(length, chars);
+            return new DefaultTextProducer(length, chars, randomSource, entropyBufferSize);
         }
     }
 }
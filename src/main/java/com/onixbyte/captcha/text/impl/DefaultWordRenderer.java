@@ -22,40 +22,95 @@
 
 package com.onixbyte.captcha.text.impl;
 
+import com.onixbyte.captcha.random.RandomSource;
+import com.onixbyte.captcha.random.impl.FastRandomSource;
 import com.onixbyte.captcha.text.WordRenderer;
 import com.onixbyte.captcha.text.enums.FontStyle;
+import com.onixbyte.captcha.util.RasterUtils;
 
 import java.awt.*;
 import java.awt.font.FontRenderContext;
 import java.awt.font.GlyphVector;
 import java.awt.image.BufferedImage;
-import java.security.SecureRandom;
+import java.util.Arrays;
 import java.util.Objects;
 import java.util.Random;
 
 /**
  * The default implementation of {@link WordRenderer}.
+ * <p>
+ * By default, every glyph is rasterised once per font into an atlas of anti-aliased coverage
+ * masks, and words rendered into {@link BufferedImage#TYPE_INT_ARGB} images are drawn by blitting
+ * those masks, without going through the font caches of Java2D, which every thread contends on.
+ * Without the atlas, the visual widths of ASCII characters are still measured once per font and
+ * cached, so that laying out a word does not create a {@link GlyphVector} for each of its
+ * characters.
  */
 public class DefaultWordRenderer implements WordRenderer {
 
+    private static final RenderingHints HINTS = new RenderingHints(
+            RenderingHints.KEY_ANTIALIASING,
+            RenderingHints.VALUE_ANTIALIAS_ON);
+
+    static {
+        HINTS.put(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+    }
+
+    /**
+     * The number of characters, starting from the first ASCII character, whose widths are cached.
+     */
+    private static final int CACHED_CHARS = 128;
+
+    /**
+     * The scratch storage of each thread, reused by every word rendered on that thread.
+     */
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
     private final int fontSize;
     private final Font[] fonts;
     private final Color fontColour;
     private final int charSpace;
 
+    /**
+     * The atlas of pre-rasterised glyphs, or {@code null} if words are drawn through Java2D.
+     */
+    private final GlyphAtlas glyphAtlas;
+
+    /**
+     * The font colour for each glyph coverage, used when blitting glyphs from the atlas.
+     */
+    private final int[] fontShades;
+
+    /**
+     * The cached visual widths of the ASCII characters for each font, or {@code -1} for characters
+     * not measured yet.
+     */
+    private final int[][] charWidthCache;
+
+    private final RandomSource randomSource;
+
     /**
      * Creates a new {@link DefaultWordRenderer}.
      *
-     * @param fontSize   the font size
-     * @param fonts      the fonts to use
-     * @param fontColour the font colour
-     * @param charSpace  the space between characters
+     * @param fontSize     the font size
+     * @param fonts        the fonts to use
+     * @param fontColour   the font colour
+     * @param charSpace    the space between characters
+     * @param glyphAtlas   the atlas of pre-rasterised glyphs, or {@code null}
+     * @param randomSource the source of the random font choices
      */
-    private DefaultWordRenderer(int fontSize, Font[] fonts, Color fontColour, int charSpace) {
+    private DefaultWordRenderer(int fontSize, Font[] fonts, Color fontColour, int charSpace, GlyphAtlas glyphAtlas, RandomSource randomSource) {
         this.fontSize = fontSize;
         this.fonts = fonts;
         this.fontColour = fontColour;
         this.charSpace = charSpace;
+        this.glyphAtlas = glyphAtlas;
+        this.fontShades = GlyphAtlas.shades(fontColour);
+        this.randomSource = randomSource;
+        this.charWidthCache = new int[fonts.length][CACHED_CHARS];
+        for (int[] widths : charWidthCache) {
+            Arrays.fill(widths, -1);
+        }
     }
 
     /**
@@ -70,33 +125,55 @@ public class DefaultWordRenderer implements WordRenderer {
     public BufferedImage renderWord(String word, int width, int height) {
         BufferedImage image = new BufferedImage(width, height,
                 BufferedImage.TYPE_INT_ARGB);
+        drawWord(word, image);
+        return image;
+    }
+
+    /**
+     * Renders a word into an existing image, replacing its content.
+     *
+     * @param word   the word to be rendered
+     * @param target the image to render the word into
+     */
+    @Override
+    public void renderWord(String word, BufferedImage target) {
+        RasterUtils.clear(target);
+        drawWord(word, target);
+    }
+
+    private void drawWord(String word, BufferedImage image) {
+        if (Objects.nonNull(glyphAtlas) && image.getType() == BufferedImage.TYPE_INT_ARGB) {
+            int[] pixels = RasterUtils.pixels(image);
+            if (Objects.nonNull(pixels)) {
+                blitWord(word, pixels, image.getWidth(), image.getHeight());
+                return;
+            }
+        }
+
+        int width = image.getWidth();
+        int height = image.getHeight();
+
         Graphics2D g2D = image.createGraphics();
         g2D.setColor(fontColour);
-
-        RenderingHints hints = new RenderingHints(
-                RenderingHints.KEY_ANTIALIASING,
-                RenderingHints.VALUE_ANTIALIAS_ON);
-        hints.add(new RenderingHints(RenderingHints.KEY_RENDERING,
-                RenderingHints.VALUE_RENDER_QUALITY));
-        g2D.setRenderingHints(hints);
+        g2D.setRenderingHints(HINTS);
 
         FontRenderContext frc = g2D.getFontRenderContext();
-        Random random = new SecureRandom();
+        Random random = randomSource.current();
 
         int startPosY = (height - fontSize) / 5 + fontSize;
 
-        char[] wordChars = word.toCharArray();
-        Font[] chosenFonts = new Font[wordChars.length];
-        int[] charWidths = new int[wordChars.length];
+        int length = word.length();
+        Scratch scratch = SCRATCH.get();
+        scratch.ensureCapacity(length);
+        char[] wordChars = scratch.chars;
+        int[] chosenFonts = scratch.fonts;
+        int[] charWidths = scratch.widths;
+        word.getChars(0, length, wordChars, 0);
+
         int widthNeeded = 0;
-        for (int i = 0; i < wordChars.length; i++) {
-            chosenFonts[i] = fonts[random.nextInt(fonts.length)];
-
-            char[] charToDraw = new char[]{
-                    wordChars[i]
-            };
-            GlyphVector gv = chosenFonts[i].createGlyphVector(frc, charToDraw);
-            charWidths[i] = (int) gv.getVisualBounds().getWidth();
+        for (int i = 0; i < length; i++) {
+            chosenFonts[i] = random.nextInt(fonts.length);
+            charWidths[i] = charWidth(chosenFonts[i], wordChars, i, frc);
             if (i > 0) {
                 widthNeeded = widthNeeded + 2;
             }
@@ -104,16 +181,85 @@ public class DefaultWordRenderer implements WordRenderer {
         }
 
         int startPosX = (width - widthNeeded) / 2;
-        for (int i = 0; i < wordChars.length; i++) {
-            g2D.setFont(chosenFonts[i]);
-            char[] charToDraw = new char[]{
-                    wordChars[i]
-            };
-            g2D.drawChars(charToDraw, 0, charToDraw.length, startPosX, startPosY);
+        for (int i = 0; i < length; i++) {
+            g2D.setFont(fonts[chosenFonts[i]]);
+            g2D.drawChars(wordChars, i, 1, startPosX, startPosY);
             startPosX = startPosX + charWidths[i] + charSpace;
         }
 
-        return image;
+        g2D.dispose();
+    }
+
+    /**
+     * Draws a word by blitting the glyphs of the atlas into the pixels of an image, laid out the
+     * same way as through Java2D.
+     */
+    private void blitWord(String word, int[] pixels, int width, int height) {
+        Random random = randomSource.current();
+
+        int startPosY = (height - fontSize) / 5 + fontSize;
+
+        int length = word.length();
+        Scratch scratch = SCRATCH.get();
+        scratch.ensureCapacity(length);
+        GlyphAtlas.Glyph[] glyphs = scratch.glyphs;
+
+        int widthNeeded = 0;
+        for (int i = 0; i < length; i++) {
+            glyphs[i] = glyphAtlas.glyph(random.nextInt(fonts.length), word.charAt(i));
+            if (i > 0) {
+                widthNeeded = widthNeeded + 2;
+            }
+            widthNeeded = widthNeeded + glyphs[i].getAdvance();
+        }
+
+        int startPosX = (width - widthNeeded) / 2;
+        for (int i = 0; i < length; i++) {
+            GlyphAtlas.draw(glyphs[i], pixels, width, height, startPosX, startPosY, fontShades);
+            startPosX = startPosX + glyphs[i].getAdvance() + charSpace;
+            glyphs[i] = null;
+        }
+    }
+
+    /**
+     * Returns the visual width of a character in one of the fonts, from the cache if the character
+     * is an ASCII character.
+     */
+    private int charWidth(int font, char[] chars, int index, FontRenderContext frc) {
+        char c = chars[index];
+        if (c < CACHED_CHARS) {
+            int width = charWidthCache[font][c];
+            if (width >= 0) {
+                return width;
+            }
+        }
+
+        GlyphVector gv = fonts[font].createGlyphVector(frc, new char[]{c});
+        int width = (int) gv.getVisualBounds().getWidth();
+        if (c < CACHED_CHARS) {
+            // racing threads measure the same width, so a lost update is harmless
+            charWidthCache[font][c] = width;
+        }
+        return width;
+    }
+
+    /**
+     * The per-word buffers of a thread, grown to the longest word rendered so far.
+     */
+    private static final class Scratch {
+        private char[] chars = new char[16];
+        private int[] fonts = new int[16];
+        private int[] widths = new int[16];
+        private GlyphAtlas.Glyph[] glyphs = new GlyphAtlas.Glyph[16];
+
+        private void ensureCapacity(int length) {
+            if (chars.length < length) {
+                chars = new char[length];
+                fonts = new int[length];
+                widths = new int[length];
+                glyphs = new GlyphAtlas.Glyph[length];
+            }
+        }
     }
 
     /**
@@ -134,6 +280,10 @@ public class DefaultWordRenderer implements WordRenderer {
         private Color fontColour;
         private int charSpace;
         private FontStyle fontStyle;
+        private boolean glyphAtlas;
+        private int glyphAtlasCapacity;
+        private char[] preloadChars;
+        private RandomSource randomSource;
 
         private DefaultWordRendererBuilder() {
             this.fontSize = 40;
@@ -141,6 +291,10 @@ public class DefaultWordRenderer implements WordRenderer {
             this.fontColour = Color.BLACK;
             this.charSpace = 2;
             this.fontStyle = FontStyle.BOLD;
+            this.glyphAtlas = true;
+            this.glyphAtlasCapacity = 4096;
+            this.preloadChars = new char[0];
+            this.randomSource = FastRandomSource.builder().build();
         }
 
         /**
@@ -170,7 +324,7 @@ public class DefaultWordRenderer implements WordRenderer {
             }
 
             for (String font : fonts) {
-                if (Objects.isNull(font) || !font.trim().isEmpty()) {
+                if (Objects.isNull(font) || font.trim().isEmpty()) {
                     throw new IllegalArgumentException("Font should not be null.");
                 }
             }
@@ -223,6 +377,67 @@ public class DefaultWordRenderer implements WordRenderer {
             return this;
         }
 
+        /**
+         * Sets whether glyphs are rasterised once into an atlas and blitted from there, instead of
+         * being drawn through Java2D for every word. Defaults to {@code true}.
+         *
+         * @param glyphAtlas whether to use a glyph atlas
+         * @return this builder
+         */
+        public DefaultWordRendererBuilder glyphAtlas(boolean glyphAtlas) {
+            this.glyphAtlas = glyphAtlas;
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of glyphs the atlas keeps for characters beyond the first 256,
+         * such as those of CJK alphabets, evicting the least recently used glyph beyond it.
+         * Defaults to 4096.
+         *
+         * @param glyphAtlasCapacity the maximum number of glyphs
+         * @return this builder
+         */
+        public DefaultWordRendererBuilder glyphAtlasCapacity(int glyphAtlasCapacity) {
+            if (glyphAtlasCapacity <= 0) {
+                throw new IllegalArgumentException("Glyph atlas capacity should be greater than 0.");
+            }
+
+            this.glyphAtlasCapacity = glyphAtlasCapacity;
+            return this;
+        }
+
+        /**
+         * Sets the characters whose glyphs are rasterised when the renderer is built rather than
+         * on first use, typically the characters of the text producer.
+         *
+         * @param preloadChars the characters
+         * @return this builder
+         */
+        public DefaultWordRendererBuilder preloadChars(char... preloadChars) {
+            if (Objects.isNull(preloadChars)) {
+                throw new IllegalArgumentException("Preload chars should not be null.");
+            }
+
+            this.preloadChars = preloadChars.clone();
+            return this;
+        }
+
+        /**
+         * Sets the source of the random numbers the font of each character is drawn from.
+         * Defaults to a {@link FastRandomSource}.
+         *
+         * @param randomSource the random source
+         * @return this builder
+         */
+        public DefaultWordRendererBuilder randomSource(RandomSource randomSource) {
+            if (Objects.isNull(randomSource)) {
+                throw new IllegalArgumentException("Random source should not be null.");
+            }
+
+            this.randomSource = randomSource;
+            return this;
+        }
+
         /**
          * Builds a new {@link DefaultWordRenderer} with the configured properties.
          *
@@ -250,7 +465,13 @@ public class DefaultWordRenderer implements WordRenderer {
                 _fonts[index] = new Font(fonts[index], _fontStyle, fontSize);
             }
 
-            return new DefaultWordRenderer(fontSize, _fonts, fontColour, charSpace);
+            GlyphAtlas atlas = null;
+            if (glyphAtlas) {
+                atlas = new GlyphAtlas(_fonts, HINTS, glyphAtlasCapacity);
+                atlas.preload(preloadChars);
+            }
+
+            return new DefaultWordRenderer(fontSize, _fonts, fontColour, charSpace, atlas, randomSource);
         }
     }
 }
@@ -0,0 +1,492 @@
+/*
+ * Copyright (c) 2024-2025 OnixByte
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.onixbyte.captcha.text.impl;
+
+import com.onixbyte.captcha.random.RandomSource;
+import com.onixbyte.captcha.random.impl.SecureRandomSource;
+import com.onixbyte.captcha.text.TextProducer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.Random;
+
+/**
+ * A {@link TextProducer} picking words uniformly at random from a word file.
+ * <p>
+ * The word file is a UTF-8 text file with one word per line. It is memory-mapped rather than
+ * loaded, so its words stay out of the heap and are shared through the page cache by every
+ * process reading the same file. Only the start offsets of the lines are kept, four bytes per
+ * word, and a word is decoded when it is picked.
+ * <p>
+ * Words containing any of the blocked substrings, compared case-insensitively, are rejected and
+ * another word is picked. The blocked substrings are compiled into an Aho-Corasick automaton, so
+ * checking a word takes time proportional to its length whatever the number of blocked
+ * substrings, and no {@link String} is created for rejected words.
+ */
+public class DictionaryTextProducer implements TextProducer {
+
+    /**
+     * The number of words picked before giving up on finding one without blocked substrings.
+     */
+    private static final int MAX_ATTEMPTS = 100;
+
+    /**
+     * The decoded characters of the word picked last on each thread.
+     */
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    /**
+     * The mapped word file, only ever read with absolute gets so that threads can share it.
+     */
+    private final MappedByteBuffer words;
+
+    /**
+     * The offset of the first byte of every non-empty line of the word file.
+     */
+    private final int[] offsets;
+
+    private final BlockedWords blockedWords;
+
+    private final RandomSource randomSource;
+
+    /**
+     * Creates a new {@link DictionaryTextProducer}.
+     *
+     * @param words        the mapped word file
+     * @param offsets      the offsets of the words
+     * @param blockedWords the automaton of blocked substrings
+     * @param randomSource the source of the random word choices
+     */
+    private DictionaryTextProducer(MappedByteBuffer words, int[] offsets, BlockedWords blockedWords, RandomSource randomSource) {
+        this.words = words;
+        this.offsets = offsets;
+        this.blockedWords = blockedWords;
+        this.randomSource = randomSource;
+    }
+
+    /**
+     * Returns a word picked at random which contains no blocked substring.
+     *
+     * @return a word
+     * @throws IllegalStateException if no such word was found after a hundred attempts
+     */
+    @Override
+    public String getText() {
+        Scratch scratch = SCRATCH.get();
+        int length = pick(scratch);
+        return new String(scratch.chars, 0, length);
+    }
+
+    /**
+     * Returns the characters of a word picked at random which contains no blocked substring.
+     *
+     * @return the characters of a word
+     * @throws IllegalStateException if no such word was found after a hundred attempts
+     */
+    @Override
+    public char[] getChars() {
+        Scratch scratch = SCRATCH.get();
+        int length = pick(scratch);
+        return Arrays.copyOf(scratch.chars, length);
+    }
+
+    /**
+     * Returns the number of words in the word file, including those with blocked substrings.
+     *
+     * @return the number of words
+     */
+    public int size() {
+        return offsets.length;
+    }
+
+    /**
+     * Decodes random words into the scratch until one has no blocked substring.
+     *
+     * @return the length of the word
+     */
+    private int pick(Scratch scratch) {
+        Random random = randomSource.current();
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+            int length = decode(offsets[random.nextInt(offsets.length)], scratch);
+            if (!blockedWords.matches(scratch.chars, length)) {
+                return length;
+            }
+        }
+        throw new IllegalStateException("No word without blocked substrings was found after " + MAX_ATTEMPTS + " attempts.");
+    }
+
+    /**
+     * Decodes the UTF-8 line starting at the given offset into the scratch. Malformed sequences
+     * are decoded as U+FFFD.
+     *
+     * @return the number of decoded characters
+     */
+    private int decode(int offset, Scratch scratch) {
+        int limit = words.limit();
+        int position = offset;
+        int length = 0;
+        while (position < limit) {
+            int b = words.get(position++) & 0xff;
+            if (b == '\n' || b == '\r') {
+                break;
+            }
+
+            int codePoint;
+            int continuation;
+            int minimum;
+            if (b < 0x80) {
+                codePoint = b;
+                continuation = 0;
+                minimum = 0;
+            } else if (b >= 0xc2 && b < 0xe0) {
+                codePoint = b & 0x1f;
+                continuation = 1;
+                minimum = 0x80;
+            } else if (b >= 0xe0 && b < 0xf0) {
+                codePoint = b & 0x0f;
+                continuation = 2;
+                minimum = 0x800;
+            } else if (b >= 0xf0 && b < 0xf5) {
+                codePoint = b & 0x07;
+                continuation = 3;
+                minimum = 0x10000;
+            } else {
+                codePoint = 0xfffd;
+                continuation = 0;
+                minimum = 0;
+            }
+
+            for (int i = 0; i < continuation; i++) {
+                int next = position < limit ? words.get(position) & 0xff : 0;
+                if ((next & 0xc0) != 0x80) {
+                    codePoint = 0xfffd;
+                    minimum = 0;
+                    break;
+                }
+                codePoint = codePoint << 6 | (next & 0x3f);
+                position++;
+            }
+            if (codePoint < minimum || codePoint > Character.MAX_CODE_POINT
+                    || (codePoint >= Character.MIN_SURROGATE && codePoint <= Character.MAX_SURROGATE)) {
+                codePoint = 0xfffd;
+            }
+
+            scratch.ensureCapacity(length + 2);
+            length += Character.toChars(codePoint, scratch.chars, length);
+        }
+        return length;
+    }
+
+    /**
+     * Creates a new {@link DictionaryTextProducerBuilder}.
+     *
+     * @return a new {@link DictionaryTextProducerBuilder}
+     */
+    public static DictionaryTextProducerBuilder builder() {
+        return new DictionaryTextProducerBuilder();
+    }
+
+    /**
+     * The decoding buffer of a thread, grown to the longest word decoded so far.
+     */
+    private static final class Scratch {
+        private char[] chars = new char[32];
+
+        private void ensureCapacity(int length) {
+            if (chars.length < length) {
+                chars = Arrays.copyOf(chars, Math.max(length, chars.length * 2));
+            }
+        }
+    }
+
+    /**
+     * An Aho-Corasick automaton finding blocked substrings, compared after lower-casing every
+     * character.
+     * <p>
+     * The trie is compiled into flat arrays: the transitions of state {@code s} are
+     * {@code labels[i]} to {@code targets[i]} for {@code i} from {@code first[s]} to
+     * {@code first[s + 1]}, sorted by label. A state accepts if a blocked substring ends there or
+     * at any state of its failure chain.
+     */
+    private static final class BlockedWords {
+        private final int[] first;
+        private final char[] labels;
+        private final int[] targets;
+        private final int[] failures;
+        private final boolean[] accepting;
+
+        private BlockedWords(Collection<String> blocked) {
+            List<Map<Character, Integer>> children = new ArrayList<>();
+            List<Boolean> terminal = new ArrayList<>();
+            children.add(new HashMap<>());
+            terminal.add(false);
+
+            for (String word : blocked) {
+                int state = 0;
+                for (int i = 0; i < word.length(); i++) {
+                    Character label = Character.toLowerCase(word.charAt(i));
+                    Integer next = children.get(state).get(label);
+                    if (Objects.isNull(next)) {
+                        next = children.size();
+                        children.get(state).put(label, next);
+                        children.add(new HashMap<>());
+                        terminal.add(false);
+                    }
+                    state = next;
+                }
+                terminal.set(state, true);
+            }
+
+            int states = children.size();
+            this.first = new int[states + 1];
+            for (int state = 0; state < states; state++) {
+                first[state + 1] = first[state] + children.get(state).size();
+            }
+            this.labels = new char[first[states]];
+            this.targets = new int[first[states]];
+            for (int state = 0; state < states; state++) {
+                List<Character> sorted = new ArrayList<>(children.get(state).keySet());
+                Collections.sort(sorted);
+                for (int i = 0; i < sorted.size(); i++) {
+                    labels[first[state] + i] = sorted.get(i);
+                    targets[first[state] + i] = children.get(state).get(sorted.get(i));
+                }
+            }
+
+            this.failures = new int[states];
+            this.accepting = new boolean[states];
+            Queue<Integer> queue = new ArrayDeque<>();
+            queue.add(0);
+            while (!queue.isEmpty()) {
+                int state = queue.remove();
+                accepting[state] = terminal.get(state) || accepting[failures[state]];
+                for (int i = first[state]; i < first[state + 1]; i++) {
+                    int child = targets[i];
+                    failures[child] = state == 0 ? 0 : step(failures[state], labels[i]);
+                    queue.add(child);
+                }
+            }
+        }
+
+        /**
+         * Returns whether the given characters contain a blocked substring.
+         */
+        private boolean matches(char[] chars, int length) {
+            int state = 0;
+            for (int i = 0; i < length; i++) {
+                state = step(state, Character.toLowerCase(chars[i]));
+                if (accepting[state]) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Follows the transition of a state for a character, falling back along the failure chain.
+         */
+        private int step(int state, char label) {
+            while (true) {
+                int next = transition(state, label);
+                if (next >= 0) {
+                    return next;
+                }
+                if (state == 0) {
+                    return 0;
+                }
+                state = failures[state];
+            }
+        }
+
+        private int transition(int state, char label) {
+            int low = first[state];
+            int high = first[state + 1] - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                char candidate = labels[middle];
+                if (candidate < label) {
+                    low = middle + 1;
+                } else if (candidate > label) {
+                    high = middle - 1;
+                } else {
+                    return targets[middle];
+                }
+            }
+            return -1;
+        }
+    }
+
+    /**
+     * A builder for creating {@link DictionaryTextProducer} instances.
+     */
+    public static class DictionaryTextProducerBuilder {
+        private Path path;
+        private Collection<String> blockedWords;
+        private RandomSource randomSource;
+
+        private DictionaryTextProducerBuilder() {
+            this.blockedWords = Collections.emptyList();
+            this.randomSource = SecureRandomSource.builder().build();
+        }
+
+        /**
+         * Sets the word file, a UTF-8 text file of at most 2 GiB with one word per line. Empty
+         * lines are skipped.
+         *
+         * @param path the path of the word file
+         * @return this builder
+         */
+        public DictionaryTextProducerBuilder path(Path path) {
+            if (Objects.isNull(path)) {
+                throw new IllegalArgumentException("Path should not be null.");
+            }
+
+            this.path = path;
+            return this;
+        }
+
+        /**
+         * Sets the substrings no produced word may contain, compared case-insensitively.
+         *
+         * @param blockedWords the blocked substrings
+         * @return this builder
+         */
+        public DictionaryTextProducerBuilder blockedWords(Collection<String> blockedWords) {
+            if (Objects.isNull(blockedWords)) {
+                throw new IllegalArgumentException("Blocked words should not be null.");
+            }
+
+            for (String blockedWord : blockedWords) {
+                if (Objects.isNull(blockedWord) || blockedWord.isEmpty()) {
+                    throw new IllegalArgumentException("Blocked word should not be empty.");
+                }
+            }
+
+            this.blockedWords = new ArrayList<>(blockedWords);
+            return this;
+        }
+
+        /**
+         * Sets the substrings no produced word may contain, compared case-insensitively.
+         *
+         * @param blockedWords the blocked substrings
+         * @return this builder
+         */
+        public DictionaryTextProducerBuilder blockedWords(String... blockedWords) {
+            if (Objects.isNull(blockedWords)) {
+                throw new IllegalArgumentException("Blocked words should not be null.");
+            }
+
+            return blockedWords(Arrays.asList(blockedWords));
+        }
+
+        /**
+         * Sets the source of the random numbers the words are picked with. As the word is the
+         * answer to the captcha, the source should be cryptographically strong. Defaults to a
+         * {@link SecureRandomSource}.
+         *
+         * @param randomSource the random source
+         * @return this builder
+         */
+        public DictionaryTextProducerBuilder randomSource(RandomSource randomSource) {
+            if (Objects.isNull(randomSource)) {
+                throw new IllegalArgumentException("Random source should not be null.");
+            }
+
+            this.randomSource = randomSource;
+            return this;
+        }
+
+        /**
+         * Builds a new {@link DictionaryTextProducer}, mapping the word file and indexing its
+         * lines.
+         *
+         * @return a new {@link DictionaryTextProducer}
+         * @throws UncheckedIOException if the word file cannot be read
+         */
+        public DictionaryTextProducer build() {
+            if (Objects.isNull(path)) {
+                throw new IllegalStateException("Path should be set.");
+            }
+
+            MappedByteBuffer words;
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                if (channel.size() > Integer.MAX_VALUE) {
+                    throw new IllegalArgumentException("Word file should not exceed 2 GiB.");
+                }
+                words = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot read the word file " + path + ".", e);
+            }
+
+            int[] offsets = index(words);
+            if (offsets.length == 0) {
+                throw new IllegalArgumentException("Word file should not be empty.");
+            }
+
+            return new DictionaryTextProducer(words, offsets, new BlockedWords(blockedWords), randomSource);
+        }
+
+        /**
+         * Finds the offset of every non-empty line, skipping a leading byte order mark.
+         */
+        private static int[] index(MappedByteBuffer words) {
+            int limit = words.limit();
+            int position = 0;
+            if (limit >= 3 && (words.get(0) & 0xff) == 0xef && (words.get(1) & 0xff) == 0xbb && (words.get(2) & 0xff) == 0xbf) {
+                position = 3;
+            }
+
+            int[] offsets = new int[1024];
+            int count = 0;
+            boolean lineStart = true;
+            for (; position < limit; position++) {
+                byte b = words.get(position);
+                if (b == '\n' || b == '\r') {
+                    lineStart = true;
+                } else if (lineStart) {
+                    if (count == offsets.length) {
+                        offsets = Arrays.copyOf(offsets, count * 2);
+                    }
+                    offsets[count++] = position;
+                    lineStart = false;
+                }
+            }
+            return Arrays.copyOf(offsets, count);
+        }
+    }
+}
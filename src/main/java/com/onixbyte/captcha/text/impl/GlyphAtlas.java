@@ -0,0 +1,352 @@
+/*
+ * Copyright (c) 2024-2025 OnixByte
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.onixbyte.captcha.text.impl;
+
+import java.awt.*;
+import java.awt.font.FontRenderContext;
+import java.awt.font.GlyphVector;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * An atlas of pre-rasterised glyphs for a fixed set of fonts, so that drawing a character is a
+ * blit of its anti-aliased coverage mask instead of a round trip through the font caches of
+ * Java2D, which are shared by every thread.
+ * <p>
+ * Glyphs of the first 256 characters are kept for good in a table read without locking. Other
+ * glyphs, such as those of CJK alphabets, are kept in a bounded map evicting the least recently
+ * used glyph. Glyphs are rasterised on first use or ahead of time with {@link #preload(char[])}.
+ */
+final class GlyphAtlas {
+
+    /**
+     * The number of characters, starting from the first ASCII character, whose glyphs are never
+     * evicted.
+     */
+    private static final int TABLE_CHARS = 256;
+
+    /**
+     * The padding around the pixel bounds of a glyph when it is rasterised, in case anti-aliasing
+     * bleeds past them.
+     */
+    private static final int PADDING = 2;
+
+    private final Font[] fonts;
+    private final RenderingHints hints;
+
+    /**
+     * The glyphs of the first characters for each font, or {@code null} for glyphs not rasterised
+     * yet. Racing threads rasterise the same glyph, so a lost update is harmless.
+     */
+    private final Glyph[][] table;
+
+    /**
+     * The other glyphs, keyed by font index and character, in access order.
+     */
+    private final Map<Integer, Glyph> overflow;
+
+    /**
+     * Creates a new {@link GlyphAtlas}.
+     *
+     * @param fonts    the fonts to rasterise glyphs of
+     * @param hints    the rendering hints to rasterise glyphs with
+     * @param capacity the maximum number of glyphs kept besides those of the first characters
+     */
+    GlyphAtlas(Font[] fonts, RenderingHints hints, int capacity) {
+        this.fonts = fonts;
+        this.hints = hints;
+        this.table = new Glyph[fonts.length][TABLE_CHARS];
+        this.overflow = new LinkedHashMap<Integer, Glyph>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Glyph> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Rasterises the glyphs of the given characters in every font ahead of their first use.
+     *
+     * @param chars the characters
+     */
+    void preload(char[] chars) {
+        for (int font = 0; font < fonts.length; font++) {
+            for (char c : chars) {
+                glyph(font, c);
+            }
+        }
+    }
+
+    /**
+     * Returns the glyph of a character in one of the fonts, rasterising it if needed.
+     *
+     * @param font the index of the font
+     * @param c    the character
+     * @return the glyph
+     */
+    Glyph glyph(int font, char c) {
+        if (c < TABLE_CHARS) {
+            Glyph glyph = table[font][c];
+            if (Objects.isNull(glyph)) {
+                glyph = rasterise(fonts[font], c);
+                table[font][c] = glyph;
+            }
+            return glyph;
+        }
+
+        Integer key = (font << 16) | c;
+        Glyph glyph;
+        synchronized (overflow) {
+            glyph = overflow.get(key);
+        }
+        if (Objects.isNull(glyph)) {
+            glyph = rasterise(fonts[font], c);
+            synchronized (overflow) {
+                overflow.put(key, glyph);
+            }
+        }
+        return glyph;
+    }
+
+    /**
+     * Draws a glyph with its origin at the given position of a {@code TYPE_INT_ARGB} image,
+     * compositing the colour over the pixels it covers. Parts of the glyph outside of the image
+     * are clipped.
+     *
+     * @param glyph  the glyph
+     * @param pixels the pixels of the image
+     * @param width  the width of the image
+     * @param height the height of the image
+     * @param x      the horizontal position of the origin of the glyph
+     * @param y      the vertical position of the baseline of the glyph
+     * @param shades the colour for each coverage, from {@link #shades(Color)}
+     */
+    static void draw(Glyph glyph, int[] pixels, int width, int height, int x, int y, int[] shades) {
+        int left = x + glyph.x;
+        int top = y + glyph.y;
+        int fromX = Math.max(0, -left);
+        int fromY = Math.max(0, -top);
+        int toX = Math.min(glyph.width, width - left);
+        int toY = Math.min(glyph.height, height - top);
+
+        byte[] mask = glyph.mask;
+        int[] runs = glyph.runs;
+        for (int run = 0; run < runs.length; run += 3) {
+            int row = runs[run];
+            if (row < fromY || row >= toY) {
+                continue;
+            }
+
+            int maskIndex = row * glyph.width;
+            int pixelIndex = (top + row) * width + left;
+            int end = Math.min(runs[run + 1] + runs[run + 2], toX);
+            for (int column = Math.max(runs[run + 1], fromX); column < end; column++) {
+                int shade = shades[mask[maskIndex + column] & 0xff];
+                int destination = pixels[pixelIndex + column];
+                if (shade >>> 24 == 0xff || destination >>> 24 == 0) {
+                    pixels[pixelIndex + column] = shade;
+                } else {
+                    pixels[pixelIndex + column] = over(shade, destination);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the colour to draw a pixel with for each coverage from 0 to 255, the alpha of the
+     * colour being scaled by the coverage.
+     *
+     * @param colour the colour
+     * @return the colour for each coverage, as non-premultiplied ARGB values
+     */
+    static int[] shades(Color colour) {
+        int alpha = colour.getAlpha();
+        int rgb = colour.getRGB() & 0xffffff;
+        int[] shades = new int[256];
+        for (int coverage = 0; coverage < shades.length; coverage++) {
+            shades[coverage] = ((alpha * coverage + 127) / 255) << 24 | rgb;
+        }
+        return shades;
+    }
+
+    /**
+     * Composites a non-premultiplied ARGB colour over a non-premultiplied ARGB pixel.
+     */
+    private static int over(int shade, int destination) {
+        int sourceAlpha = shade >>> 24;
+        int rgb = shade & 0xffffff;
+        int destinationAlpha = destination >>> 24;
+        int destinationWeight = destinationAlpha * (0xff - sourceAlpha) / 255;
+        int resultAlpha = sourceAlpha + destinationWeight;
+        int half = resultAlpha / 2;
+        int red = (((rgb >>> 16) & 0xff) * sourceAlpha + ((destination >>> 16) & 0xff) * destinationWeight + half) / resultAlpha;
+        int green = (((rgb >>> 8) & 0xff) * sourceAlpha + ((destination >>> 8) & 0xff) * destinationWeight + half) / resultAlpha;
+        int blue = ((rgb & 0xff) * sourceAlpha + (destination & 0xff) * destinationWeight + half) / resultAlpha;
+        return (resultAlpha << 24) | (red << 16) | (green << 8) | blue;
+    }
+
+    /**
+     * Rasterises a character the way {@link Graphics2D#drawChars(char[], int, int, int, int)}
+     * draws it at an integer position, and keeps the coverage of the pixels it touches.
+     */
+    private Glyph rasterise(Font font, char c) {
+        BufferedImage probe = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D probeGraphics = probe.createGraphics();
+        probeGraphics.setRenderingHints(hints);
+        FontRenderContext frc = probeGraphics.getFontRenderContext();
+        probeGraphics.dispose();
+
+        char[] chars = {c};
+        GlyphVector gv = font.createGlyphVector(frc, chars);
+        int advance = (int) gv.getVisualBounds().getWidth();
+        Rectangle bounds = gv.getPixelBounds(frc, 0, 0);
+        if (bounds.isEmpty()) {
+            return new Glyph(new byte[0], new int[0], 0, 0, 0, 0, advance);
+        }
+
+        int canvasWidth = bounds.width + PADDING * 2;
+        int canvasHeight = bounds.height + PADDING * 2;
+        int originX = PADDING - bounds.x;
+        int originY = PADDING - bounds.y;
+        BufferedImage canvas = new BufferedImage(canvasWidth, canvasHeight, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g2D = canvas.createGraphics();
+        g2D.setRenderingHints(hints);
+        g2D.setColor(Color.WHITE);
+        g2D.setFont(font);
+        g2D.drawChars(chars, 0, 1, originX, originY);
+        g2D.dispose();
+
+        int[] pixels = ((DataBufferInt) canvas.getRaster().getDataBuffer()).getData();
+        int minX = canvasWidth;
+        int minY = canvasHeight;
+        int maxX = -1;
+        int maxY = -1;
+        for (int y = 0; y < canvasHeight; y++) {
+            for (int x = 0; x < canvasWidth; x++) {
+                if ((pixels[y * canvasWidth + x] >>> 24) != 0) {
+                    minX = Math.min(minX, x);
+                    maxX = Math.max(maxX, x);
+                    minY = Math.min(minY, y);
+                    maxY = Math.max(maxY, y);
+                }
+            }
+        }
+        if (maxX < 0) {
+            return new Glyph(new byte[0], new int[0], 0, 0, 0, 0, advance);
+        }
+
+        int width = maxX - minX + 1;
+        int height = maxY - minY + 1;
+        byte[] mask = new byte[width * height];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                mask[y * width + x] = (byte) (pixels[(minY + y) * canvasWidth + minX + x] >>> 24);
+            }
+        }
+        return new Glyph(mask, runs(mask, width, height), width, height, minX - originX, minY - originY, advance);
+    }
+
+    /**
+     * Finds the runs of covered pixels of a mask, as triples of row, first column and length.
+     */
+    private static int[] runs(byte[] mask, int width, int height) {
+        int[] runs = new int[48];
+        int count = 0;
+        for (int y = 0; y < height; y++) {
+            int x = 0;
+            while (x < width) {
+                if (mask[y * width + x] == 0) {
+                    x++;
+                    continue;
+                }
+
+                int start = x;
+                while (x < width && mask[y * width + x] != 0) {
+                    x++;
+                }
+                if (count + 3 > runs.length) {
+                    runs = Arrays.copyOf(runs, runs.length * 2);
+                }
+                runs[count++] = y;
+                runs[count++] = start;
+                runs[count++] = x - start;
+            }
+        }
+        return Arrays.copyOf(runs, count);
+    }
+
+    /**
+     * The coverage mask and metrics of a rasterised character.
+     */
+    static final class Glyph {
+
+        /**
+         * The coverage of each pixel of the bounding box of the glyph, row by row.
+         */
+        private final byte[] mask;
+
+        /**
+         * The runs of covered pixels of the mask, as triples of row, first column and length.
+         */
+        private final int[] runs;
+        private final int width;
+        private final int height;
+
+        /**
+         * The position of the top-left corner of the mask relative to the origin of the glyph on
+         * the baseline.
+         */
+        private final int x;
+        private final int y;
+
+        /**
+         * The visual width of the glyph, used to lay out words.
+         */
+        private final int advance;
+
+        private Glyph(byte[] mask, int[] runs, int width, int height, int x, int y, int advance) {
+            this.mask = mask;
+            this.runs = runs;
+            this.width = width;
+            this.height = height;
+            this.x = x;
+            this.y = y;
+            this.advance = advance;
+        }
+
+        /**
+         * Returns the visual width of the glyph.
+         *
+         * @return the visual width
+         */
+        int getAdvance() {
+            return advance;
+        }
+    }
+}
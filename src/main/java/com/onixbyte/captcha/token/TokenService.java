@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2024-2025 OnixByte
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.onixbyte.captcha.token;
+
+/**
+ * Issues self-contained tokens carrying a proof of the answer of a captcha, and verifies answers
+ * against them without keeping any state.
+ * <p>
+ * Tokens are opaque to the client. They cannot be used to recover the answer, but, as nothing is
+ * recorded when they are verified, a token can be verified again until it expires. Services which
+ * must reject replays should record the tokens they have accepted until they expire.
+ */
+public interface TokenService {
+
+    /**
+     * Issues a token for the answer of a captcha.
+     *
+     * @param answer the expected answer
+     * @return the token
+     */
+    String issue(String answer);
+
+    /**
+     * Verifies an answer against a token.
+     *
+     * @param token  the token returned by {@link #issue(String)}
+     * @param answer the answer given by the client
+     * @return {@code true} if the token is authentic, has not expired and was issued for the given
+     * answer
+     */
+    boolean verify(String token, String answer);
+}
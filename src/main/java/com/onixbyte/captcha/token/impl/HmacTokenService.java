@@ -0,0 +1,406 @@
+/*
+ * Copyright (c) 2024-2025 OnixByte
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.onixbyte.captcha.token.impl;
+
+import com.onixbyte.captcha.token.TokenService;
+import com.onixbyte.captcha.util.AnswerUtils;
+import com.onixbyte.captcha.util.RandomUtils;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Objects;
+
+/**
+ * A {@link TokenService} issuing tokens authenticated with HMAC-SHA256.
+ * <p>
+ * A token is the URL-safe Base64 encoding of a version byte, the identifier of the signing key, the
+ * expiry time, a random 128-bit salt and the HMAC of all of these together with the normalised
+ * answer. The answer itself is not part of the token, and the salt makes tokens for the same
+ * answer unrelated to each other. Verifying a token recomputes the HMAC and compares it in constant
+ * time, without any lookup.
+ * <p>
+ * Keys are identified by a number between 0 and 255 carried in the token. Tokens are signed with
+ * the current signing key and verified with whichever known key they name, so keys can be rotated
+ * by {@link #rotate(int, byte[]) adding} a new signing key on every node and
+ * {@link #retire(int) retiring} the old one once its tokens have expired. Each thread keeps an
+ * initialised {@link Mac} per key, so neither issuing nor verifying a token looks a {@link Mac} up
+ * or re-derives its key.
+ */
+public class HmacTokenService implements TokenService {
+
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private static final byte VERSION = 1;
+
+    private static final int KEY_ID_OFFSET = 1;
+    private static final int EXPIRY_OFFSET = 2;
+    private static final int SALT_OFFSET = 10;
+    private static final int SALT_LENGTH = 16;
+    private static final int TAG_OFFSET = SALT_OFFSET + SALT_LENGTH;
+    private static final int TAG_LENGTH = 32;
+    private static final int TOKEN_LENGTH = TAG_OFFSET + TAG_LENGTH;
+
+    /**
+     * The length of an encoded token, in characters.
+     */
+    private static final int ENCODED_LENGTH = (TOKEN_LENGTH * 4 + 2) / 3;
+
+    private static final int MAX_KEYS = 256;
+
+    private static final int MIN_KEY_LENGTH = 32;
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    /**
+     * The initialised {@link Mac}s of each thread, indexed by key identifier.
+     */
+    private static final ThreadLocal<MacCache> MACS = ThreadLocal.withInitial(MacCache::new);
+
+    private final Clock clock;
+    private final long ttlMillis;
+    private final boolean caseSensitive;
+
+    /**
+     * The known keys and the signing key, replaced as a whole when keys are rotated.
+     */
+    private volatile KeySet keySet;
+
+    /**
+     * Creates a new {@link HmacTokenService}.
+     *
+     * @param keySet        the known keys and the signing key
+     * @param clock         the clock expiry is measured with
+     * @param ttlMillis     how long a token is valid for, in milliseconds
+     * @param caseSensitive whether answers are compared case-sensitively
+     */
+    private HmacTokenService(KeySet keySet, Clock clock, long ttlMillis, boolean caseSensitive) {
+        this.keySet = keySet;
+        this.clock = clock;
+        this.ttlMillis = ttlMillis;
+        this.caseSensitive = caseSensitive;
+    }
+
+    @Override
+    public String issue(String answer) {
+        if (Objects.isNull(answer)) {
+            throw new IllegalArgumentException("Answer should not be null.");
+        }
+
+        KeySet keys = keySet;
+        byte[] token = new byte[TOKEN_LENGTH];
+        token[0] = VERSION;
+        token[KEY_ID_OFFSET] = (byte) keys.signingKeyId;
+        putLong(token, EXPIRY_OFFSET, clock.millis() + ttlMillis);
+        byte[] salt = new byte[SALT_LENGTH];
+        RandomUtils.secure().nextBytes(salt);
+        System.arraycopy(salt, 0, token, SALT_OFFSET, SALT_LENGTH);
+
+        Mac mac = MACS.get().get(keys.signingKeyId, keys.keys[keys.signingKeyId]);
+        mac.update(token, 0, TAG_OFFSET);
+        mac.update(normalise(answer));
+        try {
+            mac.doFinal(token, TAG_OFFSET);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot compute the token tag.", e);
+        }
+
+        return ENCODER.encodeToString(token);
+    }
+
+    @Override
+    public boolean verify(String token, String answer) {
+        if (Objects.isNull(token) || Objects.isNull(answer) || token.length() != ENCODED_LENGTH) {
+            return false;
+        }
+
+        byte[] decoded;
+        try {
+            decoded = DECODER.decode(token);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        if (decoded.length != TOKEN_LENGTH || decoded[0] != VERSION) {
+            return false;
+        }
+        if (getLong(decoded, EXPIRY_OFFSET) <= clock.millis()) {
+            return false;
+        }
+
+        int keyId = decoded[KEY_ID_OFFSET] & 0xff;
+        SecretKeySpec key = keySet.keys[keyId];
+        if (Objects.isNull(key)) {
+            return false;
+        }
+
+        Mac mac = MACS.get().get(keyId, key);
+        mac.update(decoded, 0, TAG_OFFSET);
+        byte[] expected = mac.doFinal(normalise(answer));
+        byte[] actual = new byte[TAG_LENGTH];
+        System.arraycopy(decoded, TAG_OFFSET, actual, 0, TAG_LENGTH);
+        return MessageDigest.isEqual(expected, actual);
+    }
+
+    /**
+     * Adds a key, or replaces the key with the same identifier, and signs every token issued from
+     * now on with it. Tokens signed with the other known keys remain valid.
+     *
+     * @param keyId the identifier of the key, between 0 and 255
+     * @param key   the key, at least 32 bytes long
+     */
+    public void rotate(int keyId, byte[] key) {
+        checkKey(keyId, key);
+
+        synchronized (this) {
+            SecretKeySpec[] keys = keySet.keys.clone();
+            keys[keyId] = new SecretKeySpec(key, ALGORITHM);
+            keySet = new KeySet(keys, keyId);
+        }
+    }
+
+    /**
+     * Removes a key, so that the tokens signed with it are no longer accepted.
+     *
+     * @param keyId the identifier of the key
+     * @throws IllegalArgumentException if the key is the signing key
+     */
+    public void retire(int keyId) {
+        if (keyId < 0 || keyId >= MAX_KEYS) {
+            throw new IllegalArgumentException("Key identifier should be in range [0, 255].");
+        }
+
+        synchronized (this) {
+            if (keyId == keySet.signingKeyId) {
+                throw new IllegalArgumentException("The signing key cannot be retired.");
+            }
+
+            SecretKeySpec[] keys = keySet.keys.clone();
+            keys[keyId] = null;
+            keySet = new KeySet(keys, keySet.signingKeyId);
+        }
+    }
+
+    /**
+     * Normalises the answer as {@link AnswerUtils#normalise(String, boolean)} does and encodes it
+     * in UTF-8.
+     */
+    private byte[] normalise(String answer) {
+        return AnswerUtils.normalise(answer, caseSensitive).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void checkKey(int keyId, byte[] key) {
+        if (keyId < 0 || keyId >= MAX_KEYS) {
+            throw new IllegalArgumentException("Key identifier should be in range [0, 255].");
+        }
+        if (Objects.isNull(key) || key.length < MIN_KEY_LENGTH) {
+            throw new IllegalArgumentException("Key should be at least 32 bytes long.");
+        }
+    }
+
+    private static void putLong(byte[] bytes, int offset, long value) {
+        for (int i = 7; i >= 0; i--) {
+            bytes[offset + i] = (byte) value;
+            value >>>= 8;
+        }
+    }
+
+    private static long getLong(byte[] bytes, int offset) {
+        long value = 0;
+        for (int i = 0; i < 8; i++) {
+            value = value << 8 | (bytes[offset + i] & 0xff);
+        }
+        return value;
+    }
+
+    /**
+     * Creates a new {@link HmacTokenServiceBuilder}.
+     *
+     * @return a new {@link HmacTokenServiceBuilder}
+     */
+    public static HmacTokenServiceBuilder builder() {
+        return new HmacTokenServiceBuilder();
+    }
+
+    /**
+     * An immutable set of keys, indexed by identifier, together with the identifier of the signing
+     * key.
+     */
+    private static final class KeySet {
+        private final SecretKeySpec[] keys;
+        private final int signingKeyId;
+
+        private KeySet(SecretKeySpec[] keys, int signingKeyId) {
+            this.keys = keys;
+            this.signingKeyId = signingKeyId;
+        }
+    }
+
+    /**
+     * The {@link Mac}s of a thread, each initialised with the key it was last used with.
+     */
+    private static final class MacCache {
+        private final SecretKeySpec[] keys = new SecretKeySpec[MAX_KEYS];
+        private final Mac[] macs = new Mac[MAX_KEYS];
+
+        /**
+         * Returns a {@link Mac} initialised with the given key and ready for input.
+         */
+        private Mac get(int keyId, SecretKeySpec key) {
+            Mac mac = macs[keyId];
+            try {
+                if (Objects.isNull(mac)) {
+                    mac = Mac.getInstance(ALGORITHM);
+                    macs[keyId] = mac;
+                }
+                if (keys[keyId] != key) {
+                    mac.init(key);
+                    keys[keyId] = key;
+                }
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException(ALGORITHM + " is not available.", e);
+            }
+            return mac;
+        }
+    }
+
+    /**
+     * A builder for creating {@link HmacTokenService} instances.
+     */
+    public static class HmacTokenServiceBuilder {
+        private final SecretKeySpec[] keys;
+        private int signingKeyId;
+        private Duration ttl;
+        private Clock clock;
+        private boolean caseSensitive;
+
+        private HmacTokenServiceBuilder() {
+            this.keys = new SecretKeySpec[MAX_KEYS];
+            this.signingKeyId = -1;
+            this.ttl = Duration.ofMinutes(5);
+            this.clock = Clock.systemUTC();
+            this.caseSensitive = false;
+        }
+
+        /**
+         * Adds a key tokens can be verified with. The last key added is the signing key unless
+         * another one is chosen with {@link #signingKeyId(int)}. Every node verifying the tokens
+         * must know the same keys.
+         * <p>
+         * If no key is added, a random key is generated, in which case only the service itself can
+         * verify its tokens.
+         *
+         * @param keyId the identifier of the key, between 0 and 255
+         * @param key   the key, at least 32 bytes long
+         * @return this builder
+         */
+        public HmacTokenServiceBuilder key(int keyId, byte[] key) {
+            checkKey(keyId, key);
+
+            this.keys[keyId] = new SecretKeySpec(key, ALGORITHM);
+            this.signingKeyId = keyId;
+            return this;
+        }
+
+        /**
+         * Sets the key new tokens are signed with.
+         *
+         * @param signingKeyId the identifier of a key added with {@link #key(int, byte[])}
+         * @return this builder
+         */
+        public HmacTokenServiceBuilder signingKeyId(int signingKeyId) {
+            if (signingKeyId < 0 || signingKeyId >= MAX_KEYS || Objects.isNull(keys[signingKeyId])) {
+                throw new IllegalArgumentException("Signing key should be added first.");
+            }
+
+            this.signingKeyId = signingKeyId;
+            return this;
+        }
+
+        /**
+         * Sets how long a token is valid for after it is issued. Defaults to five minutes.
+         *
+         * @param ttl the time to live of a token
+         * @return this builder
+         */
+        public HmacTokenServiceBuilder ttl(Duration ttl) {
+            if (Objects.isNull(ttl) || ttl.isNegative() || ttl.isZero()) {
+                throw new IllegalArgumentException("TTL should be positive.");
+            }
+
+            this.ttl = ttl;
+            return this;
+        }
+
+        /**
+         * Sets the clock expiry is measured with. Defaults to the system clock.
+         *
+         * @param clock the clock
+         * @return this builder
+         */
+        public HmacTokenServiceBuilder clock(Clock clock) {
+            if (Objects.isNull(clock)) {
+                throw new IllegalArgumentException("Clock should not be null.");
+            }
+
+            this.clock = clock;
+            return this;
+        }
+
+        /**
+         * Sets whether answers are compared case-sensitively. Defaults to {@code false}. Surrounding
+         * whitespace is ignored either way.
+         *
+         * @param caseSensitive whether answers are compared case-sensitively
+         * @return this builder
+         */
+        public HmacTokenServiceBuilder caseSensitive(boolean caseSensitive) {
+            this.caseSensitive = caseSensitive;
+            return this;
+        }
+
+        /**
+         * Builds a new {@link HmacTokenService} with the configured properties.
+         *
+         * @return a new {@link HmacTokenService}
+         */
+        public HmacTokenService build() {
+            SecretKeySpec[] keySet = keys.clone();
+            int signingKey = signingKeyId;
+            if (signingKey < 0) {
+                byte[] key = new byte[MIN_KEY_LENGTH];
+                RandomUtils.secure().nextBytes(key);
+                keySet[0] = new SecretKeySpec(key, ALGORITHM);
+                signingKey = 0;
+            }
+
+            return new HmacTokenService(new KeySet(keySet, signingKey), clock, ttl.toMillis(), caseSensitive);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2024-2025 OnixByte
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.onixbyte.captcha.util;
+
+import java.util.Objects;
+
+/**
+ * Utilities for comparing the answers given to captchas.
+ * <p>
+ * Every {@link com.onixbyte.captcha.store.CaptchaStore} and
+ * {@link com.onixbyte.captcha.token.TokenService} of this library normalises answers the same
+ * way, so that an answer accepted by one is accepted by the other.
+ */
+public final class AnswerUtils {
+
+    private AnswerUtils() {
+    }
+
+    /**
+     * Normalises an answer before it is compared. Surrounding whitespace is trimmed and, unless
+     * answers are case-sensitive, every character is mapped to upper case and then to lower case,
+     * so that characters with more than one case mapping compare equal.
+     *
+     * @param answer        the answer
+     * @param caseSensitive whether answers are compared case-sensitively
+     * @return the normalised answer, which is the given answer if it needs no change
+     */
+    public static String normalise(String answer, boolean caseSensitive) {
+        String trimmed = answer.trim();
+        if (caseSensitive) {
+            return trimmed;
+        }
+
+        char[] folded = null;
+        for (int i = 0; i < trimmed.length(); i++) {
+            char c = trimmed.charAt(i);
+            char fold = Character.toLowerCase(Character.toUpperCase(c));
+            if (fold != c) {
+                if (Objects.isNull(folded)) {
+                    folded = trimmed.toCharArray();
+                }
+                folded[i] = fold;
+            }
+        }
+        return Objects.isNull(folded) ? trimmed : new String(folded);
+    }
+}
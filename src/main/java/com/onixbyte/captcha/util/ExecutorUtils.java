@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2024-2025 OnixByte
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.onixbyte.captcha.util;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Utilities for the executors captchas are rendered on asynchronously.
+ * <p>
+ * This implementation is used before Java 21. Its default executor is a bounded pool of daemon
+ * platform threads, one per processor, which stop after a minute without work. Tasks submitted
+ * while the pool and its queue are full are rejected rather than run on the submitting thread, so
+ * that an event loop submitting them is never blocked. The multi-release jar carries a replacement
+ * for Java 21 and later, which runs each task on a virtual thread instead.
+ */
+public final class ExecutorUtils {
+
+    private static final Executor DEFAULT_EXECUTOR = createDefaultExecutor();
+
+    private ExecutorUtils() {
+    }
+
+    /**
+     * Returns the executor captchas are rendered on when no executor is given. The executor is
+     * shared and must not be shut down.
+     *
+     * @return the default executor
+     */
+    public static Executor defaultExecutor() {
+        return DEFAULT_EXECUTOR;
+    }
+
+    private static Executor createDefaultExecutor() {
+        int threads = Runtime.getRuntime().availableProcessors();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                threads, threads,
+                60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(threads * 64),
+                new AsyncThreadFactory(),
+                new ThreadPoolExecutor.AbortPolicy()
+        );
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Creates daemon threads, so that the default executor never keeps the JVM alive.
+     */
+    private static class AsyncThreadFactory implements ThreadFactory {
+        private final AtomicInteger threadSequence = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "captcha-async-" + threadSequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
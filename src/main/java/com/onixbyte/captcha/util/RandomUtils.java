@@ -0,0 +1,187 @@
+/*
+ * Copyright (c) 2024-2025 OnixByte
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.onixbyte.captcha.util;
+
+import java.security.SecureRandom;
+import java.util.Objects;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.function.Supplier;
+
+/**
+ * Utilities for obtaining random number generators without creating one on every call.
+ * <p>
+ * Each thread is given one generator of each kind, created on first use and reused for every image
+ * it renders, which also avoids contention on the lock guarding a shared instance:
+ * <ul>
+ *     <li>a {@link SecureRandom}, returned by {@link #secure()} and {@link #current()}, for
+ *     anything an attacker must not predict, such as answers, keys and identifiers;</li>
+ *     <li>a fast generator split from a common {@link SplittableRandom}, returned by
+ *     {@link #fast()}, for visual parameters which only have to look random.</li>
+ * </ul>
+ * Rendering can also be made reproducible: within {@link #withSeed(long, Supplier)}, both
+ * {@link #current()} and {@link #fast()} return a {@link Random} seeded with the given seed
+ * instead, so the same seed and configuration always produce the same text and image. Secrets are
+ * drawn from {@link #secure()}, which is never seeded.
+ */
+public final class RandomUtils {
+
+    private static final ThreadLocal<State> STATES = ThreadLocal.withInitial(State::new);
+
+    /**
+     * The generator every fast generator is split from, seeded securely.
+     */
+    private static final SplittableRandom ROOT = new SplittableRandom(new SecureRandom().nextLong());
+
+    private RandomUtils() {
+    }
+
+    /**
+     * Returns the random number generator the calling thread draws secure values from: the
+     * seeded generator inside {@link #withSeed(long, Supplier)} and the thread's
+     * {@link SecureRandom} otherwise. The generator must not be handed over to other threads.
+     *
+     * @return the random number generator of the calling thread
+     */
+    public static Random current() {
+        State state = STATES.get();
+        return Objects.nonNull(state.seeded) ? state.seeded : state.secure();
+    }
+
+    /**
+     * Returns the random number generator the calling thread draws visual parameters from: the
+     * seeded generator inside {@link #withSeed(long, Supplier)} and the thread's fast generator
+     * otherwise. The generator is not cryptographically strong and must not be handed over to
+     * other threads.
+     *
+     * @return the fast random number generator of the calling thread
+     */
+    public static Random fast() {
+        State state = STATES.get();
+        return Objects.nonNull(state.seeded) ? state.seeded : state.fast();
+    }
+
+    /**
+     * Returns the {@link SecureRandom} of the calling thread, which is never replaced by a seeded
+     * generator. The generator must not be handed over to other threads.
+     *
+     * @return the secure random number generator of the calling thread
+     */
+    public static Random secure() {
+        return STATES.get().secure();
+    }
+
+    /**
+     * Runs an action with {@link #current()} and {@link #fast()} replaced by a generator seeded
+     * with the given seed on the calling thread. Calls may be nested, and the previous generator
+     * is restored when the action returns or throws.
+     * <p>
+     * Randomness drawn on other threads, for example by tasks the action submits, is not seeded.
+     *
+     * @param seed   the seed
+     * @param action the action to run
+     * @param <T>    the type of the result of the action
+     * @return the result of the action
+     */
+    public static <T> T withSeed(long seed, Supplier<T> action) {
+        State state = STATES.get();
+        Random previous = state.seeded;
+        state.seeded = new Random(seed);
+        try {
+            return action.get();
+        } finally {
+            state.seeded = previous;
+        }
+    }
+
+    /**
+     * The generators of a thread.
+     */
+    private static final class State {
+        private Random secure;
+        private Random fast;
+        private Random seeded;
+
+        private Random secure() {
+            if (Objects.isNull(secure)) {
+                secure = new SecureRandom();
+            }
+            return secure;
+        }
+
+        private Random fast() {
+            if (Objects.isNull(fast)) {
+                SplittableRandom split;
+                synchronized (ROOT) {
+                    split = ROOT.split();
+                }
+                fast = new SplittableRandomAdapter(split);
+            }
+            return fast;
+        }
+    }
+
+    /**
+     * Exposes a {@link SplittableRandom} as a {@link Random}, so that it can be passed wherever
+     * a {@link Random} is expected. It is not thread-safe and cannot be reseeded.
+     */
+    private static final class SplittableRandomAdapter extends Random {
+        private static final long serialVersionUID = 1L;
+
+        private final transient SplittableRandom random;
+
+        private SplittableRandomAdapter(SplittableRandom random) {
+            this.random = random;
+        }
+
+        @Override
+        protected int next(int bits) {
+            return (int) (random.nextLong() >>> (64 - bits));
+        }
+
+        @Override
+        public int nextInt() {
+            return random.nextInt();
+        }
+
+        @Override
+        public int nextInt(int bound) {
+            return random.nextInt(bound);
+        }
+
+        @Override
+        public long nextLong() {
+            return random.nextLong();
+        }
+
+        @Override
+        public double nextDouble() {
+            return random.nextDouble();
+        }
+
+        @Override
+        public boolean nextBoolean() {
+            return random.nextBoolean();
+        }
+    }
+}
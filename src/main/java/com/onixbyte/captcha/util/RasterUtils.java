@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2024-2025 OnixByte
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.onixbyte.captcha.util;
+
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferInt;
+import java.awt.image.DirectColorModel;
+import java.awt.image.Raster;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.awt.image.WritableRaster;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Utilities for working directly on the pixel arrays backing {@link BufferedImage}s.
+ * <p>
+ * The rendering stages use these to skip Java2D when the image is a plain packed
+ * {@link BufferedImage#TYPE_INT_ARGB} or {@link BufferedImage#TYPE_INT_RGB} image, and fall back to
+ * the generic {@link BufferedImage} API otherwise.
+ */
+public final class RasterUtils {
+
+    private static final int[] ARGB_MASKS = {0x00ff0000, 0x0000ff00, 0x000000ff, 0xff000000};
+
+    private static final int[] RGB_MASKS = {0x00ff0000, 0x0000ff00, 0x000000ff};
+
+    private static final ColorModel ARGB_COLOUR_MODEL = ColorModel.getRGBdefault();
+
+    private static final ColorModel RGB_COLOUR_MODEL = new DirectColorModel(24, 0x00ff0000, 0x0000ff00, 0x000000ff);
+
+    private RasterUtils() {
+    }
+
+    /**
+     * Returns the array backing the given image, laid out row by row with one packed pixel per
+     * element and no padding.
+     *
+     * @param image the image
+     * @return the backing array, or {@code null} if the image is not a plain packed
+     * {@code TYPE_INT_ARGB} or {@code TYPE_INT_RGB} image
+     */
+    public static int[] pixels(BufferedImage image) {
+        int type = image.getType();
+        if (type != BufferedImage.TYPE_INT_ARGB && type != BufferedImage.TYPE_INT_RGB) {
+            return null;
+        }
+
+        WritableRaster raster = image.getRaster();
+        if (raster.getSampleModelTranslateX() != 0 || raster.getSampleModelTranslateY() != 0
+                || !(raster.getSampleModel() instanceof SinglePixelPackedSampleModel)
+                || ((SinglePixelPackedSampleModel) raster.getSampleModel()).getScanlineStride() != image.getWidth()) {
+            return null;
+        }
+
+        DataBuffer buffer = raster.getDataBuffer();
+        if (!(buffer instanceof DataBufferInt) || buffer.getNumBanks() != 1 || buffer.getOffset() != 0) {
+            return null;
+        }
+
+        return ((DataBufferInt) buffer).getData();
+    }
+
+    /**
+     * Wraps the given array in an image without copying it.
+     *
+     * @param pixels the packed pixels, row by row
+     * @param width  the width of the image
+     * @param height the height of the image
+     * @param alpha  {@code true} for a {@code TYPE_INT_ARGB} image, {@code false} for a
+     *               {@code TYPE_INT_RGB} image
+     * @return an image sharing the given array
+     */
+    public static BufferedImage wrap(int[] pixels, int width, int height, boolean alpha) {
+        if (Objects.isNull(pixels) || pixels.length < width * height) {
+            throw new IllegalArgumentException("Pixels should hold at least width * height elements.");
+        }
+
+        DataBufferInt buffer = new DataBufferInt(pixels, width * height);
+        WritableRaster raster = Raster.createPackedRaster(buffer, width, height, width,
+                alpha ? ARGB_MASKS : RGB_MASKS, null);
+        return new BufferedImage(alpha ? ARGB_COLOUR_MODEL : RGB_COLOUR_MODEL, raster, false, null);
+    }
+
+    /**
+     * Sets every pixel of the given image to transparent black.
+     *
+     * @param image the image to clear
+     */
+    public static void clear(BufferedImage image) {
+        int[] pixels = pixels(image);
+        if (Objects.nonNull(pixels)) {
+            Arrays.fill(pixels, 0, image.getWidth() * image.getHeight(), 0);
+            return;
+        }
+
+        Graphics2D graphics = image.createGraphics();
+        graphics.setComposite(AlphaComposite.Clear);
+        graphics.fillRect(0, 0, image.getWidth(), image.getHeight());
+        graphics.dispose();
+    }
+
+    /**
+     * Copies the pixels of one image into another image of the same size, replacing its content.
+     * Packed integer images are copied array to array, adding an opaque alpha channel when an
+     * {@code TYPE_INT_RGB} image is copied into an {@code TYPE_INT_ARGB} image.
+     *
+     * @param source the image to copy from
+     * @param target the image to copy into
+     */
+    public static void copy(BufferedImage source, BufferedImage target) {
+        int width = source.getWidth();
+        int height = source.getHeight();
+        if (width != target.getWidth() || height != target.getHeight()) {
+            throw new IllegalArgumentException("Source and target should have the same size.");
+        }
+
+        int[] sourcePixels = pixels(source);
+        int[] targetPixels = pixels(target);
+        if (Objects.nonNull(sourcePixels) && Objects.nonNull(targetPixels)) {
+            int size = width * height;
+            if (source.getType() == target.getType() || target.getType() == BufferedImage.TYPE_INT_RGB) {
+                System.arraycopy(sourcePixels, 0, targetPixels, 0, size);
+            } else {
+                for (int i = 0; i < size; i++) {
+                    targetPixels[i] = sourcePixels[i] | 0xff000000;
+                }
+            }
+            return;
+        }
+
+        int[] row = new int[width];
+        for (int y = 0; y < height; y++) {
+            source.getRGB(0, y, width, 1, row, 0, width);
+            target.setRGB(0, y, width, 1, row, 0, width);
+        }
+    }
+}
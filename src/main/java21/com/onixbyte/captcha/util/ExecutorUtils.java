@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2024-2025 OnixByte
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.onixbyte.captcha.util;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+/**
+ * Utilities for the executors captchas are rendered on asynchronously.
+ * <p>
+ * This implementation is used on Java 21 and later. Its default executor starts a virtual thread
+ * per task, so that waiting for a free thread never delays a task and no pool needs sizing.
+ * Rendering is CPU-bound, so throughput remains bounded by the carrier threads of the virtual
+ * threads, one per processor by default.
+ * <p>
+ * Each virtual thread lives for a single task, so per-thread state such as reused render contexts
+ * is not shared between tasks on this executor.
+ */
+public final class ExecutorUtils {
+
+    private static final Executor DEFAULT_EXECUTOR = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("captcha-async-", 1).factory());
+
+    private ExecutorUtils() {
+    }
+
+    /**
+     * Returns the executor captchas are rendered on when no executor is given. The executor is
+     * shared and must not be shut down.
+     *
+     * @return the default executor
+     */
+    public static Executor defaultExecutor() {
+        return DEFAULT_EXECUTOR;
+    }
+}
@@ -0,0 +1,207 @@
+/*
+ * Copyright (c) 2024-2025 OnixByte
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.onixbyte.captcha.cache.impl;
+
+import com.onixbyte.captcha.Producer;
+import org.junit.jupiter.api.Test;
+
+import java.awt.image.BufferedImage;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of {@link TinyLfuImageCache}.
+ */
+class TinyLfuImageCacheTest {
+
+    @Test
+    void keepsTheWeightWithinTheMaximum() throws Exception {
+        StubProducer producer = new StubProducer(100);
+        TinyLfuImageCache cache = TinyLfuImageCache.builder()
+                .maximumWeight(10_000)
+                .shards(1)
+                .producer(producer)
+                .build();
+
+        for (long id = 0; id < 1_000; id++) {
+            cache.get(id, "abc123");
+            assertTrue(cache.weightedSize() <= 10_000);
+        }
+
+        assertEquals(100 * cache.size(), cache.weightedSize());
+        assertEquals(100, cache.size());
+        assertEquals(900, cache.getEvictionCount());
+        assertEquals(1_000, producer.renders.get());
+    }
+
+    @Test
+    void doesNotCacheImagesHeavierThanTheMaximum() throws Exception {
+        StubProducer producer = new StubProducer(2_000);
+        TinyLfuImageCache cache = TinyLfuImageCache.builder()
+                .maximumWeight(1_000)
+                .shards(1)
+                .producer(producer)
+                .build();
+
+        assertEquals(2_000, cache.get(1, "abc123").length);
+        assertNull(cache.get(1));
+        assertEquals(0, cache.weightedSize());
+    }
+
+    @Test
+    void returnsTheCachedImageWithoutRenderingAgain() throws Exception {
+        StubProducer producer = new StubProducer(100);
+        TinyLfuImageCache cache = TinyLfuImageCache.builder()
+                .producer(producer)
+                .build();
+
+        byte[] first = cache.get(1, "abc123");
+        assertSame(first, cache.get(1, "abc123"));
+        assertSame(first, cache.get(1));
+        assertEquals(1, producer.renders.get());
+        assertEquals(2, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    void admitsNewImagesOnlyWhenFetchedMoreOftenThanTheImagesTheyWouldEvict() throws Exception {
+        StubProducer producer = new StubProducer(10_240);
+        TinyLfuImageCache cache = TinyLfuImageCache.builder()
+                .maximumWeight(1 << 20)
+                .shards(1)
+                .producer(producer)
+                .build();
+
+        // Popular images pass through the small window to probation with a few fetches each.
+        for (long id = 0; id < 20; id++) {
+            cache.get(id, "abc123");
+            for (int fetch = 0; fetch < 5; fetch++) {
+                assertNotNull(cache.get(id));
+            }
+        }
+
+        // A scan of images fetched once each overflows the cache many times over.
+        for (long id = 1_000; id < 1_500; id++) {
+            cache.get(id, "abc123");
+        }
+
+        for (long id = 0; id < 20; id++) {
+            assertNotNull(cache.get(id), "Popular image " + id + " should have been kept.");
+        }
+        int scanned = 0;
+        for (long id = 1_000; id < 1_500; id++) {
+            if (cache.get(id) != null) {
+                scanned++;
+            }
+        }
+        assertTrue(scanned < 100, "Most of the scan should have been rejected, but " + scanned + " were kept.");
+        assertTrue(cache.weightedSize() <= 1 << 20);
+    }
+
+    @Test
+    void rejectsANewImageFetchedNoMoreOftenThanTheImageItWouldEvict() throws Exception {
+        StubProducer producer = new StubProducer(100);
+        TinyLfuImageCache cache = TinyLfuImageCache.builder()
+                .maximumWeight(1_000)
+                .shards(1)
+                .producer(producer)
+                .build();
+
+        for (long id = 0; id < 10; id++) {
+            cache.get(id, "abc123");
+        }
+        cache.get(10, "abc123");
+
+        assertEquals(1, cache.getEvictionCount());
+        assertNotNull(cache.get(0));
+        assertNull(cache.get(10));
+    }
+
+    @Test
+    void expiresImagesAfterTheirTimeToLive() throws Exception {
+        StubProducer producer = new StubProducer(100);
+        TinyLfuImageCache cache = TinyLfuImageCache.builder()
+                .ttl(Duration.ofMillis(50))
+                .producer(producer)
+                .build();
+
+        cache.get(1, "abc123");
+        assertNotNull(cache.get(1));
+
+        Thread.sleep(150);
+
+        assertNull(cache.get(1));
+        assertEquals(1, cache.getExpiryCount());
+        assertEquals(0, cache.size());
+
+        cache.get(1, "abc123");
+        assertEquals(2, producer.renders.get());
+    }
+
+    @Test
+    void keepsImagesWithinTheirTimeToLive() throws Exception {
+        StubProducer producer = new StubProducer(100);
+        TinyLfuImageCache cache = TinyLfuImageCache.builder()
+                .ttl(Duration.ofMinutes(1))
+                .producer(producer)
+                .build();
+
+        cache.get(1, "abc123");
+        Thread.sleep(50);
+
+        assertNotNull(cache.get(1));
+        assertEquals(0, cache.getExpiryCount());
+        assertEquals(1, producer.renders.get());
+    }
+
+    /**
+     * A producer which renders every text as a blank image of a fixed size, counting the renders.
+     */
+    private static final class StubProducer implements Producer {
+        private final int imageBytes;
+        private final AtomicInteger renders = new AtomicInteger();
+
+        private StubProducer(int imageBytes) {
+            this.imageBytes = imageBytes;
+        }
+
+        @Override
+        public BufferedImage createImage(String text) {
+            return new BufferedImage(1, 1, BufferedImage.TYPE_INT_RGB);
+        }
+
+        @Override
+        public String createText() {
+            return "abc123";
+        }
+
+        @Override
+        public byte[] createImageBytes(String text, String format) {
+            renders.incrementAndGet();
+            return new byte[imageBytes];
+        }
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2024-2025 OnixByte
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.onixbyte.captcha.encoder.impl;
+
+import com.onixbyte.captcha.encoder.enums.PngFilter;
+import com.onixbyte.captcha.impl.DefaultCaptchaProducer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.IndexColorModel;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Round-trip tests of {@link IndexedPngEncoder}, decoding its output with Image I/O.
+ */
+class IndexedPngEncoderTest {
+
+    private static final int WIDTH = 200;
+    private static final int HEIGHT = 50;
+
+    @ParameterizedTest
+    @EnumSource(PngFilter.class)
+    void roundTripsImagesWithFewColoursExactly(PngFilter filter) throws IOException {
+        int[] colours = new int[40];
+        Random random = new Random(filter.ordinal());
+        for (int i = 0; i < colours.length; i++) {
+            colours[i] = 0xff000000 | random.nextInt(0x1000000);
+        }
+        BufferedImage image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                image.setRGB(x, y, colours[(x / 7 + y * 3) % colours.length]);
+            }
+        }
+
+        BufferedImage decoded = decode(IndexedPngEncoder.builder()
+                .filter(filter)
+                .build()
+                .encode(image));
+
+        assertEquals(WIDTH, decoded.getWidth());
+        assertEquals(HEIGHT, decoded.getHeight());
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                assertEquals(image.getRGB(x, y), decoded.getRGB(x, y), "pixel (" + x + ", " + y + ")");
+            }
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(PngFilter.class)
+    void quantisesCaptchasWithinTheMaximumColours(PngFilter filter) throws IOException {
+        BufferedImage image = captcha();
+
+        BufferedImage decoded = decode(IndexedPngEncoder.builder()
+                .maxColours(16)
+                .filter(filter)
+                .build()
+                .encode(image));
+
+        assertEquals(WIDTH, decoded.getWidth());
+        assertEquals(HEIGHT, decoded.getHeight());
+        assertTrue(paletteSize(decoded) <= 16, "palette of " + paletteSize(decoded) + " colours");
+    }
+
+    @Test
+    void mapsEveryPixelToASeedWhenTheSeedsFillThePalette() throws IOException {
+        BufferedImage decoded = decode(IndexedPngEncoder.builder()
+                .maxColours(2)
+                .seedColours(Color.BLACK, Color.WHITE)
+                .build()
+                .encode(captcha()));
+
+        assertTrue(paletteSize(decoded) <= 2, "palette of " + paletteSize(decoded) + " colours");
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                int rgb = decoded.getRGB(x, y);
+                assertTrue(rgb == Color.BLACK.getRGB() || rgb == Color.WHITE.getRGB(),
+                        "pixel (" + x + ", " + y + ") is " + Integer.toHexString(rgb));
+            }
+        }
+    }
+
+    @Test
+    void encodesWithAsManySeedsAsTheLargestPalette() throws IOException {
+        Color[] seeds = new Color[256];
+        for (int i = 0; i < seeds.length; i++) {
+            seeds[i] = new Color(i, 255 - i, i / 2);
+        }
+
+        BufferedImage decoded = decode(IndexedPngEncoder.builder()
+                .maxColours(256)
+                .seedColours(seeds)
+                .build()
+                .encode(captcha()));
+
+        assertTrue(paletteSize(decoded) <= 256, "palette of " + paletteSize(decoded) + " colours");
+    }
+
+    @Test
+    void rejectsMoreSeedsThanTheMaximumColours() {
+        IndexedPngEncoder.IndexedPngEncoderBuilder builder = IndexedPngEncoder.builder()
+                .maxColours(2)
+                .seedColours(Color.BLACK, Color.WHITE, Color.RED);
+
+        assertThrows(IllegalStateException.class, builder::build);
+    }
+
+    private static BufferedImage captcha() {
+        return DefaultCaptchaProducer.builder()
+                .build()
+                .createImage("abc123", 42L);
+    }
+
+    private static BufferedImage decode(byte[] bytes) throws IOException {
+        BufferedImage decoded = ImageIO.read(new ByteArrayInputStream(bytes));
+        assertNotNull(decoded, "the output could not be decoded");
+        return decoded;
+    }
+
+    private static int paletteSize(BufferedImage image) {
+        assertTrue(image.getColorModel() instanceof IndexColorModel, "the output is not indexed");
+        return ((IndexColorModel) image.getColorModel()).getMapSize();
+    }
+}
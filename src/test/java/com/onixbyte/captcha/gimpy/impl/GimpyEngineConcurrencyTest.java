@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2024-2025 OnixByte
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.onixbyte.captcha.gimpy.impl;
+
+import com.onixbyte.captcha.gimpy.GimpyEngine;
+import com.onixbyte.captcha.text.impl.DefaultWordRenderer;
+import com.onixbyte.captcha.util.RandomUtils;
+import com.onixbyte.captcha.util.RasterUtils;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests that every {@link GimpyEngine} can be shared by many threads: an image distorted with a
+ * given seed on a shared engine must match the image distorted with the same seed on one thread.
+ */
+class GimpyEngineConcurrencyTest {
+
+    /**
+     * The number of seeds the images are distorted with.
+     */
+    private static final int SEEDS = 16;
+
+    private static final int THREADS = 8;
+
+    private static final int ROUNDS = 8;
+
+    /**
+     * The engines under test, each built so that it shares as much state between threads as it
+     * can.
+     */
+    enum Engine {
+        // several phases, so that threads also race to build the warp maps
+        WATER_RIPPLE(() -> WaterRipple.builder().phaseShifts(SEEDS / 2).build()),
+        WATER_RIPPLE_IN_ROW_BANDS(() -> WaterRipple.builder().phaseShifts(SEEDS / 2).parallelThreshold(1).build()),
+        SHADOW(() -> ShadowGimpy.builder().build()),
+        FISH_EYE(() -> FishEyeGimpy.builder().build()),
+        FISH_EYE_IN_ROW_BANDS(() -> FishEyeGimpy.builder().parallelThreshold(1).build());
+
+        private final Supplier<GimpyEngine> factory;
+
+        Engine(Supplier<GimpyEngine> factory) {
+            this.factory = factory;
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(Engine.class)
+    void distortsTheSameImageOnEveryThread(Engine engine) throws Exception {
+        GimpyEngine gimpyEngine = engine.factory.get();
+        BufferedImage word = DefaultWordRenderer.builder().build().renderWord("abc123", 200, 50);
+
+        BufferedImage input = new BufferedImage(200, 50, BufferedImage.TYPE_INT_ARGB);
+        int[][] expected = new int[SEEDS][];
+        for (int seed = 0; seed < SEEDS; seed++) {
+            expected[seed] = pixels(distort(gimpyEngine, word, input, seed));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<List<String>>> results = new ArrayList<>();
+            for (int thread = 0; thread < THREADS; thread++) {
+                int offset = thread;
+                results.add(executor.submit(() -> {
+                    BufferedImage threadInput = new BufferedImage(200, 50, BufferedImage.TYPE_INT_ARGB);
+                    List<String> mismatches = new ArrayList<>();
+                    start.await();
+                    for (int round = 0; round < ROUNDS * SEEDS; round++) {
+                        int seed = (offset + round) % SEEDS;
+                        int[] actual = pixels(distort(gimpyEngine, word, threadInput, seed));
+                        if (!Arrays.equals(expected[seed], actual)) {
+                            mismatches.add("seed " + seed + " on " + Thread.currentThread().getName());
+                        }
+                    }
+                    return mismatches;
+                }));
+            }
+            start.countDown();
+
+            List<String> mismatches = new ArrayList<>();
+            for (Future<List<String>> result : results) {
+                mismatches.addAll(result.get());
+            }
+            assertTrue(mismatches.isEmpty(), "Images differ from the single-threaded ones: " + mismatches);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Distorts a fresh copy of the word with the given seed. The fish-eye engine distorts its
+     * input in place, so the word itself is never handed over.
+     */
+    private static BufferedImage distort(GimpyEngine gimpyEngine, BufferedImage word, BufferedImage input,
+                                         long seed) {
+        RasterUtils.copy(word, input);
+        return RandomUtils.withSeed(seed, () -> gimpyEngine.getDistortedImage(input));
+    }
+
+    private static int[] pixels(BufferedImage image) {
+        return image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth());
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2024-2025 OnixByte
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.onixbyte.captcha.store.impl;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of {@link ShardedCaptchaStore}.
+ */
+class ShardedCaptchaStoreTest {
+
+    @Test
+    void verifiesAnAnswerOnlyOnce() {
+        ShardedCaptchaStore store = ShardedCaptchaStore.builder().build();
+        long id = store.put("abc123");
+
+        assertTrue(store.verify(id, "abc123"));
+        assertFalse(store.verify(id, "abc123"));
+        assertEquals(0, store.size());
+    }
+
+    @Test
+    void consumesTheAnswerOnAWrongGuess() {
+        ShardedCaptchaStore store = ShardedCaptchaStore.builder().build();
+        long id = store.put("abc123");
+
+        assertFalse(store.verify(id, "abc124"));
+        assertFalse(store.verify(id, "abc123"));
+        assertEquals(0, store.size());
+    }
+
+    @Test
+    void consumesTheAnswerOnANullGuess() {
+        ShardedCaptchaStore store = ShardedCaptchaStore.builder().build();
+        long id = store.put("abc123");
+
+        assertFalse(store.verify(id, null));
+        assertFalse(store.verify(id, "abc123"));
+    }
+
+    @Test
+    void rejectsUnknownIdentifiers() {
+        ShardedCaptchaStore store = ShardedCaptchaStore.builder().build();
+        long id = store.put("abc123");
+
+        assertFalse(store.verify(id + 1, "abc123"));
+        assertTrue(store.verify(id, "abc123"));
+    }
+
+    @Test
+    void removesAnswersWithoutVerifyingThem() {
+        ShardedCaptchaStore store = ShardedCaptchaStore.builder().build();
+        long id = store.put("abc123");
+
+        assertTrue(store.remove(id));
+        assertFalse(store.remove(id));
+        assertFalse(store.verify(id, "abc123"));
+    }
+
+    @Test
+    void expiresAnswersAfterTheirTimeToLive() throws InterruptedException {
+        ShardedCaptchaStore store = ShardedCaptchaStore.builder()
+                .shards(1)
+                .ttl(Duration.ofMillis(50))
+                .tick(Duration.ofMillis(5))
+                .build();
+        long expired = store.put("abc123");
+
+        Thread.sleep(150);
+        long fresh = store.put("def456");
+
+        assertFalse(store.verify(expired, "abc123"));
+        assertEquals(1, store.getExpiryCount());
+        assertTrue(store.verify(fresh, "def456"));
+    }
+
+    @Test
+    void keepsAnswersWithinTheirTimeToLive() {
+        ShardedCaptchaStore store = ShardedCaptchaStore.builder()
+                .ttl(Duration.ofMinutes(1))
+                .tick(Duration.ofMillis(1))
+                .build();
+        long id = store.put("abc123");
+
+        assertTrue(store.verify(id, "abc123"));
+        assertEquals(0, store.getExpiryCount());
+    }
+
+    @Test
+    void evictsTheAnswerClosestToExpiryWhenFull() throws InterruptedException {
+        ShardedCaptchaStore store = ShardedCaptchaStore.builder()
+                .maxEntries(2)
+                .shards(1)
+                .ttl(Duration.ofMinutes(1))
+                .tick(Duration.ofMillis(1))
+                .build();
+        long oldest = store.put("first");
+        Thread.sleep(20);
+        long middle = store.put("second");
+        Thread.sleep(20);
+        long newest = store.put("third");
+
+        assertEquals(2, store.size());
+        assertEquals(1, store.getEvictionCount());
+        assertFalse(store.verify(oldest, "first"));
+        assertTrue(store.verify(middle, "second"));
+        assertTrue(store.verify(newest, "third"));
+    }
+
+    @Test
+    void neverHoldsMoreThanTheMaximumEntries() {
+        ShardedCaptchaStore store = ShardedCaptchaStore.builder()
+                .maxEntries(64)
+                .shards(4)
+                .build();
+        for (int i = 0; i < 1000; i++) {
+            store.put("answer" + i);
+        }
+
+        assertTrue(store.size() <= 64, "size " + store.size());
+        assertEquals(1000 - store.size(), store.getEvictionCount());
+    }
+
+    @Test
+    void foldsCaseUnlessCaseSensitive() {
+        ShardedCaptchaStore store = ShardedCaptchaStore.builder().build();
+        assertTrue(store.verify(store.put("AbC123"), "aBc123"));
+
+        ShardedCaptchaStore caseSensitive = ShardedCaptchaStore.builder()
+                .caseSensitive(true)
+                .build();
+        assertFalse(caseSensitive.verify(caseSensitive.put("AbC123"), "aBc123"));
+        assertTrue(caseSensitive.verify(caseSensitive.put("AbC123"), "AbC123"));
+    }
+
+    @Test
+    void trimsSurroundingWhitespace() {
+        ShardedCaptchaStore store = ShardedCaptchaStore.builder().build();
+
+        assertTrue(store.verify(store.put("abc"), " abc "));
+        assertFalse(store.verify(store.put("abc"), "a bc"));
+    }
+}
@@ -0,0 +1,242 @@
+/*
+ * Copyright (c) 2024-2025 OnixByte
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.onixbyte.captcha.token.impl;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of {@link HmacTokenService}.
+ */
+class HmacTokenServiceTest {
+
+    private static final byte[] FIRST_KEY = key(1);
+    private static final byte[] SECOND_KEY = key(2);
+
+    @Test
+    void verifiesTheAnswerItWasIssuedFor() {
+        HmacTokenService service = HmacTokenService.builder().build();
+        String token = service.issue("abc123");
+
+        assertTrue(service.verify(token, "abc123"));
+        // nothing is recorded, so a token stays valid until it expires
+        assertTrue(service.verify(token, "abc123"));
+    }
+
+    @Test
+    void issuesUnrelatedTokensForTheSameAnswer() {
+        HmacTokenService service = HmacTokenService.builder().build();
+
+        assertNotEquals(service.issue("abc123"), service.issue("abc123"));
+    }
+
+    @Test
+    void rejectsAWrongAnswer() {
+        HmacTokenService service = HmacTokenService.builder().build();
+        String token = service.issue("abc123");
+
+        assertFalse(service.verify(token, "abc124"));
+        assertFalse(service.verify(token, ""));
+        assertFalse(service.verify(token, null));
+    }
+
+    @Test
+    void normalisesAnswers() {
+        HmacTokenService service = HmacTokenService.builder().build();
+        assertTrue(service.verify(service.issue("AbC123"), " aBc123 "));
+
+        HmacTokenService caseSensitive = HmacTokenService.builder()
+                .caseSensitive(true)
+                .build();
+        assertFalse(caseSensitive.verify(caseSensitive.issue("AbC123"), "aBc123"));
+        assertTrue(caseSensitive.verify(caseSensitive.issue("AbC123"), " AbC123"));
+    }
+
+    @Test
+    void rejectsEveryTamperedByte() {
+        HmacTokenService service = HmacTokenService.builder().build();
+        byte[] token = Base64.getUrlDecoder().decode(service.issue("abc123"));
+
+        for (int i = 0; i < token.length; i++) {
+            byte[] tampered = token.clone();
+            tampered[i] ^= 0x01;
+            String encoded = Base64.getUrlEncoder().withoutPadding().encodeToString(tampered);
+            assertFalse(service.verify(encoded, "abc123"), "byte " + i + " was tampered with");
+        }
+    }
+
+    @Test
+    void rejectsExpiredTokens() {
+        MutableClock clock = new MutableClock();
+        HmacTokenService service = HmacTokenService.builder()
+                .ttl(Duration.ofMinutes(5))
+                .clock(clock)
+                .build();
+        String token = service.issue("abc123");
+
+        clock.advance(Duration.ofMinutes(5).minusMillis(1));
+        assertTrue(service.verify(token, "abc123"));
+
+        clock.advance(Duration.ofMillis(1));
+        assertFalse(service.verify(token, "abc123"));
+    }
+
+    @Test
+    void rejectsTokensOfUnknownKeys() {
+        HmacTokenService issuer = HmacTokenService.builder()
+                .key(7, FIRST_KEY)
+                .build();
+        HmacTokenService verifier = HmacTokenService.builder()
+                .key(8, FIRST_KEY)
+                .build();
+
+        assertFalse(verifier.verify(issuer.issue("abc123"), "abc123"));
+    }
+
+    @Test
+    void rejectsTokensSignedWithAnotherKey() {
+        HmacTokenService issuer = HmacTokenService.builder()
+                .key(7, FIRST_KEY)
+                .build();
+        HmacTokenService verifier = HmacTokenService.builder()
+                .key(7, SECOND_KEY)
+                .build();
+
+        assertFalse(verifier.verify(issuer.issue("abc123"), "abc123"));
+    }
+
+    @Test
+    void acceptsTokensOfEveryKnownKeyAcrossRotation() {
+        HmacTokenService service = HmacTokenService.builder()
+                .key(1, FIRST_KEY)
+                .build();
+        String before = service.issue("abc123");
+
+        service.rotate(2, SECOND_KEY);
+        String after = service.issue("abc123");
+
+        assertTrue(service.verify(before, "abc123"));
+        assertTrue(service.verify(after, "abc123"));
+
+        // a node which only knows the new key accepts only the new tokens
+        HmacTokenService rotated = HmacTokenService.builder()
+                .key(2, SECOND_KEY)
+                .build();
+        assertFalse(rotated.verify(before, "abc123"));
+        assertTrue(rotated.verify(after, "abc123"));
+    }
+
+    @Test
+    void rejectsTokensOfRetiredKeys() {
+        HmacTokenService service = HmacTokenService.builder()
+                .key(1, FIRST_KEY)
+                .build();
+        String token = service.issue("abc123");
+
+        service.rotate(2, SECOND_KEY);
+        service.retire(1);
+
+        assertFalse(service.verify(token, "abc123"));
+        assertTrue(service.verify(service.issue("abc123"), "abc123"));
+    }
+
+    @Test
+    void refusesToRetireTheSigningKey() {
+        HmacTokenService service = HmacTokenService.builder()
+                .key(1, FIRST_KEY)
+                .build();
+
+        assertThrows(IllegalArgumentException.class, () -> service.retire(1));
+    }
+
+    @Test
+    void rejectsMalformedTokens() {
+        HmacTokenService service = HmacTokenService.builder().build();
+        String token = service.issue("abc123");
+
+        assertFalse(service.verify(null, "abc123"));
+        assertFalse(service.verify("", "abc123"));
+        assertFalse(service.verify("not a token", "abc123"));
+        assertFalse(service.verify(token.substring(1), "abc123"));
+        assertFalse(service.verify(token + "A", "abc123"));
+        assertFalse(service.verify(token.replace(token.charAt(3), '*'), "abc123"));
+
+        char[] padded = new char[token.length()];
+        Arrays.fill(padded, '=');
+        assertFalse(service.verify(new String(padded), "abc123"));
+    }
+
+    @Test
+    void rejectsShortKeys() {
+        assertThrows(IllegalArgumentException.class, () -> HmacTokenService.builder().key(0, new byte[31]));
+    }
+
+    private static byte[] key(int seed) {
+        byte[] key = new byte[32];
+        for (int i = 0; i < key.length; i++) {
+            key[i] = (byte) (seed * 31 + i);
+        }
+        return key;
+    }
+
+    /**
+     * A clock which only moves when told to.
+     */
+    private static final class MutableClock extends Clock {
+        private Instant instant = Instant.parse("2025-01-01T00:00:00Z");
+
+        private void advance(Duration duration) {
+            instant = instant.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+
+        @Override
+        public long millis() {
+            return instant.toEpochMilli();
+        }
+    }
+}